@@ -0,0 +1,86 @@
+package app.exercise.benchmark;
+
+import app.exercise.adt.BinarySearchTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the unbalanced {@link BinarySearchTree}: building a tree by insert() and looking up keys by
+ * contains(). Sorted keys degenerate the tree into a list, which is why the sizes stay small.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinarySearchTreeBenchmark {
+    /**
+     * number of keys.
+     */
+    @Param({"1000", "10000"})
+    public int size;
+    /**
+     * order in which the keys are inserted.
+     */
+    @Param({"RANDOM", "SORTED"})
+    public KeyDistribution distribution;
+
+    /**
+     * keys in insertion order.
+     */
+    Integer[] keys;
+    /**
+     * keys to look up, about half of them stored.
+     */
+    Integer[] probes;
+    /**
+     * tree holding all keys.
+     */
+    BinarySearchTree<Integer> filled;
+
+    /**
+     * Creates the keys and the filled tree.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = distribution.keys(size, 42);
+        probes = KeyDistribution.probes(size, 43);
+        filled = insert();
+    }
+
+    /**
+     * Inserts all keys into an empty tree.
+     * @return  filled tree
+     */
+    @Benchmark
+    public BinarySearchTree<Integer> insert() {
+        BinarySearchTree<Integer> bst = new BinarySearchTree<>();
+        for(Integer key : keys)
+            bst.insert(key);
+        return bst;
+    }
+
+    /**
+     * Looks up all probes.
+     * @param bh    consumes the results
+     */
+    @Benchmark
+    public void contains(Blackhole bh) {
+        for(Integer probe : probes)
+            bh.consume(filled.contains(probe));
+    }
+}
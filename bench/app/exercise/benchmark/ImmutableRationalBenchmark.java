@@ -0,0 +1,116 @@
+package app.exercise.benchmark;
+
+import app.exercise.algebra.CompRational;
+import app.exercise.algebra.ImmutableRational;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the escape analysis of {@link ImmutableRational} temporaries. Every method evaluates x * y + z for
+ * size triples and compares the result with a threshold, so only an int leaves the loop body. The mutable variant has to
+ * copy x first, since mul() and add() would change it. The immutable variants create two temporaries per triple, which
+ * the JIT can replace by their fields unless they escape; escaping() passes them to the Blackhole as baseline. Run with
+ * -prof gc to see the allocation rate per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImmutableRationalBenchmark {
+    /**
+     * number of triples.
+     */
+    @Param({"1024"})
+    public int size;
+
+    /**
+     * mutable operands.
+     */
+    CompRational[] x, y, z;
+    /**
+     * immutable operands with the same values.
+     */
+    ImmutableRational[] ix, iy, iz;
+    /**
+     * value the results are compared with.
+     */
+    CompRational threshold;
+    /**
+     * immutable value the results are compared with.
+     */
+    ImmutableRational immutableThreshold;
+
+    /**
+     * Creates the operands.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(42);
+        x = new CompRational[size];
+        y = new CompRational[size];
+        z = new CompRational[size];
+        ix = new ImmutableRational[size];
+        iy = new ImmutableRational[size];
+        iz = new ImmutableRational[size];
+        for(int i = 0; i < size; i++) {
+            x[i] = new CompRational(rnd.nextInt(2000) - 1000, rnd.nextInt(1000) + 1);
+            y[i] = new CompRational(rnd.nextInt(2000) - 1000, rnd.nextInt(1000) + 1);
+            z[i] = new CompRational(rnd.nextInt(2000) - 1000, rnd.nextInt(1000) + 1);
+            ix[i] = ImmutableRational.of(x[i]);
+            iy[i] = ImmutableRational.of(y[i]);
+            iz[i] = ImmutableRational.of(z[i]);
+        }
+        threshold = new CompRational(1, 2);
+        immutableThreshold = ImmutableRational.of(1, 2);
+    }
+
+    /**
+     * Copies x, multiplies and adds in place.
+     * @param bh    consumes the comparisons
+     */
+    @Benchmark
+    public void mutable(Blackhole bh) {
+        for(int i = 0; i < size; i++) {
+            CompRational r = new CompRational(x[i].getNum(), x[i].getDenom());
+            r.mul(y[i]);
+            r.add(z[i]);
+            bh.consume(r.compareTo(threshold));
+        }
+    }
+
+    /**
+     * Computes with ImmutableRationals whose temporaries do not escape.
+     * @param bh    consumes the comparisons
+     */
+    @Benchmark
+    public void immutable(Blackhole bh) {
+        for(int i = 0; i < size; i++)
+            bh.consume(ix[i].mul(iy[i]).add(iz[i]).compareTo(immutableThreshold));
+    }
+
+    /**
+     * Computes with ImmutableRationals and lets the results escape.
+     * @param bh    consumes the results
+     */
+    @Benchmark
+    public void escaping(Blackhole bh) {
+        for(int i = 0; i < size; i++)
+            bh.consume(ix[i].mul(iy[i]).add(iz[i]));
+    }
+}
@@ -0,0 +1,97 @@
+package app.exercise.benchmark;
+
+import java.util.Random;
+
+/**
+ * Orders in which the benchmarks insert their keys. Every distribution is a permutation of 0 to size - 1, so the keys
+ * are distinct and the trees end up with the same elements.
+ */
+public enum KeyDistribution {
+    /**
+     * ascending keys, the worst case for an unbalanced tree.
+     */
+    SORTED,
+    /**
+     * descending keys.
+     */
+    REVERSED,
+    /**
+     * uniformly shuffled keys.
+     */
+    RANDOM,
+    /**
+     * ascending runs of {@link #RUN} consecutive keys in shuffled order, like timestamps arriving from several feeds.
+     */
+    CLUSTERED;
+
+    /**
+     * Length of the ascending runs of {@link #CLUSTERED}.
+     */
+    public static final int RUN = 64;
+
+    /**
+     * Returns the keys 0 to size - 1 in the order of this distribution.
+     * @param size  number of keys
+     * @param seed  seed of the shuffles
+     * @return  keys in insertion order
+     */
+    public Integer[] keys(int size, long seed) {
+        Integer[] keys = new Integer[size];
+        Random rnd = new Random(seed);
+        switch(this) {
+            case SORTED:
+                for(int i = 0; i < size; i++)
+                    keys[i] = i;
+                break;
+            case REVERSED:
+                for(int i = 0; i < size; i++)
+                    keys[i] = size - 1 - i;
+                break;
+            case RANDOM:
+                for(int i = 0; i < size; i++)
+                    keys[i] = i;
+                shuffle(keys, rnd);
+                break;
+            case CLUSTERED:
+                Integer[] runs = new Integer[(size + RUN - 1) / RUN];
+                for(int i = 0; i < runs.length; i++)
+                    runs[i] = i;
+                shuffle(runs, rnd);
+                int next = 0;
+                for(Integer run : runs) {
+                    for(int key = run * RUN; key < Math.min((run + 1) * RUN, size); key++)
+                        keys[next++] = key;
+                }
+                break;
+        }
+        return keys;
+    }
+
+    /**
+     * Returns size random keys between 0 and 2 * size - 1, so about half of them are stored in a tree built from keys().
+     * @param size  number of probes
+     * @param seed  seed of the random generator
+     * @return  keys to look up
+     */
+    public static Integer[] probes(int size, long seed) {
+        Integer[] probes = new Integer[size];
+        Random rnd = new Random(seed);
+        for(int i = 0; i < size; i++)
+            probes[i] = rnd.nextInt(2 * size);
+        return probes;
+    }
+
+    /**
+     * Shuffles the passed array in place (Fisher-Yates).
+     * @param a array to shuffle
+     * @param rnd   source of randomness
+     */
+    private static void shuffle(Integer[] a, Random rnd) {
+        for(int i = a.length - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            Integer tmp = a[i];
+            a[i] = a[j];
+            a[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package app.exercise.benchmark;
+
+import app.exercise.algebra.Arithmetic;
+import app.exercise.algebra.HybridRational;
+import app.exercise.algebra.Rational;
+import app.exercise.testing.RPN;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of {@link RPN#evaluate(String)} on random expressions. The operands are single digits and the operators
+ * +, * and /, so no intermediate result can become zero. The operators are chosen so that no intermediate result
+ * overflows the int arithmetic of CompRational.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RPNBenchmark {
+    /**
+     * operators the expressions consist of.
+     */
+    private static final String[] OPERATORS = {"+", "*", "/"};
+    /**
+     * number of bits the numerators and denominators of all intermediate results may have. The products of two of them
+     * and their sums fit into an int, so CompRational computes them exactly. A limit of 12 bits leaves enough room that
+     * some operand and operator always keep the next result in range.
+     */
+    private static final int LIMIT_BITS = 12;
+
+    /**
+     * number of operands per expression.
+     */
+    @Param({"16", "256"})
+    public int size;
+    /**
+     * shape of the expression: FLAT applies every operator right after the next operand, NESTED pushes all operands
+     * first and applies the operators at the end, so the stack grows to size.
+     */
+    @Param({"FLAT", "NESTED"})
+    public String shape;
+
+    /**
+     * expression to evaluate.
+     */
+    String expression;
+    /**
+     * evaluator, its stack is empty after every successful evaluation.
+     */
+    RPN rpn;
+
+    /**
+     * Creates the expression. Follows the exact value of the evaluated part with a HybridRational and picks every
+     * operand together with its operator, starting from a random pair, so that the result keeps numerator and
+     * denominator within {@link #LIMIT_BITS}. Then checks the result of RPN once.
+     * @throws IllegalStateException if no pair keeps a result in range or RPN computes a different result
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(42);
+        boolean flat = shape.equals("FLAT");
+        int[] operands = new int[size];
+        String[] applied = new String[size - 1];
+        // FLAT folds from the left, NESTED from the right: its first operator combines the last two operands
+        operands[flat ? 0 : size - 1] = rnd.nextInt(9) + 1;
+        HybridRational value = new HybridRational(operands[flat ? 0 : size - 1], 1);
+        for(int i = 0; i < size - 1; i++) {
+            int first = rnd.nextInt(9 * OPERATORS.length);
+            for(int j = 0; applied[i] == null; j++) {
+                if(j == 9 * OPERATORS.length)
+                    throw new IllegalStateException("No operand keeps the expression in range at " + value + ".");
+                int pair = (first + j) % (9 * OPERATORS.length);
+                int operand = pair / OPERATORS.length + 1;
+                String op = OPERATORS[pair % OPERATORS.length];
+                HybridRational next = flat ? apply(value, op, new HybridRational(operand, 1))
+                        : apply(new HybridRational(operand, 1), op, value);
+                if(next.getNum().abs().bitLength() <= LIMIT_BITS && next.getDenom().bitLength() <= LIMIT_BITS) {
+                    operands[flat ? i + 1 : size - 2 - i] = operand;
+                    applied[i] = op;
+                    value = next;
+                }
+            }
+        }
+
+        StringBuilder sb = new StringBuilder().append(operands[0]);
+        for(int i = 1; i < size; i++) {
+            sb.append(' ').append(operands[i]);
+            if(flat)
+                sb.append(' ').append(applied[i - 1]);
+        }
+        if(!flat) {
+            for(String op : applied)
+                sb.append(' ').append(op);
+        }
+        expression = sb.toString();
+        rpn = new RPN();
+        Rational result = (Rational) rpn.evaluate(expression);
+        if(!new HybridRational(result).equals(value))
+            throw new IllegalStateException("RPN computed " + result + " instead of " + value + ".");
+    }
+
+    /**
+     * Applies the passed operator to copies of the operands.
+     * @param a left operand
+     * @param op    operator
+     * @param b right operand
+     * @return  a op b
+     */
+    private static HybridRational apply(HybridRational a, String op, HybridRational b) {
+        HybridRational r = a.clone();
+        if(op.equals("+"))
+            r.add(b);
+        else if(op.equals("*"))
+            r.mul(b);
+        else
+            r.div(b);
+        return r;
+    }
+
+    /**
+     * Evaluates the expression.
+     * @return  result
+     */
+    @Benchmark
+    public Arithmetic evaluate() {
+        return rpn.evaluate(expression);
+    }
+}
@@ -0,0 +1,197 @@
+package app.exercise.benchmark;
+
+import app.exercise.algebra.CompRational;
+import app.exercise.algebra.HybridRational;
+import app.exercise.algebra.Rational;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the {@link Rational} and {@link HybridRational} arithmetic and of
+ * {@link CompRational#compareTo(CompRational)}. Every method combines size pairs of operands; the left operand is copied
+ * first, since the arithmetic changes it in place. The operands of both types have the same values, so the hybrid
+ * methods measure the cost of the overflow checks on the long fast path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RationalBenchmark {
+    /**
+     * number of operand pairs.
+     */
+    @Param({"1024"})
+    public int size;
+    /**
+     * magnitude of numerators and denominators: SMALL below 100, LARGE below 2^15, so that products still fit into an
+     * int and the benchmark measures the arithmetic rather than overflow handling.
+     */
+    @Param({"SMALL", "LARGE"})
+    public String magnitude;
+
+    /**
+     * left operands.
+     */
+    CompRational[] left;
+    /**
+     * right operands, never zero.
+     */
+    CompRational[] right;
+    /**
+     * left operands as HybridRationals.
+     */
+    HybridRational[] hybridLeft;
+    /**
+     * right operands as HybridRationals.
+     */
+    HybridRational[] hybridRight;
+
+    /**
+     * Creates the operands.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        int bound = magnitude.equals("SMALL") ? 100 : 1 << 15;
+        Random rnd = new Random(42);
+        left = new CompRational[size];
+        right = new CompRational[size];
+        hybridLeft = new HybridRational[size];
+        hybridRight = new HybridRational[size];
+        for(int i = 0; i < size; i++) {
+            left[i] = new CompRational(rnd.nextInt(2 * bound) - bound, rnd.nextInt(bound) + 1);
+            right[i] = new CompRational(rnd.nextInt(bound) + 1, rnd.nextInt(bound) + 1);
+            hybridLeft[i] = new HybridRational(left[i]);
+            hybridRight[i] = new HybridRational(right[i]);
+        }
+    }
+
+    /**
+     * Adds all pairs.
+     * @param bh    consumes the results
+     */
+    @Benchmark
+    public void add(Blackhole bh) {
+        for(int i = 0; i < size; i++) {
+            Rational r = new Rational(left[i]);
+            r.add(right[i]);
+            bh.consume(r);
+        }
+    }
+
+    /**
+     * Subtracts all pairs.
+     * @param bh    consumes the results
+     */
+    @Benchmark
+    public void sub(Blackhole bh) {
+        for(int i = 0; i < size; i++) {
+            Rational r = new Rational(left[i]);
+            r.sub(right[i]);
+            bh.consume(r);
+        }
+    }
+
+    /**
+     * Multiplies all pairs.
+     * @param bh    consumes the results
+     */
+    @Benchmark
+    public void mul(Blackhole bh) {
+        for(int i = 0; i < size; i++) {
+            Rational r = new Rational(left[i]);
+            r.mul(right[i]);
+            bh.consume(r);
+        }
+    }
+
+    /**
+     * Divides all pairs.
+     * @param bh    consumes the results
+     */
+    @Benchmark
+    public void div(Blackhole bh) {
+        for(int i = 0; i < size; i++) {
+            Rational r = new Rational(left[i]);
+            r.div(right[i]);
+            bh.consume(r);
+        }
+    }
+
+    /**
+     * Adds all pairs of HybridRationals.
+     * @param bh    consumes the results
+     */
+    @Benchmark
+    public void hybridAdd(Blackhole bh) {
+        for(int i = 0; i < size; i++) {
+            HybridRational r = new HybridRational(hybridLeft[i]);
+            r.add(hybridRight[i]);
+            bh.consume(r);
+        }
+    }
+
+    /**
+     * Subtracts all pairs of HybridRationals.
+     * @param bh    consumes the results
+     */
+    @Benchmark
+    public void hybridSub(Blackhole bh) {
+        for(int i = 0; i < size; i++) {
+            HybridRational r = new HybridRational(hybridLeft[i]);
+            r.sub(hybridRight[i]);
+            bh.consume(r);
+        }
+    }
+
+    /**
+     * Multiplies all pairs of HybridRationals.
+     * @param bh    consumes the results
+     */
+    @Benchmark
+    public void hybridMul(Blackhole bh) {
+        for(int i = 0; i < size; i++) {
+            HybridRational r = new HybridRational(hybridLeft[i]);
+            r.mul(hybridRight[i]);
+            bh.consume(r);
+        }
+    }
+
+    /**
+     * Divides all pairs of HybridRationals.
+     * @param bh    consumes the results
+     */
+    @Benchmark
+    public void hybridDiv(Blackhole bh) {
+        for(int i = 0; i < size; i++) {
+            HybridRational r = new HybridRational(hybridLeft[i]);
+            r.div(hybridRight[i]);
+            bh.consume(r);
+        }
+    }
+
+    /**
+     * Compares all pairs.
+     * @param bh    consumes the results
+     */
+    @Benchmark
+    public void compareTo(Blackhole bh) {
+        for(int i = 0; i < size; i++)
+            bh.consume(left[i].compareTo(right[i]));
+    }
+}
@@ -0,0 +1,138 @@
+package app.exercise.benchmark;
+
+import app.exercise.adt.DuplicatePolicy;
+import app.exercise.adt.RedBlackTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of {@link RedBlackTree}: building a tree by add(), looking up keys by contains(), iterating all elements
+ * and emptying a tree by remove(). Every benchmark method handles all size keys, so the reported time per operation is
+ * the time for the whole batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedBlackTreeBenchmark {
+    /**
+     * number of keys.
+     */
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+    /**
+     * order in which the keys are inserted.
+     */
+    @Param({"RANDOM", "SORTED", "CLUSTERED"})
+    public KeyDistribution distribution;
+
+    /**
+     * keys in insertion order.
+     */
+    Integer[] keys;
+    /**
+     * keys to look up, about half of them stored.
+     */
+    Integer[] probes;
+    /**
+     * tree holding all keys, read by contains() and iterate().
+     */
+    RedBlackTree<Integer> filled;
+
+    /**
+     * Creates the keys and the filled tree.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = distribution.keys(size, 42);
+        probes = KeyDistribution.probes(size, 43);
+        filled = build();
+    }
+
+    /**
+     * Returns a new tree holding all keys, inserted in the order of the distribution.
+     * @return  filled tree
+     */
+    RedBlackTree<Integer> build() {
+        RedBlackTree<Integer> rbt = new RedBlackTree<>(DuplicatePolicy.REJECT);
+        for(Integer key : keys)
+            rbt.add(key);
+        return rbt;
+    }
+
+    /**
+     * Inserts all keys into an empty tree.
+     * @return  filled tree
+     */
+    @Benchmark
+    public RedBlackTree<Integer> add() {
+        return build();
+    }
+
+    /**
+     * Looks up all probes.
+     * @param bh    consumes the results
+     */
+    @Benchmark
+    public void contains(Blackhole bh) {
+        for(Integer probe : probes)
+            bh.consume(filled.contains(probe));
+    }
+
+    /**
+     * Iterates all elements in ascending order.
+     * @param bh    consumes the elements
+     */
+    @Benchmark
+    public void iterate(Blackhole bh) {
+        for(Integer key : filled)
+            bh.consume(key);
+    }
+
+    /**
+     * Removes all keys in the order of the distribution from a freshly built tree.
+     * @param state provides the tree
+     * @return  emptied tree
+     */
+    @Benchmark
+    public RedBlackTree<Integer> remove(RemoveState state) {
+        for(Integer key : keys)
+            state.rbt.remove(key);
+        return state.rbt;
+    }
+
+    /**
+     * Provides a filled tree for every invocation of remove(). Building it is not measured.
+     */
+    @State(Scope.Thread)
+    public static class RemoveState {
+        /**
+         * tree to empty.
+         */
+        RedBlackTree<Integer> rbt;
+
+        /**
+         * Builds the tree before every invocation.
+         * @param benchmark benchmark state holding the keys
+         */
+        @Setup(Level.Invocation)
+        public void setUp(RedBlackTreeBenchmark benchmark) {
+            rbt = benchmark.build();
+        }
+    }
+}
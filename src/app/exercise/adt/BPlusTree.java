@@ -0,0 +1,760 @@
+package app.exercise.adt;
+
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Sorted set implemented as a B+-tree, an alternative to {@link RedBlackTree} for large sets that are mostly searched and
+ * scanned. Every Node holds up to {@code order} elements in one array, so a lookup touches O(log_order n) Nodes instead of
+ * O(log n) and binary-searches each of them within a few cache lines; all elements are stored in the leafs, which are
+ * linked in both directions, so scans run over consecutive array slots. Inner Nodes only hold separators: the separator
+ * in front of a child is less than or equal to every element of that child.
+ * <p>
+ * Offers the same surface as RedBlackTree for the operations it supports: add(), remove(), contains(), first(), last(),
+ * the navigation methods, fail-fast iterator() and rIterator(). Duplicates are rejected and null elements are not
+ * permitted.
+ * @param <E>   type of the stored elements
+ */
+public class BPlusTree<E> extends AbstractSet<E> {
+    /**
+     * Maximum number of elements per Node if none is passed to the constructor. 64 references fill four 64 byte cache
+     * lines with compressed references.
+     */
+    public static final int DEFAULT_ORDER = 64;
+
+    /**
+     * Node of the tree. Leafs and inner Nodes share the array of elements (separators for inner Nodes), which has room for
+     * one element more than allowed, so an overflowing Node can be split after the insertion.
+     */
+    abstract static class Node {
+        /**
+         * number of used slots in keys.
+         */
+        int n;
+        /**
+         * elements (in leafs) or separators (in inner Nodes), sorted ascending.
+         */
+        final Object[] keys;
+
+        /**
+         * Creates an empty Node.
+         * @param capacity  length of the key array
+         */
+        Node(int capacity) {
+            keys = new Object[capacity];
+        }
+    }
+
+    /**
+     * Leaf that holds the elements and links to its neighbours.
+     */
+    static final class Leaf extends Node {
+        /**
+         * next leaf in ascending order, null for the last one.
+         */
+        Leaf next;
+        /**
+         * previous leaf in ascending order, null for the first one.
+         */
+        Leaf prev;
+
+        /**
+         * Creates an empty leaf.
+         * @param capacity  length of the key array
+         */
+        Leaf(int capacity) {
+            super(capacity);
+        }
+    }
+
+    /**
+     * Inner Node with n separators and n + 1 children.
+     */
+    static final class Inner extends Node {
+        /**
+         * children, child i holds the elements between separator i - 1 (inclusive) and separator i (exclusive).
+         */
+        final Node[] children;
+
+        /**
+         * Creates an empty inner Node.
+         * @param capacity  length of the key array
+         */
+        Inner(int capacity) {
+            super(capacity);
+            children = new Node[capacity + 1];
+        }
+    }
+
+    /**
+     * Maximum number of elements per Node.
+     */
+    private final int order;
+    /**
+     * Minimum number of elements of every Node except the root.
+     */
+    private final int minKeys;
+    /**
+     * Comparator that orders the elements, null for their natural ordering.
+     */
+    private final Comparator<? super E> comparator;
+    /**
+     * root of the tree, an empty leaf if the tree is empty.
+     */
+    private Node root;
+    /**
+     * number of stored elements.
+     */
+    private int size;
+    /**
+     * number of structural modifications, used by the iterators to detect concurrent modifications.
+     */
+    private int modCount;
+    /**
+     * separator that belongs to the Node returned by the last split, handed from insert() to its caller.
+     */
+    private Object promoted;
+
+    /**
+     * Default constructor that initializes an empty tree of order {@link #DEFAULT_ORDER} ordered by the natural ordering
+     * of its elements.
+     */
+    public BPlusTree() {
+        this(null, DEFAULT_ORDER);
+    }
+
+    /**
+     * Constructor that initializes an empty tree of the passed order ordered by the natural ordering of its elements.
+     * @param order maximum number of elements per Node
+     * @throws IllegalArgumentException if order is less than 3
+     */
+    public BPlusTree(int order) {
+        this(null, order);
+    }
+
+    /**
+     * Constructor that initializes an empty tree of the passed order ordered by the passed Comparator.
+     * @param comparator    Comparator that orders the elements, null for their natural ordering
+     * @param order maximum number of elements per Node
+     * @throws IllegalArgumentException if order is less than 3
+     */
+    public BPlusTree(Comparator<? super E> comparator, int order) {
+        if(order < 3)
+            throw new IllegalArgumentException("Order must be at least 3: " + order);
+        this.comparator = comparator;
+        this.order = order;
+        this.minKeys = order / 2;
+        this.root = new Leaf(order + 1);
+    }
+
+    /**
+     * Returns the Comparator that orders the elements.
+     * @return  Comparator or null if the natural ordering is used
+     */
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Returns the maximum number of elements per Node.
+     * @return  order of the tree
+     */
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns the number of levels of the tree, 1 for a tree that consists of a single leaf.
+     * @return  height of the tree
+     */
+    public int getHeight() {
+        int height = 1;
+        for(Node p = root; p instanceof Inner; p = ((Inner) p).children[0])
+            height++;
+        return height;
+    }
+
+    /**
+     * Returns the number of elements.
+     * @return  number of stored elements
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the passed element is stored in the tree.
+     * @param o element to look for
+     * @return  true if o is stored in the tree
+     * @throws NullPointerException if o is null
+     * @throws ClassCastException if o cannot be compared with the elements of the tree
+     */
+    @Override
+    public boolean contains(Object o) {
+        E e = castElement(o);
+        Leaf leaf = findLeaf(e);
+        return search(leaf, e) >= 0;
+    }
+
+    /**
+     * Inserts the passed element into its leaf and splits the Nodes that overflow on the way back up.
+     * @param e element to insert
+     * @return  true if the element has been inserted, false if an equivalent element was already stored
+     * @throws NullPointerException if e is null
+     * @throws ClassCastException if e cannot be compared with the elements of the tree
+     */
+    @Override
+    public boolean add(E e) {
+        castElement(e);
+        int before = size;
+        Node right = insert(root, e);
+        if(right != null) {
+            Inner newRoot = new Inner(order + 1);
+            newRoot.keys[0] = promoted;
+            newRoot.children[0] = root;
+            newRoot.children[1] = right;
+            newRoot.n = 1;
+            root = newRoot;
+        }
+        promoted = null;
+        return size != before;
+    }
+
+    /**
+     * Removes the passed element from its leaf and refills the Nodes that underflow on the way back up by borrowing from
+     * or merging with a sibling.
+     * @param o element to remove
+     * @return  true if the element was stored and has been removed
+     * @throws NullPointerException if o is null
+     * @throws ClassCastException if o cannot be compared with the elements of the tree
+     */
+    @Override
+    public boolean remove(Object o) {
+        E e = castElement(o);
+        if(!delete(root, e))
+            return false;
+        if(root instanceof Inner && root.n == 0)
+            root = ((Inner) root).children[0];
+        return true;
+    }
+
+    /**
+     * Removes all elements.
+     */
+    @Override
+    public void clear() {
+        root = new Leaf(order + 1);
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Returns the smallest element.
+     * @return  smallest element
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public E first() {
+        if(size == 0)
+            throw new NoSuchElementException("BPlusTree is empty.");
+        return elementAt(firstLeaf(), 0);
+    }
+
+    /**
+     * Returns the greatest element.
+     * @return  greatest element
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public E last() {
+        if(size == 0)
+            throw new NoSuchElementException("BPlusTree is empty.");
+        Leaf leaf = lastLeaf();
+        return elementAt(leaf, leaf.n - 1);
+    }
+
+    /**
+     * Returns the greatest element strictly less than the passed one.
+     * @param e element to compare with
+     * @return  greatest smaller element or null if there is none
+     */
+    public E lower(E e) {
+        return below(e, false);
+    }
+
+    /**
+     * Returns the greatest element less than or equal to the passed one.
+     * @param e element to compare with
+     * @return  greatest element not greater than e or null if there is none
+     */
+    public E floor(E e) {
+        return below(e, true);
+    }
+
+    /**
+     * Returns the least element greater than or equal to the passed one.
+     * @param e element to compare with
+     * @return  least element not smaller than e or null if there is none
+     */
+    public E ceiling(E e) {
+        return above(e, true);
+    }
+
+    /**
+     * Returns the least element strictly greater than the passed one.
+     * @param e element to compare with
+     * @return  least greater element or null if there is none
+     */
+    public E higher(E e) {
+        return above(e, false);
+    }
+
+    /**
+     * Returns an ascending iterator that walks the linked leafs. The iterator is fail-fast.
+     * @return  ascending iterator
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new LeafIterator(firstLeaf(), 0, false);
+    }
+
+    /**
+     * Returns a descending iterator that walks the linked leafs backwards. The iterator is fail-fast.
+     * @return  descending iterator
+     */
+    public Iterator<E> rIterator() {
+        Leaf leaf = lastLeaf();
+        return new LeafIterator(leaf, leaf.n - 1, true);
+    }
+
+    /**
+     * Inserts e into the subtree rooted at p. If p overflows, it is split and the new right sibling is returned, its
+     * separator is left in {@link #promoted}.
+     * @param p root of the subtree
+     * @param e element to insert
+     * @return  new right sibling of p or null if p did not split
+     */
+    private Node insert(Node p, E e) {
+        if(p instanceof Leaf) {
+            int i = search(p, e);
+            if(i >= 0)
+                return null;
+            insertAt(p, -i - 1, e);
+            size++;
+            modCount++;
+            return p.n > order ? splitLeaf((Leaf) p) : null;
+        }
+        Inner inner = (Inner) p;
+        int i = childIndex(inner, e);
+        Node right = insert(inner.children[i], e);
+        if(right == null)
+            return null;
+        System.arraycopy(inner.children, i + 1, inner.children, i + 2, inner.n - i);
+        inner.children[i + 1] = right;
+        insertAt(inner, i, promoted);
+        return inner.n > order ? splitInner(inner) : null;
+    }
+
+    /**
+     * Moves the upper half of an overflowing leaf into a new leaf behind it.
+     * @param leaf  leaf to split
+     * @return  new leaf, its first element is the promoted separator
+     */
+    private Leaf splitLeaf(Leaf leaf) {
+        Leaf right = new Leaf(order + 1);
+        int keep = leaf.n / 2;
+        right.n = leaf.n - keep;
+        System.arraycopy(leaf.keys, keep, right.keys, 0, right.n);
+        clearSlots(leaf, keep);
+        right.next = leaf.next;
+        right.prev = leaf;
+        if(leaf.next != null)
+            leaf.next.prev = right;
+        leaf.next = right;
+        promoted = right.keys[0];
+        return right;
+    }
+
+    /**
+     * Moves the upper half of an overflowing inner Node into a new inner Node and promotes the middle separator.
+     * @param inner inner Node to split
+     * @return  new inner Node
+     */
+    private Inner splitInner(Inner inner) {
+        Inner right = new Inner(order + 1);
+        int mid = inner.n / 2;
+        promoted = inner.keys[mid];
+        right.n = inner.n - mid - 1;
+        System.arraycopy(inner.keys, mid + 1, right.keys, 0, right.n);
+        System.arraycopy(inner.children, mid + 1, right.children, 0, right.n + 1);
+        for(int i = mid + 1; i <= inner.n; i++)
+            inner.children[i] = null;
+        clearSlots(inner, mid);
+        return right;
+    }
+
+    /**
+     * Deletes e from the subtree rooted at p and repairs an underflowing child on the way back up.
+     * @param p root of the subtree
+     * @param e element to delete
+     * @return  true if e was stored
+     */
+    private boolean delete(Node p, E e) {
+        if(p instanceof Leaf) {
+            int i = search(p, e);
+            if(i < 0)
+                return false;
+            removeAt(p, i);
+            size--;
+            modCount++;
+            return true;
+        }
+        Inner inner = (Inner) p;
+        int i = childIndex(inner, e);
+        if(!delete(inner.children[i], e))
+            return false;
+        if(inner.children[i].n < minKeys)
+            refill(inner, i);
+        return true;
+    }
+
+    /**
+     * Refills the underflowing child i of the passed inner Node by borrowing an element from a sibling that can spare one
+     * or, if neither can, by merging it with a sibling.
+     * @param parent    father of the child
+     * @param i index of the child
+     */
+    private void refill(Inner parent, int i) {
+        Node child = parent.children[i];
+        Node left = i > 0 ? parent.children[i - 1] : null;
+        Node right = i < parent.n ? parent.children[i + 1] : null;
+        if(left != null && left.n > minKeys) {
+            if(child instanceof Leaf) {
+                insertAt(child, 0, left.keys[left.n - 1]);
+                removeAt(left, left.n - 1);
+                parent.keys[i - 1] = child.keys[0];
+            } else {
+                Inner c = (Inner) child;
+                Inner l = (Inner) left;
+                System.arraycopy(c.children, 0, c.children, 1, c.n + 1);
+                c.children[0] = l.children[l.n];
+                l.children[l.n] = null;
+                insertAt(c, 0, parent.keys[i - 1]);
+                parent.keys[i - 1] = l.keys[l.n - 1];
+                removeAt(l, l.n - 1);
+            }
+        } else if(right != null && right.n > minKeys) {
+            if(child instanceof Leaf) {
+                insertAt(child, child.n, right.keys[0]);
+                removeAt(right, 0);
+                parent.keys[i] = right.keys[0];
+            } else {
+                Inner c = (Inner) child;
+                Inner r = (Inner) right;
+                c.children[c.n + 1] = r.children[0];
+                System.arraycopy(r.children, 1, r.children, 0, r.n);
+                r.children[r.n] = null;
+                insertAt(c, c.n, parent.keys[i]);
+                parent.keys[i] = r.keys[0];
+                removeAt(r, 0);
+            }
+        } else {
+            merge(parent, left != null ? i - 1 : i);
+        }
+    }
+
+    /**
+     * Merges child j + 1 of the passed inner Node into child j and removes the separator between them.
+     * @param parent    father of both children
+     * @param j index of the left child
+     */
+    private void merge(Inner parent, int j) {
+        Node left = parent.children[j];
+        Node right = parent.children[j + 1];
+        if(left instanceof Leaf) {
+            Leaf l = (Leaf) left;
+            Leaf r = (Leaf) right;
+            System.arraycopy(r.keys, 0, l.keys, l.n, r.n);
+            l.n += r.n;
+            l.next = r.next;
+            if(r.next != null)
+                r.next.prev = l;
+        } else {
+            Inner l = (Inner) left;
+            Inner r = (Inner) right;
+            l.keys[l.n] = parent.keys[j];
+            System.arraycopy(r.keys, 0, l.keys, l.n + 1, r.n);
+            System.arraycopy(r.children, 0, l.children, l.n + 1, r.n + 1);
+            l.n += r.n + 1;
+        }
+        removeAt(parent, j);
+        System.arraycopy(parent.children, j + 2, parent.children, j + 1, parent.n - j);
+        parent.children[parent.n + 1] = null;
+    }
+
+    /**
+     * Inserts the passed key at position i of the passed Node.
+     * @param p Node to insert into
+     * @param i position
+     * @param key   key to insert
+     */
+    private static void insertAt(Node p, int i, Object key) {
+        System.arraycopy(p.keys, i, p.keys, i + 1, p.n - i);
+        p.keys[i] = key;
+        p.n++;
+    }
+
+    /**
+     * Removes the key at position i of the passed Node.
+     * @param p Node to remove from
+     * @param i position
+     */
+    private static void removeAt(Node p, int i) {
+        System.arraycopy(p.keys, i + 1, p.keys, i, p.n - i - 1);
+        p.keys[--p.n] = null;
+    }
+
+    /**
+     * Shrinks the passed Node to the passed number of keys and clears the slots behind them.
+     * @param p Node to shrink
+     * @param n new number of keys
+     */
+    private static void clearSlots(Node p, int n) {
+        for(int i = n; i < p.n; i++)
+            p.keys[i] = null;
+        p.n = n;
+    }
+
+    /**
+     * Binary-searches the keys of the passed Node.
+     * @param p Node to search
+     * @param e element to look for
+     * @return  index of e, or -(insertion point) - 1 if e is not stored
+     */
+    private int search(Node p, E e) {
+        int lo = 0;
+        int hi = p.n - 1;
+        while(lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compare(elementAt(p, mid), e);
+            if(cmp < 0)
+                lo = mid + 1;
+            else if(cmp > 0)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -(lo + 1);
+    }
+
+    /**
+     * Returns the index of the child of the passed inner Node whose range contains e, the number of separators less than
+     * or equal to e.
+     * @param p inner Node
+     * @param e element to route
+     * @return  index of the child
+     */
+    private int childIndex(Inner p, E e) {
+        int i = search(p, e);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    /**
+     * Returns the leaf whose range contains the passed element.
+     * @param e element to route
+     * @return  leaf that holds e if it is stored
+     */
+    private Leaf findLeaf(E e) {
+        Node p = root;
+        while(p instanceof Inner)
+            p = ((Inner) p).children[childIndex((Inner) p, e)];
+        return (Leaf) p;
+    }
+
+    /**
+     * Returns the leftmost leaf.
+     * @return  first leaf
+     */
+    private Leaf firstLeaf() {
+        Node p = root;
+        while(p instanceof Inner)
+            p = ((Inner) p).children[0];
+        return (Leaf) p;
+    }
+
+    /**
+     * Returns the rightmost leaf.
+     * @return  last leaf
+     */
+    private Leaf lastLeaf() {
+        Node p = root;
+        while(p instanceof Inner)
+            p = ((Inner) p).children[p.n];
+        return (Leaf) p;
+    }
+
+    /**
+     * Returns the least element greater than (or equal to, if inclusive) the passed one.
+     * @param e element to compare with
+     * @param inclusive whether e itself may be returned
+     * @return  element or null if there is none
+     */
+    private E above(E e, boolean inclusive) {
+        castElement(e);
+        Leaf leaf = findLeaf(e);
+        int i = search(leaf, e);
+        i = i >= 0 ? (inclusive ? i : i + 1) : -i - 1;
+        if(i < leaf.n)
+            return elementAt(leaf, i);
+        // the separators route e to the leaf in front of its ceiling, which is then the first element of the next leaf
+        return leaf.next == null ? null : elementAt(leaf.next, 0);
+    }
+
+    /**
+     * Returns the greatest element less than (or equal to, if inclusive) the passed one.
+     * @param e element to compare with
+     * @param inclusive whether e itself may be returned
+     * @return  element or null if there is none
+     */
+    private E below(E e, boolean inclusive) {
+        castElement(e);
+        Leaf leaf = findLeaf(e);
+        int i = search(leaf, e);
+        i = i >= 0 ? (inclusive ? i : i - 1) : -i - 2;
+        if(i >= 0)
+            return elementAt(leaf, i);
+        return leaf.prev == null || leaf.prev.n == 0 ? null : elementAt(leaf.prev, leaf.prev.n - 1);
+    }
+
+    /**
+     * Returns the element at position i of the passed Node.
+     * @param p Node to read from
+     * @param i position
+     * @return  element
+     */
+    @SuppressWarnings("unchecked")
+    private E elementAt(Node p, int i) {
+        return (E) p.keys[i];
+    }
+
+    /**
+     * Compares two elements with the Comparator of the tree or their natural ordering.
+     * @param a first element
+     * @param b second element
+     * @return  negative, zero or positive as a is less than, equal to or greater than b
+     * @throws ClassCastException if the elements cannot be compared
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(E a, E b) {
+        return comparator == null ? ((Comparable<? super E>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    /**
+     * Casts the passed Object to the element type of the tree.
+     * @param o element to cast
+     * @return  passed element as type E
+     * @throws NullPointerException if o is null
+     */
+    @SuppressWarnings("unchecked")
+    private E castElement(Object o) {
+        if(o == null)
+            throw new NullPointerException("BPlusTree does not permit null elements.");
+        return (E) o;
+    }
+
+    /**
+     * Iterator that walks the slots of a leaf and follows the leaf links. remove() deletes through the tree, which may
+     * move elements between leafs, so the iterator looks up the position behind the removed element afterwards.
+     */
+    private class LeafIterator implements Iterator<E> {
+        /**
+         * leaf of the element returned by the next call to next(), null if the iteration is finished.
+         */
+        Leaf leaf;
+        /**
+         * slot of that element.
+         */
+        int index;
+        /**
+         * Whether the iterator walks in descending order.
+         */
+        final boolean descending;
+        /**
+         * element returned by the last call to next(), null if remove() must not be called.
+         */
+        E lastReturned;
+        /**
+         * Value of modCount the iterator expects.
+         */
+        int expectedModCount = modCount;
+
+        /**
+         * Creates an iterator starting at the passed slot.
+         * @param leaf  leaf to start in
+         * @param index slot to start at
+         * @param descending    whether to walk in descending order
+         */
+        LeafIterator(Leaf leaf, int index, boolean descending) {
+            this.descending = descending;
+            position(leaf, index);
+        }
+
+        /**
+         * Moves the iterator to the passed slot, or to the neighbouring leaf if the slot lies outside of the leaf.
+         * @param leaf  leaf to move to
+         * @param index slot to move to
+         */
+        private void position(Leaf leaf, int index) {
+            while(leaf != null && (index < 0 || index >= leaf.n)) {
+                leaf = descending ? leaf.prev : leaf.next;
+                index = leaf == null || !descending ? 0 : leaf.n - 1;
+            }
+            this.leaf = leaf;
+            this.index = index;
+        }
+
+        /**
+         * Returns whether next() will return an element.
+         * @return true if there are more elements
+         */
+        @Override
+        public boolean hasNext() {
+            return leaf != null;
+        }
+
+        /**
+         * Returns the next element and advances to the following slot.
+         * @return next element
+         */
+        @Override
+        public E next() {
+            if(leaf == null)
+                throw new NoSuchElementException("No more elements in BPlusTree.");
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException("BPlusTree was modified during iteration.");
+            lastReturned = elementAt(leaf, index);
+            position(leaf, descending ? index - 1 : index + 1);
+            return lastReturned;
+        }
+
+        /**
+         * Deletes the last element returned by next() and looks up the position of the following element again.
+         */
+        @Override
+        public void remove() {
+            if(lastReturned == null)
+                throw new IllegalStateException("Next method hasn't been called or remove has already been called after last next call.");
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException("BPlusTree was modified during iteration.");
+            BPlusTree.this.remove(lastReturned);
+            expectedModCount = modCount;
+            Leaf target = findLeaf(lastReturned);
+            int i = -search(target, lastReturned) - 1;
+            if(leaf != null)
+                position(target, descending ? i - 1 : i);
+            lastReturned = null;
+        }
+    }
+}
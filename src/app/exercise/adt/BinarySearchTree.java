@@ -1,6 +1,6 @@
 package app.exercise.adt;
 
-import java.util.Collections;
+import java.util.ArrayDeque;
 
 /**
  * Implementation of BinarySearchTree for Objects that extend Comparable and whose compareTo() method is equal consistent.
@@ -44,56 +44,72 @@ public class BinarySearchTree <T extends Comparable<T>> {
         }
 
         /**
-         * inserts <i>T data</i> at a correct position in the BST by using the <i>compareTo(T)</i> method.
+         * inserts <i>T data</i> at a correct position in the BST by using the <i>compareTo(T)</i> method. Descends iteratively
+         * with one comparison per level, so degenerated trees cannot overflow the stack.
          * @param data data to insert.
          */
         void insert(T data) {
-            if(this.data == null)
+            if(this.data == null) {
                 this.data = data;
-            else if (this.data.compareTo(data) == 0)
-                throw new IllegalArgumentException("Cannot store duplicate elements.");
-            else if (data.compareTo(this.data) < 0)
-                if(left == null)
-                    left = new Node(data);
-                else
-                    left.insert(data);
-            else
-                if(right == null)
-                    right = new Node(data);
-                else
-                	right.insert(data);
+                return;
+            }
+            Node curr = this;
+            while (true) {
+                int cmp = data.compareTo(curr.data);
+                if (cmp == 0)
+                    throw new IllegalArgumentException("Cannot store duplicate elements.");
+                else if (cmp < 0) {
+                    if(curr.left == null) {
+                        curr.left = new Node(data);
+                        return;
+                    }
+                    curr = curr.left;
+                } else {
+                    if(curr.right == null) {
+                        curr.right = new Node(data);
+                        return;
+                    }
+                    curr = curr.right;
+                }
+            }
         }
 
         /**
-         * Checks subtruee from current {@link Node} if it contains Data equal to passed Data.
+         * Checks subtruee from current {@link Node} if it contains Data equal to passed Data. Descends iteratively with one
+         * comparison per level.
          * @param data Element to search for in Tree
          * @return true if subtree contains data, false otherwise
          */
         boolean contains(T data) {
-            if(this.data.equals(data))
-                return true;
-            else if(data.compareTo(this.data) < 0 && left != null)
-                return left.contains(data);
-            else if(data.compareTo(this.data) > 0 && right != null)
-                return right.contains(data);
-            else
-                return false;
+            Node curr = this;
+            while (curr != null && curr.data != null) {
+                int cmp = data.compareTo(curr.data);
+                if(cmp == 0)
+                    return true;
+                curr = cmp < 0 ? curr.left : curr.right;
+            }
+            return false;
         }
 
         /**
-         * Recursive method that constructs a String representation of the current {@link BinarySearchTree} in ascending
-         * order.
+         * Constructs a String representation of the subtree from current {@link Node} in ascending order. Traverses
+         * the subtree iteratively with an explicit stack, so degenerated trees cannot overflow the call stack.
          * @return String representation of elements in {@link BinarySearchTree} in ascending order seperated by newlines.
          */
         String getString() {
-            if(left == null && right == null)
-                return data.toString() + DELIM;
-            else if(left == null && right != null)
-                return data.toString() + DELIM + right.getString();
-            else if(left != null && right == null)
-                return left.getString() + data.toString() + DELIM;
-            else
-                return left.getString() + data.toString() + DELIM + right.getString();
+            StringBuilder stringBuilder = new StringBuilder();
+            ArrayDeque<Node> stack = new ArrayDeque<>();
+            Node curr = this;
+            while (curr != null || !stack.isEmpty()) {
+                while (curr != null) {
+                    stack.push(curr);
+                    curr = curr.left;
+                }
+                curr = stack.pop();
+                stringBuilder.append(curr.data).append(DELIM);
+                curr = curr.right;
+            }
+            return stringBuilder.toString();
         }
 
     }
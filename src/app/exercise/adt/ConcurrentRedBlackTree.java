@@ -0,0 +1,523 @@
+package app.exercise.adt;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe sorted set backed by a {@link RedBlackTree} and guarded by a StampedLock. Lookups, navigation, first(),
+ * last(), size() and iteration descend the tree under an optimistic read stamp without blocking and validate the stamp
+ * afterwards; if a writer interfered, the read is retried and finally repeated under the read lock. Reads therefore
+ * scale with the number of cores as long as writes are rare. All modifications, including the rotations and repairs
+ * they cause, run under the write lock.
+ * <p>
+ * Iterators are weakly consistent: they fetch the elements in chunks, each chunk is consistent in itself and continues
+ * behind the last returned element, so they never throw a ConcurrentModificationException. Elements added or removed
+ * during the iteration may or may not be returned. Null elements are not permitted.
+ * @param <E>   type of the stored elements
+ */
+public class ConcurrentRedBlackTree<E> extends AbstractSet<E> {
+    /**
+     * Upper bound for the number of Nodes a single descent or successor step can visit in a consistent tree. Reaching it
+     * means the read interfered with a writer.
+     */
+    private static final int MAX_STEPS = 128;
+    /**
+     * Number of optimistic attempts before a read falls back to the read lock.
+     */
+    private static final int OPTIMISTIC_ATTEMPTS = 2;
+    /**
+     * Number of elements an iterator fetches per read.
+     */
+    private static final int CHUNK = 64;
+
+    /**
+     * the guarded tree.
+     */
+    private final RedBlackTree<E> tree;
+    /**
+     * lock that guards the tree.
+     */
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Default constructor that initializes an empty set ordered by the natural ordering of its elements.
+     */
+    public ConcurrentRedBlackTree() {
+        this(null);
+    }
+
+    /**
+     * Constructor that initializes an empty set ordered by the passed Comparator.
+     * @param comparator    Comparator that orders the elements, null for their natural ordering
+     */
+    public ConcurrentRedBlackTree(Comparator<? super E> comparator) {
+        this.tree = new RedBlackTree<>(comparator, false, DuplicatePolicy.REJECT);
+    }
+
+    /**
+     * Returns the Comparator that orders the elements.
+     * @return  Comparator or null if the natural ordering is used
+     */
+    public Comparator<? super E> comparator() {
+        return tree.comparator();
+    }
+
+    /**
+     * Returns the number of elements.
+     * @return  number of stored elements
+     */
+    @Override
+    public int size() {
+        return read(tree::size);
+    }
+
+    /**
+     * Returns whether the passed element is stored in the set.
+     * @param o element to look for
+     * @return  true if o is stored in the set
+     * @throws NullPointerException if o is null
+     * @throws ClassCastException if o cannot be compared with the elements of the set
+     */
+    @Override
+    public boolean contains(Object o) {
+        E e = castElement(o);
+        return read(() -> find(e));
+    }
+
+    /**
+     * Returns the smallest element.
+     * @return  smallest element
+     * @throws NoSuchElementException if the set is empty
+     */
+    public E first() {
+        E e = read(() -> extreme(false));
+        if(e == null)
+            throw new NoSuchElementException("ConcurrentRedBlackTree is empty.");
+        return e;
+    }
+
+    /**
+     * Returns the greatest element.
+     * @return  greatest element
+     * @throws NoSuchElementException if the set is empty
+     */
+    public E last() {
+        E e = read(() -> extreme(true));
+        if(e == null)
+            throw new NoSuchElementException("ConcurrentRedBlackTree is empty.");
+        return e;
+    }
+
+    /**
+     * Returns the greatest element strictly less than the passed one.
+     * @param e element to compare with
+     * @return  greatest smaller element or null if there is none
+     */
+    public E lower(E e) {
+        castElement(e);
+        return read(() -> navigate(e, false, false));
+    }
+
+    /**
+     * Returns the greatest element less than or equal to the passed one.
+     * @param e element to compare with
+     * @return  greatest element not greater than e or null if there is none
+     */
+    public E floor(E e) {
+        castElement(e);
+        return read(() -> navigate(e, false, true));
+    }
+
+    /**
+     * Returns the least element greater than or equal to the passed one.
+     * @param e element to compare with
+     * @return  least element not smaller than e or null if there is none
+     */
+    public E ceiling(E e) {
+        castElement(e);
+        return read(() -> navigate(e, true, true));
+    }
+
+    /**
+     * Returns the least element strictly greater than the passed one.
+     * @param e element to compare with
+     * @return  least greater element or null if there is none
+     */
+    public E higher(E e) {
+        castElement(e);
+        return read(() -> navigate(e, true, false));
+    }
+
+    /**
+     * Inserts the passed element under the write lock.
+     * @param e element to insert
+     * @return  true if the element has been inserted, false if it was already stored
+     * @throws NullPointerException if e is null
+     */
+    @Override
+    public boolean add(E e) {
+        long stamp = lock.writeLock();
+        try {
+            return tree.add(e);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the passed element under the write lock.
+     * @param o element to remove
+     * @return  true if the element was stored and has been removed
+     * @throws NullPointerException if o is null
+     */
+    @Override
+    public boolean remove(Object o) {
+        long stamp = lock.writeLock();
+        try {
+            return tree.remove(o);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Inserts all elements of the passed Collection with a single acquisition of the write lock.
+     * @param c elements to insert
+     * @return  true if the set changed
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        long stamp = lock.writeLock();
+        try {
+            return tree.addAll(c);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes all elements of the passed Collection with a single acquisition of the write lock.
+     * @param c elements to remove
+     * @return  true if the set changed
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        long stamp = lock.writeLock();
+        try {
+            return tree.removeAll(c);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes all elements.
+     */
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            tree.clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes and returns the smallest element.
+     * @return  smallest element or null if the set is empty
+     */
+    public E pollFirst() {
+        long stamp = lock.writeLock();
+        try {
+            return tree.pollFirst();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes and returns the greatest element.
+     * @return  greatest element or null if the set is empty
+     */
+    public E pollLast() {
+        long stamp = lock.writeLock();
+        try {
+            return tree.pollLast();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the elements in ascending order.
+     * @return  ascending iterator
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new ChunkIterator(false);
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the elements in descending order.
+     * @return  descending iterator
+     */
+    public Iterator<E> descendingIterator() {
+        return new ChunkIterator(true);
+    }
+
+    /**
+     * Runs the passed read operation under an optimistic read stamp and returns its result if the stamp is still valid
+     * afterwards. Exceptions thrown while the stamp became invalid are caused by the interfering writer and ignored. After
+     * {@link #OPTIMISTIC_ATTEMPTS} failed attempts the operation runs under the read lock.
+     * @param op    read operation, must not modify the tree
+     * @param <R>   type of the result
+     * @return  result of the operation
+     */
+    private <R> R read(Supplier<R> op) {
+        for(int i = 0; i < OPTIMISTIC_ATTEMPTS; i++) {
+            long stamp = lock.tryOptimisticRead();
+            if(stamp == 0)
+                continue;
+            try {
+                R result = op.get();
+                if(lock.validate(stamp))
+                    return result;
+            } catch (RuntimeException e) {
+                if(lock.validate(stamp))
+                    throw e;
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return op.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Casts the passed Object to the element type.
+     * @param o Object to cast
+     * @return  o as element
+     * @throws NullPointerException if o is null
+     */
+    @SuppressWarnings("unchecked")
+    private E castElement(Object o) {
+        if(o == null)
+            throw new NullPointerException("ConcurrentRedBlackTree does not permit null elements.");
+        return (E) o;
+    }
+
+    /**
+     * Throws a ConcurrentModificationException if a descent took more steps than a consistent tree allows. Only
+     * reachable under an optimistic stamp, where the exception is discarded.
+     * @param steps number of steps taken so far
+     */
+    private static void checkSteps(int steps) {
+        if(steps > MAX_STEPS)
+            throw new ConcurrentModificationException("Tree changed during optimistic read.");
+    }
+
+    /**
+     * Returns whether the passed element is stored in the tree. The nil leaf and the anchor are recognized by holding no data.
+     * @param e element to look for
+     * @return  true if e is stored
+     */
+    private boolean find(E e) {
+        RedBlackTree.Node<E> curr = tree.getRoot();
+        for(int steps = 0; curr.data != null; checkSteps(++steps)) {
+            int cmp = tree.compare(e, curr.data);
+            if(cmp == 0)
+                return true;
+            curr = cmp < 0 ? curr.left : curr.right;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the smallest or greatest element.
+     * @param max   whether to return the greatest element
+     * @return  smallest or greatest element, null if the tree is empty
+     */
+    private E extreme(boolean max) {
+        RedBlackTree.Node<E> node = extremeNode(max);
+        return node == null ? null : node.data;
+    }
+
+    /**
+     * Returns the Node holding the smallest or greatest element.
+     * @param max   whether to return the Node of the greatest element
+     * @return  Node or null if the tree is empty
+     */
+    private RedBlackTree.Node<E> extremeNode(boolean max) {
+        RedBlackTree.Node<E> curr = tree.getRoot();
+        if(curr.data == null)
+            return null;
+        for(int steps = 0; (max ? curr.right : curr.left).data != null; checkSteps(++steps))
+            curr = max ? curr.right : curr.left;
+        return curr;
+    }
+
+    /**
+     * Returns the data of {@link #navigateNode(Object, boolean, boolean)}.
+     * @param e element to compare with
+     * @param greater   whether to look for greater elements
+     * @param inclusive whether e itself may be returned
+     * @return  found element or null
+     */
+    private E navigate(E e, boolean greater, boolean inclusive) {
+        RedBlackTree.Node<E> node = navigateNode(e, greater, inclusive);
+        return node == null ? null : node.data;
+    }
+
+    /**
+     * Returns the Node with the least element greater than e or the greatest element less than e.
+     * @param e element to compare with
+     * @param greater   whether to look for greater elements
+     * @param inclusive whether a Node holding e itself may be returned
+     * @return  found Node or null if there is none
+     */
+    private RedBlackTree.Node<E> navigateNode(E e, boolean greater, boolean inclusive) {
+        RedBlackTree.Node<E> curr = tree.getRoot();
+        RedBlackTree.Node<E> best = null;
+        for(int steps = 0; curr.data != null; checkSteps(++steps)) {
+            int cmp = tree.compare(e, curr.data);
+            if(cmp == 0 && inclusive)
+                return curr;
+            if(greater ? cmp < 0 : cmp > 0) {
+                best = curr;
+                curr = greater ? curr.left : curr.right;
+            } else {
+                curr = greater ? curr.right : curr.left;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the in-order successor (or predecessor) of the passed Node by following child and father links.
+     * @param p Node to start from
+     * @param descending    whether to return the predecessor
+     * @return  next Node or null if p is the last one
+     */
+    private RedBlackTree.Node<E> step(RedBlackTree.Node<E> p, boolean descending) {
+        RedBlackTree.Node<E> c = descending ? p.left : p.right;
+        int steps = 0;
+        if(c.data != null) {
+            for(; (descending ? c.right : c.left).data != null; checkSteps(++steps))
+                c = descending ? c.right : c.left;
+            return c;
+        }
+        RedBlackTree.Node<E> f = p.father;
+        for(; f.data != null && p == (descending ? f.left : f.right); checkSteps(++steps)) {
+            p = f;
+            f = f.father;
+        }
+        return f.data == null ? null : f;
+    }
+
+    /**
+     * Collects up to {@link #CHUNK} elements that follow the passed one in iteration order.
+     * @param after element to continue behind, null to start at the beginning
+     * @param descending    whether to iterate in descending order
+     * @return  the collected elements, empty if there are none
+     */
+    private Object[] collect(E after, boolean descending) {
+        Object[] chunk = new Object[CHUNK];
+        int n = 0;
+        RedBlackTree.Node<E> node = after == null ? extremeNode(descending) : navigateNode(after, !descending, false);
+        while(node != null && n < CHUNK) {
+            chunk[n++] = node.data;
+            node = step(node, descending);
+        }
+        return n == CHUNK ? chunk : Arrays.copyOf(chunk, n);
+    }
+
+    /**
+     * Weakly consistent iterator that reads the elements in chunks of {@link #CHUNK} under optimistic read stamps.
+     */
+    private class ChunkIterator implements Iterator<E> {
+        /**
+         * Whether the iterator walks in descending order.
+         */
+        final boolean descending;
+        /**
+         * elements of the current chunk.
+         */
+        Object[] chunk;
+        /**
+         * index of the next element of the chunk.
+         */
+        int pos = 0;
+        /**
+         * Element returned by the last call to next(). null if remove() must not be called.
+         */
+        E lastReturned;
+
+        /**
+         * Creates a new iterator and fetches the first chunk.
+         * @param descending    whether to walk in descending order
+         */
+        ChunkIterator(boolean descending) {
+            this.descending = descending;
+            this.chunk = read(() -> collect(null, descending));
+        }
+
+        /**
+         * Returns whether next() will return a new element. Fetches the next chunk if the current one is used up.
+         * @return true if there are more elements
+         */
+        @Override
+        public boolean hasNext() {
+            if(pos < chunk.length)
+                return true;
+            if(chunk.length < CHUNK)
+                return false;
+            E after = element(chunk.length - 1);
+            chunk = read(() -> collect(after, descending));
+            pos = 0;
+            return chunk.length > 0;
+        }
+
+        /**
+         * Returns the next element.
+         * @return next element
+         */
+        @Override
+        public E next() {
+            if(!hasNext())
+                throw new NoSuchElementException("No more elements in ConcurrentRedBlackTree.");
+            lastReturned = element(pos++);
+            return lastReturned;
+        }
+
+        /**
+         * Removes the element last returned by next() from the set. Can only be called ONCE after a call to next().
+         */
+        @Override
+        public void remove() {
+            if(lastReturned == null)
+                throw new IllegalStateException("Next method hasn't been called or remove has already been called after last next call.");
+            ConcurrentRedBlackTree.this.remove(lastReturned);
+            lastReturned = null;
+        }
+
+        /**
+         * Returns the element at the passed index of the chunk.
+         * @param i index inside the chunk
+         * @return  element
+         */
+        @SuppressWarnings("unchecked")
+        private E element(int i) {
+            return (E) chunk[i];
+        }
+    }
+}
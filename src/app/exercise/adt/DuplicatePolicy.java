@@ -0,0 +1,29 @@
+package app.exercise.adt;
+
+/**
+ * Policies that determine how a {@link RedBlackTree} reacts if an element is added that is equivalent (by the ordering of the tree) to
+ * an element already stored in the tree. Every policy needs only one descent per insertion.
+ */
+public enum DuplicatePolicy {
+    /**
+     * add() throws a {@link DuplicateElementException}. This is the default.
+     */
+    THROW,
+    /**
+     * add() leaves the tree unchanged and returns false, as specified by Collection.add().
+     */
+    REJECT,
+    /**
+     * add() replaces the stored element with the passed one and returns true if the passed one is a different instance,
+     * since the tree then holds a different object although the number of elements does not change.
+     */
+    REPLACE,
+    /**
+     * add() increments the multiplicity of the stored element and returns false, since the set of elements does not
+     * change. {@link RedBlackTree#addOccurrence(Object)} does the same and returns the new multiplicity. remove(Object)
+     * decrements the multiplicity and only deletes the element once it reaches 0. size(), iteration and equals() still
+     * count every element once, removal through an iterator, pollFirst() and pollLast() delete the element with all of
+     * its occurrences.
+     */
+    COUNT
+}
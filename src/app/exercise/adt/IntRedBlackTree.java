@@ -0,0 +1,709 @@
+package app.exercise.adt;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Red-black-tree for primitive int keys. Offers the same operations as {@link RedBlackTree} with order statistics, but
+ * stores its Nodes in parallel primitive arrays and links them by array index instead of references, so no key is boxed
+ * and no Node object is allocated. Index 0 is the nil leaf, which is always black and has a subtree size of 0.
+ * Deleted slots are kept in a free list and reused by later insertions.
+ */
+public class IntRedBlackTree {
+    /**
+     * index of the nil leaf, which is also used as father of the root.
+     */
+    private static final int NIL = 0;
+    /**
+     *  boolean constant BLACK that stores the boolean value that represents the colour black (false)
+     */
+    private static final boolean BLACK = false;
+    /**
+     *  boolean constant RED that stores the boolean value that represents the colour red (true)
+     */
+    private static final boolean RED = true;
+
+    /**
+     * keys of the Nodes.
+     */
+    private int[] key;
+    /**
+     * index of the left child of every Node.
+     */
+    private int[] left;
+    /**
+     * index of the right child of every Node. For free slots it links to the next free slot.
+     */
+    private int[] right;
+    /**
+     * index of the father of every Node.
+     */
+    private int[] father;
+    /**
+     * number of Nodes in the subtree of every Node, including the Node itself.
+     */
+    private int[] count;
+    /**
+     * colour of every Node.
+     */
+    private boolean[] colour;
+
+    /**
+     * index of the root Node, NIL if the tree is empty.
+     */
+    private int root = NIL;
+    /**
+     * first index that has never been used.
+     */
+    private int next = 1;
+    /**
+     * head of the list of freed slots, NIL if there are none.
+     */
+    private int free = NIL;
+    /**
+     * Keeps track of the current size of the tree.
+     */
+    private int size = 0;
+    /**
+     * Number of structural modifications of the tree. Used by iterators to detect concurrent modifications.
+     */
+    private int modCount = 0;
+
+    /**
+     * Default constructor that initializes an empty tree with room for 16 keys.
+     */
+    public IntRedBlackTree() {
+        this(16);
+    }
+
+    /**
+     * Constructor that initializes an empty tree with room for the passed number of keys before the arrays have to grow.
+     * @param initialCapacity   number of keys the tree can hold without growing
+     * @throws IllegalArgumentException if initialCapacity is negative
+     */
+    public IntRedBlackTree(int initialCapacity) {
+        if(initialCapacity < 0)
+            throw new IllegalArgumentException("Negative capacity: " + initialCapacity);
+        int capacity = initialCapacity + 1;
+        key = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        father = new int[capacity];
+        count = new int[capacity];
+        colour = new boolean[capacity];
+    }
+
+    /**
+     * Returns the current number of keys stored inside the tree.
+     * @return  number of stored keys.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the tree stores no keys.
+     * @return  true if the tree is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all keys from the tree. The arrays keep their capacity.
+     */
+    public void clear() {
+        modCount++;
+        root = NIL;
+        next = 1;
+        free = NIL;
+        size = 0;
+    }
+
+    /**
+     * Returns current black height of the tree, counting the nil leaf.
+     * @return black height of the tree
+     */
+    public int getBlackHeight() {
+        int depth = 1;
+        for(int p = root; p != NIL; p = left[p]) {
+            if(colour[p] == BLACK)
+                depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * Returns whether the passed key is stored inside the tree.
+     * @param k key to look for
+     * @return  true if k is stored in the tree
+     */
+    public boolean contains(int k) {
+        return getNode(k) != NIL;
+    }
+
+    /**
+     * Inserts the passed key by descending iteratively from the root with one comparison per level and repairs the
+     * properties of the red-black-tree afterwards.
+     * @param k key to insert
+     * @return  true if the key has been inserted, false if it was already stored in the tree
+     */
+    public boolean add(int k) {
+        int y = NIL;
+        int x = root;
+        while(x != NIL) {
+            if(k == key[x])
+                return false;
+            y = x;
+            x = k < key[x] ? left[x] : right[x];
+        }
+        int z = allocate(k, y);
+        if(y == NIL)
+            root = z;
+        else if(k < key[y])
+            left[y] = z;
+        else
+            right[y] = z;
+        for(int p = y; p != NIL; p = father[p])
+            count[p]++;
+        size++;
+        modCount++;
+        repairInsert(z);
+        return true;
+    }
+
+    /**
+     * Removes the passed key from the tree.
+     * @param k key to remove
+     * @return  true if the key was stored in the tree and has been removed
+     */
+    public boolean remove(int k) {
+        int p = getNode(k);
+        if(p == NIL)
+            return false;
+        delete(p);
+        return true;
+    }
+
+    /**
+     * Returns the smallest key of the tree.
+     * @return  smallest key
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public int first() {
+        if(root == NIL)
+            throw new NoSuchElementException("IntRedBlackTree is empty.");
+        return key[minNode(root)];
+    }
+
+    /**
+     * Returns the greatest key of the tree.
+     * @return  greatest key
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public int last() {
+        if(root == NIL)
+            throw new NoSuchElementException("IntRedBlackTree is empty.");
+        return key[maxNode(root)];
+    }
+
+    /**
+     * Returns the key at the passed position in ascending order by descending along the subtree sizes.
+     * @param k position of the key, starting at 0 for the smallest one
+     * @return  k-th smallest key
+     * @throws IndexOutOfBoundsException if k is negative or not less than size()
+     */
+    public int select(int k) {
+        if(k < 0 || k >= size)
+            throw new IndexOutOfBoundsException("Index " + k + " out of bounds for size " + size);
+        int p = root;
+        while(true) {
+            int l = count[left[p]];
+            if(k < l) {
+                p = left[p];
+            } else if(k == l) {
+                return key[p];
+            } else {
+                k -= l + 1;
+                p = right[p];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of keys in the tree that are strictly less than the passed one.
+     * @param k key to compare with
+     * @return  number of keys less than k
+     */
+    public int rank(int k) {
+        int rank = 0;
+        int p = root;
+        while(p != NIL) {
+            if(k < key[p]) {
+                p = left[p];
+            } else if(k > key[p]) {
+                rank += count[left[p]] + 1;
+                p = right[p];
+            } else {
+                return rank + count[left[p]];
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the number of keys in the tree that are greater than or equal to from and less than to.
+     * @param from  low endpoint (inclusive)
+     * @param to    high endpoint (exclusive)
+     * @return  number of keys in the range
+     * @throws IllegalArgumentException if from is greater than to
+     */
+    public int count(int from, int to) {
+        if(from > to)
+            throw new IllegalArgumentException("from > to");
+        return rank(to) - rank(from);
+    }
+
+    /**
+     * Returns the keys of the tree in ascending order.
+     * @return  new array holding all keys
+     */
+    public int[] toArray() {
+        int[] keys = new int[size];
+        int i = 0;
+        for(PrimitiveIterator.OfInt it = iterator(); it.hasNext(); )
+            keys[i++] = it.nextInt();
+        return keys;
+    }
+
+    /**
+     * Returns an in-order iterator over the keys. The iterator is fail-fast.
+     * @return  in-order iterator
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new KeyIterator(root == NIL ? NIL : minNode(root), false);
+    }
+
+    /**
+     * Returns a reverse in-order iterator over the keys. The iterator is fail-fast.
+     * @return  reverse in-order iterator
+     */
+    public PrimitiveIterator.OfInt rIterator() {
+        return new KeyIterator(root == NIL ? NIL : maxNode(root), true);
+    }
+
+    /**
+     * Returns a String representation of the keys in ascending order, e.g. "[1, 2, 3]".
+     * @return String representation of the tree
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    /**
+     * Returns the index of the Node holding the passed key.
+     * @param k key to look for
+     * @return  index of the Node or NIL if the key is not stored
+     */
+    private int getNode(int k) {
+        int p = root;
+        while(p != NIL && k != key[p])
+            p = k < key[p] ? left[p] : right[p];
+        return p;
+    }
+
+    /**
+     * Returns a slot for a new red Node holding the passed key, taken from the free list or the end of the arrays.
+     * @param k key to store
+     * @param f index of the father of the new Node
+     * @return  index of the new Node
+     */
+    private int allocate(int k, int f) {
+        int z;
+        if(free != NIL) {
+            z = free;
+            free = right[z];
+        } else {
+            if(next == key.length)
+                grow();
+            z = next++;
+        }
+        key[z] = k;
+        left[z] = NIL;
+        right[z] = NIL;
+        father[z] = f;
+        count[z] = 1;
+        colour[z] = RED;
+        return z;
+    }
+
+    /**
+     * Puts the slot of a deleted Node on the free list.
+     * @param z index of the deleted Node
+     */
+    private void release(int z) {
+        right[z] = free;
+        free = z;
+    }
+
+    /**
+     * Grows all arrays by half of their current length.
+     */
+    private void grow() {
+        int capacity = key.length + (key.length >> 1) + 1;
+        key = Arrays.copyOf(key, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        father = Arrays.copyOf(father, capacity);
+        count = Arrays.copyOf(count, capacity);
+        colour = Arrays.copyOf(colour, capacity);
+    }
+
+    /**
+     * Returns the index of the Node with the smallest key in the subtree of the passed Node.
+     * @param p root of the subtree, must not be NIL
+     * @return  index of the minimum Node
+     */
+    private int minNode(int p) {
+        while(left[p] != NIL)
+            p = left[p];
+        return p;
+    }
+
+    /**
+     * Returns the index of the Node with the greatest key in the subtree of the passed Node.
+     * @param p root of the subtree, must not be NIL
+     * @return  index of the maximum Node
+     */
+    private int maxNode(int p) {
+        while(right[p] != NIL)
+            p = right[p];
+        return p;
+    }
+
+    /**
+     * Returns the in-order successor of the passed Node.
+     * @param p index of a Node
+     * @return  index of the successor or NIL if p holds the greatest key
+     */
+    private int successor(int p) {
+        if(right[p] != NIL)
+            return minNode(right[p]);
+        int f = father[p];
+        while(f != NIL && p == right[f]) {
+            p = f;
+            f = father[f];
+        }
+        return f;
+    }
+
+    /**
+     * Returns the in-order predecessor of the passed Node.
+     * @param p index of a Node
+     * @return  index of the predecessor or NIL if p holds the smallest key
+     */
+    private int predecessor(int p) {
+        if(left[p] != NIL)
+            return maxNode(left[p]);
+        int f = father[p];
+        while(f != NIL && p == left[f]) {
+            p = f;
+            f = father[f];
+        }
+        return f;
+    }
+
+    /**
+     * Performs a left rotation of the passed Node and updates the subtree sizes of both rotated Nodes.
+     * @param x index of the Node to rotate
+     */
+    private void leftRotate(int x) {
+        int y = right[x];
+        right[x] = left[y];
+        if(left[y] != NIL)
+            father[left[y]] = x;
+        father[y] = father[x];
+        if(father[x] == NIL)
+            root = y;
+        else if(x == left[father[x]])
+            left[father[x]] = y;
+        else
+            right[father[x]] = y;
+        left[y] = x;
+        father[x] = y;
+        count[y] = count[x];
+        count[x] = count[left[x]] + count[right[x]] + 1;
+    }
+
+    /**
+     * Performs a right rotation of the passed Node and updates the subtree sizes of both rotated Nodes.
+     * @param x index of the Node to rotate
+     */
+    private void rightRotate(int x) {
+        int y = left[x];
+        left[x] = right[y];
+        if(right[y] != NIL)
+            father[right[y]] = x;
+        father[y] = father[x];
+        if(father[x] == NIL)
+            root = y;
+        else if(x == right[father[x]])
+            right[father[x]] = y;
+        else
+            left[father[x]] = y;
+        right[y] = x;
+        father[x] = y;
+        count[y] = count[x];
+        count[x] = count[left[x]] + count[right[x]] + 1;
+    }
+
+    /**
+     * Repairs the properties of the tree after the insertion of the passed Node.
+     * @param z index of the inserted Node
+     */
+    private void repairInsert(int z) {
+        while(colour[father[z]] == RED) {
+            int f = father[z];
+            int g = father[f];
+            if(f == left[g]) {
+                int u = right[g];
+                if(colour[u] == RED) {
+                    // uncle is red: recolour and continue at grandfather
+                    colour[f] = BLACK;
+                    colour[u] = BLACK;
+                    colour[g] = RED;
+                    z = g;
+                } else {
+                    if(z == right[f]) {
+                        z = f;
+                        leftRotate(z);
+                        f = father[z];
+                    }
+                    colour[f] = BLACK;
+                    colour[g] = RED;
+                    rightRotate(g);
+                }
+            } else {
+                int u = left[g];
+                if(colour[u] == RED) {
+                    colour[f] = BLACK;
+                    colour[u] = BLACK;
+                    colour[g] = RED;
+                    z = g;
+                } else {
+                    if(z == left[f]) {
+                        z = f;
+                        rightRotate(z);
+                        f = father[z];
+                    }
+                    colour[f] = BLACK;
+                    colour[g] = RED;
+                    leftRotate(g);
+                }
+            }
+        }
+        colour[root] = BLACK;
+    }
+
+    /**
+     * Replaces the subtree rooted at u with the subtree rooted at v. Sets the father of v even if v is NIL, so the
+     * repair after a deletion can start from it.
+     * @param u index of the Node to replace
+     * @param v index of the replacing Node
+     */
+    private void transplant(int u, int v) {
+        if(father[u] == NIL)
+            root = v;
+        else if(u == left[father[u]])
+            left[father[u]] = v;
+        else
+            right[father[u]] = v;
+        father[v] = father[u];
+    }
+
+    /**
+     * Deletes the passed Node from the tree. A Node with two children is replaced by its successor Node, so every other
+     * Node keeps its key and iterators stay valid.
+     * @param z index of the Node to delete
+     */
+    private void delete(int z) {
+        int y = z;
+        boolean removedColour = colour[y];
+        int x;
+        if(left[z] == NIL) {
+            x = right[z];
+            decrementCounts(father[z]);
+            transplant(z, x);
+        } else if(right[z] == NIL) {
+            x = left[z];
+            decrementCounts(father[z]);
+            transplant(z, x);
+        } else {
+            y = minNode(right[z]);
+            removedColour = colour[y];
+            x = right[y];
+            decrementCounts(father[y]);
+            if(father[y] == z) {
+                father[x] = y;
+            } else {
+                transplant(y, x);
+                right[y] = right[z];
+                father[right[y]] = y;
+            }
+            transplant(z, y);
+            left[y] = left[z];
+            father[left[y]] = y;
+            colour[y] = colour[z];
+            count[y] = count[left[y]] + count[right[y]] + 1;
+        }
+        if(removedColour == BLACK)
+            repairDelete(x);
+        // the nil leaf may have been used as a temporary father pointer holder
+        father[NIL] = NIL;
+        release(z);
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Decrements the subtree sizes of the passed Node and all its ancestors.
+     * @param p index of the first Node to update
+     */
+    private void decrementCounts(int p) {
+        for(; p != NIL; p = father[p])
+            count[p]--;
+    }
+
+    /**
+     * Restores the properties of the tree after a deletion.
+     * @param x index of the Node that took the place of the removed Node, possibly NIL
+     */
+    private void repairDelete(int x) {
+        while(x != root && colour[x] == BLACK) {
+            int f = father[x];
+            if(x == left[f]) {
+                int w = right[f];
+                if(colour[w] == RED) {
+                    colour[w] = BLACK;
+                    colour[f] = RED;
+                    leftRotate(f);
+                    w = right[f];
+                }
+                if(colour[left[w]] == BLACK && colour[right[w]] == BLACK) {
+                    colour[w] = RED;
+                    x = f;
+                } else {
+                    if(colour[right[w]] == BLACK) {
+                        colour[left[w]] = BLACK;
+                        colour[w] = RED;
+                        rightRotate(w);
+                        w = right[f];
+                    }
+                    colour[w] = colour[f];
+                    colour[f] = BLACK;
+                    colour[right[w]] = BLACK;
+                    leftRotate(f);
+                    x = root;
+                }
+            } else {
+                int w = left[f];
+                if(colour[w] == RED) {
+                    colour[w] = BLACK;
+                    colour[f] = RED;
+                    rightRotate(f);
+                    w = left[f];
+                }
+                if(colour[left[w]] == BLACK && colour[right[w]] == BLACK) {
+                    colour[w] = RED;
+                    x = f;
+                } else {
+                    if(colour[left[w]] == BLACK) {
+                        colour[right[w]] = BLACK;
+                        colour[w] = RED;
+                        leftRotate(w);
+                        w = left[f];
+                    }
+                    colour[w] = colour[f];
+                    colour[f] = BLACK;
+                    colour[left[w]] = BLACK;
+                    rightRotate(f);
+                    x = root;
+                }
+            }
+        }
+        colour[x] = BLACK;
+    }
+
+    /**
+     * Iterator over the keys that walks from Node to successor (or predecessor) by index.
+     */
+    private class KeyIterator implements PrimitiveIterator.OfInt {
+        /**
+         * index of the Node returned by the next call to nextInt(), NIL if the iteration is finished.
+         */
+        int next;
+        /**
+         * index of the Node returned by the last call to nextInt(), NIL if remove() must not be called.
+         */
+        int lastReturned = NIL;
+        /**
+         * Whether the iterator walks in descending order.
+         */
+        final boolean descending;
+        /**
+         * Value of modCount the iterator expects.
+         */
+        int expectedModCount = modCount;
+
+        /**
+         * Creates a new iterator starting at the passed Node.
+         * @param first index of the first Node, NIL for an empty iteration
+         * @param descending    whether to walk in descending order
+         */
+        KeyIterator(int first, boolean descending) {
+            this.next = first;
+            this.descending = descending;
+        }
+
+        /**
+         * Returns whether nextInt() will return a new key.
+         * @return true if there are more keys
+         */
+        @Override
+        public boolean hasNext() {
+            return next != NIL;
+        }
+
+        /**
+         * Returns the next key and advances to its successor (or predecessor).
+         * @return next key
+         */
+        @Override
+        public int nextInt() {
+            if(next == NIL)
+                throw new NoSuchElementException("No more elements in IntRedBlackTree.");
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException("IntRedBlackTree was modified during iteration.");
+            lastReturned = next;
+            next = descending ? predecessor(next) : successor(next);
+            return key[lastReturned];
+        }
+
+        /**
+         * Deletes the key last returned by nextInt(). Can only be called ONCE after a call to nextInt().
+         */
+        @Override
+        public void remove() {
+            if(lastReturned == NIL)
+                throw new IllegalStateException("Next method hasn't been called or remove has already been called after last next call.");
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException("IntRedBlackTree was modified during iteration.");
+            delete(lastReturned);
+            expectedModCount = modCount;
+            lastReturned = NIL;
+        }
+    }
+}
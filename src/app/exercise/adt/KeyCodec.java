@@ -0,0 +1,92 @@
+package app.exercise.adt;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes keys of type K into a fixed number of bytes, so trees can store them outside of the Java heap. A codec also
+ * defines the order of the keys by comparing a key with an encoded one, which saves decoding stored keys during a
+ * descent. This order must be consistent with the one of the decoded keys.
+ * @param <K>   type of the encoded keys
+ */
+public interface KeyCodec<K> {
+    /**
+     * Codec for Integer keys in their natural order, 4 bytes per key.
+     */
+    KeyCodec<Integer> INTEGER = new KeyCodec<>() {
+        @Override
+        public int width() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buf, int offset, Integer key) {
+            buf.putInt(offset, key);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buf, int offset) {
+            return buf.getInt(offset);
+        }
+
+        @Override
+        public int compare(Integer key, ByteBuffer buf, int offset) {
+            return Integer.compare(key, buf.getInt(offset));
+        }
+    };
+
+    /**
+     * Codec for Long keys in their natural order, 8 bytes per key.
+     */
+    KeyCodec<Long> LONG = new KeyCodec<>() {
+        @Override
+        public int width() {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buf, int offset, Long key) {
+            buf.putLong(offset, key);
+        }
+
+        @Override
+        public Long read(ByteBuffer buf, int offset) {
+            return buf.getLong(offset);
+        }
+
+        @Override
+        public int compare(Long key, ByteBuffer buf, int offset) {
+            return Long.compare(key, buf.getLong(offset));
+        }
+    };
+
+    /**
+     * Returns the number of bytes every encoded key occupies.
+     * @return  width of an encoded key in bytes
+     */
+    int width();
+
+    /**
+     * Writes the passed key to the buffer, starting at the passed absolute offset. The position of the buffer is not changed.
+     * @param buf   buffer to write to
+     * @param offset    absolute offset of the first byte
+     * @param key   key to encode, must not be null
+     */
+    void write(ByteBuffer buf, int offset, K key);
+
+    /**
+     * Reads the key stored at the passed absolute offset. The position of the buffer is not changed.
+     * @param buf   buffer to read from
+     * @param offset    absolute offset of the first byte
+     * @return  decoded key
+     */
+    K read(ByteBuffer buf, int offset);
+
+    /**
+     * Compares the passed key with the key stored at the passed absolute offset.
+     * @param key   key to compare
+     * @param buf   buffer holding the encoded key
+     * @param offset    absolute offset of the encoded key
+     * @return  a negative integer, zero, or a positive integer as key is less than, equal to, or greater than the stored key
+     */
+    int compare(K key, ByteBuffer buf, int offset);
+}
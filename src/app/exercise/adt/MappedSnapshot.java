@@ -0,0 +1,213 @@
+package app.exercise.adt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Iterator;
+
+/**
+ * Read-only view of a snapshot file written by {@link RedBlackTree#writeSnapshot(Path, KeyCodec)}. The file is memory
+ * mapped, so opening it costs O(1) and the keys are only read when they are accessed.
+ * <p>
+ * Layout (big endian):
+ * <pre>
+ * offset 0     int     magic 0x52425453 ("RBTS")
+ * offset 4     int     format version, currently 1
+ * offset 8     int     width w of an encoded key in bytes
+ * offset 12    int     number of keys n
+ * offset 16    n * w   encoded keys in the order of the tree
+ * then         (n + 7) / 8 bytes colour bits, bit i set if the Node holding key i is red
+ * </pre>
+ * The colour bits describe the tree that is built by recursively taking the middle key of every range as subtree root,
+ * so the heap Nodes can be created without repairing the tree.
+ * @param <E>   type of the stored keys
+ */
+final class MappedSnapshot<E> {
+    /**
+     * magic number that identifies snapshot files.
+     */
+    static final int MAGIC = 0x52425453;
+    /**
+     * current version of the file format.
+     */
+    static final int VERSION = 1;
+    /**
+     * size of the header in bytes.
+     */
+    static final int HEADER = 16;
+
+    /**
+     * the mapped file.
+     */
+    private final ByteBuffer buf;
+    /**
+     * codec of the keys.
+     */
+    private final KeyCodec<E> codec;
+    /**
+     * width of an encoded key.
+     */
+    private final int width;
+    /**
+     * number of keys.
+     */
+    private final int size;
+    /**
+     * offset of the colour bits.
+     */
+    private final int colours;
+
+    /**
+     * Creates a view of the passed mapped file.
+     * @param buf   mapped file
+     * @param codec codec of the keys
+     * @param size  number of keys
+     */
+    private MappedSnapshot(ByteBuffer buf, KeyCodec<E> codec, int size) {
+        this.buf = buf;
+        this.codec = codec;
+        this.width = codec.width();
+        this.size = size;
+        this.colours = HEADER + size * width;
+    }
+
+    /**
+     * Writes a snapshot of the passed keys to the passed file, replacing its content. The snapshot is written to a
+     * temporary file next to it that replaces the file atomically, so a tree that is still mapped from the old file
+     * keeps reading the old content and a crash leaves either the old or the new snapshot.
+     * @param file  file to write
+     * @param it    Iterator returning the keys in the strict order of the tree
+     * @param size  number of keys
+     * @param codec codec of the keys
+     * @param <E>   type of the keys
+     * @throws IOException if the file can not be written
+     * @throws IllegalStateException if the snapshot would exceed 2 GB
+     */
+    static <E> void write(Path file, Iterator<? extends E> it, int size, KeyCodec<E> codec) throws IOException {
+        long length = HEADER + (long) size * codec.width() + (size + 7) / 8;
+        if(length > Integer.MAX_VALUE)
+            throw new IllegalStateException("Snapshot of " + size + " keys exceeds 2 GB.");
+        byte[] red = new byte[(size + 7) / 8];
+        markRed(0, 0, size - 1, 31 - Integer.numberOfLeadingZeros(size + 1), red);
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try(FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = ch.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            out.putInt(0, MAGIC);
+            out.putInt(4, VERSION);
+            out.putInt(8, codec.width());
+            out.putInt(12, size);
+            int offset = HEADER;
+            for(int i = 0; i < size; i++, offset += codec.width())
+                codec.write(out, offset, it.next());
+            out.put(offset, red);
+            out.force();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps the passed snapshot file and checks its header.
+     * @param file  snapshot file
+     * @param codec codec of the keys, must be the one the snapshot has been written with
+     * @param <E>   type of the keys
+     * @return  view of the snapshot
+     * @throws IOException if the file can not be read or is not a snapshot written with a codec of the same width
+     */
+    static <E> MappedSnapshot<E> map(Path file, KeyCodec<E> codec) throws IOException {
+        try(FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = ch.size();
+            if(length < HEADER)
+                throw new IOException(file + " is not a RedBlackTree snapshot.");
+            // the mapping stays valid after the channel has been closed
+            MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if(in.getInt(0) != MAGIC)
+                throw new IOException(file + " is not a RedBlackTree snapshot.");
+            if(in.getInt(4) != VERSION)
+                throw new IOException(file + " has unsupported snapshot version " + in.getInt(4) + ".");
+            if(in.getInt(8) != codec.width())
+                throw new IOException(file + " stores keys of " + in.getInt(8) + " bytes, codec expects " + codec.width() + ".");
+            int size = in.getInt(12);
+            if(size < 0 || length != HEADER + (long) size * codec.width() + (size + 7) / 8)
+                throw new IOException(file + " is truncated or corrupt.");
+            return new MappedSnapshot<>(in, codec, size);
+        }
+    }
+
+    /**
+     * Sets the colour bits of the subtree holding the keys lo to hi, like {@link RedBlackTree#loadSorted(Iterator, int)}
+     * colours it: only the Nodes on the incomplete lowest level are red.
+     * @param level depth of the subtree root, starting at 0
+     * @param lo    index of the first key of the subtree
+     * @param hi    index of the last key of the subtree
+     * @param redLevel  depth of the incomplete lowest level
+     * @param red   colour bits to set
+     */
+    private static void markRed(int level, int lo, int hi, int redLevel, byte[] red) {
+        if(hi < lo)
+            return;
+        int mid = (lo + hi) >>> 1;
+        if(level == redLevel)
+            red[mid >>> 3] |= 1 << (mid & 7);
+        markRed(level + 1, lo, mid - 1, redLevel, red);
+        markRed(level + 1, mid + 1, hi, redLevel, red);
+    }
+
+    /**
+     * Returns the number of keys in the snapshot.
+     * @return  number of keys
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Decodes the key at the passed index.
+     * @param i index of the key in the order of the tree
+     * @return  decoded key
+     */
+    E get(int i) {
+        return codec.read(buf, HEADER + i * width);
+    }
+
+    /**
+     * Returns whether the Node holding the key at the passed index is red.
+     * @param i index of the key in the order of the tree
+     * @return  true if the Node is red
+     */
+    boolean isRed(int i) {
+        return (buf.get(colours + (i >>> 3)) & (1 << (i & 7))) != 0;
+    }
+
+    /**
+     * Looks up the passed key by binary search on the encoded keys. In natural order the codec compares the key with
+     * the encoded keys, otherwise the keys are decoded and compared with the passed Comparator, which the keys of the
+     * snapshot are sorted by.
+     * @param key   key to look for
+     * @param comparator    order of the keys, null for natural order
+     * @return  index of the key, or (-(insertion point) - 1) if it is not stored
+     */
+    int indexOf(E key, Comparator<? super E> comparator) {
+        int lo = 0;
+        int hi = size - 1;
+        while(lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = comparator == null ? codec.compare(key, buf, HEADER + mid * width)
+                    : comparator.compare(key, get(mid));
+            if(cmp == 0)
+                return mid;
+            if(cmp < 0)
+                hi = mid - 1;
+            else
+                lo = mid + 1;
+        }
+        return -(lo + 1);
+    }
+}
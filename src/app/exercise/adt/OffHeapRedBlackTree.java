@@ -0,0 +1,826 @@
+package app.exercise.adt;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Red-black-tree that keeps its Nodes outside of the Java heap. Every Node occupies a fixed-size slot in direct
+ * ByteBuffers, the links to children and father are int slot numbers instead of references and the key is stored in
+ * place by a {@link KeyCodec}. The garbage collector therefore only sees a handful of buffer objects, no matter how
+ * many keys the tree holds. Slots are allocated in chunks of {@value #CHUNK_SIZE}, so growing never copies existing
+ * Nodes, and freed slots are reused.
+ * <p>
+ * Insertion, deletion and their repairs use the same rotations and cases as {@link RedBlackTree}, iterators walk from
+ * Node to successor, are fail-fast and support remove(). The native memory is released by {@link #close()}; a closed
+ * tree throws an IllegalStateException on every access.
+ * @param <K>   type of the stored keys
+ */
+public class OffHeapRedBlackTree<K> extends AbstractSet<K> implements AutoCloseable {
+    /**
+     * slot number of the nil leaf, which is also used as father of the root.
+     */
+    private static final int NIL = 0;
+    /**
+     *  int constant BLACK that stores the value that represents the colour black
+     */
+    private static final int BLACK = 0;
+    /**
+     *  int constant RED that stores the value that represents the colour red
+     */
+    private static final int RED = 1;
+    /**
+     * byte offsets of the fields inside a slot.
+     */
+    private static final int LEFT = 0, RIGHT = 4, FATHER = 8, COLOUR = 12, KEY = 16;
+    /**
+     * log2 of the number of slots per chunk.
+     */
+    private static final int CHUNK_SHIFT = 16;
+    /**
+     * number of slots per chunk.
+     */
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    /**
+     * mask that extracts the index of a slot inside its chunk.
+     */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * codec that encodes the keys and defines their order.
+     */
+    private final KeyCodec<K> codec;
+    /**
+     * bytes per slot: three links, the colour and the encoded key.
+     */
+    private final int stride;
+    /**
+     * chunks of slots, null once the tree has been closed.
+     */
+    private ByteBuffer[] chunks;
+    /**
+     * number of allocated chunks.
+     */
+    private int chunkCount = 0;
+    /**
+     * slot number of the root Node, NIL if the tree is empty.
+     */
+    private int root = NIL;
+    /**
+     * first slot number that has never been used.
+     */
+    private int next = 1;
+    /**
+     * head of the list of freed slots, linked by their left field. NIL if there are none.
+     */
+    private int free = NIL;
+    /**
+     * Keeps track of the current size of the tree.
+     */
+    private int size = 0;
+    /**
+     * Number of structural modifications of the tree. Used by iterators to detect concurrent modifications.
+     */
+    private int modCount = 0;
+
+    /**
+     * Constructor that initializes an empty tree for keys encoded by the passed codec. Allocates the first chunk.
+     * @param codec codec for the keys
+     */
+    public OffHeapRedBlackTree(KeyCodec<K> codec) {
+        this.codec = codec;
+        this.stride = KEY + codec.width();
+        this.chunks = new ByteBuffer[4];
+        addChunk();
+        // slot 0 is the nil leaf
+        setColour(NIL, BLACK);
+        setLeft(NIL, NIL);
+        setRight(NIL, NIL);
+        setFather(NIL, NIL);
+    }
+
+    /**
+     * Returns the current number of keys stored inside the tree.
+     * @return  number of stored keys.
+     */
+    @Override
+    public int size() {
+        ensureOpen();
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes of native memory reserved by the tree.
+     * @return  reserved native memory in bytes, 0 after close()
+     */
+    public long reservedBytes() {
+        return chunks == null ? 0 : (long) chunkCount * CHUNK_SIZE * stride;
+    }
+
+    /**
+     * Removes all keys from the tree. The allocated chunks are kept for reuse.
+     */
+    @Override
+    public void clear() {
+        ensureOpen();
+        modCount++;
+        root = NIL;
+        next = 1;
+        free = NIL;
+        size = 0;
+    }
+
+    /**
+     * Frees the native memory of the tree. Afterwards every access throws an IllegalStateException. Calling close()
+     * again has no effect.
+     */
+    @Override
+    public void close() {
+        if(chunks == null)
+            return;
+        for(int i = 0; i < chunkCount; i++)
+            Cleaner.free(chunks[i]);
+        chunks = null;
+        chunkCount = 0;
+        root = NIL;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Returns current black height of the tree, counting the nil leaf.
+     * @return black height of the tree
+     */
+    public int getBlackHeight() {
+        ensureOpen();
+        int depth = 1;
+        for(int p = root; p != NIL; p = left(p)) {
+            if(colour(p) == BLACK)
+                depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * Returns whether the passed key is stored inside the tree.
+     * @param o key to look for
+     * @return  true if the key is stored in the tree
+     * @throws ClassCastException if o can not be compared with the stored keys
+     * @throws NullPointerException if o is null
+     */
+    @Override
+    public boolean contains(Object o) {
+        ensureOpen();
+        return getNode(castKey(o)) != NIL;
+    }
+
+    /**
+     * Inserts the passed key by descending iteratively from the root with one comparison per level and repairs the
+     * properties of the red-black-tree afterwards.
+     * @param k key to insert
+     * @return  true if the key has been inserted, false if it was already stored in the tree
+     * @throws NullPointerException if k is null
+     */
+    @Override
+    public boolean add(K k) {
+        ensureOpen();
+        if(k == null)
+            throw new NullPointerException("OffHeapRedBlackTree does not permit null keys.");
+        int y = NIL;
+        int x = root;
+        int cmp = 0;
+        while(x != NIL) {
+            cmp = compare(k, x);
+            if(cmp == 0)
+                return false;
+            y = x;
+            x = cmp < 0 ? left(x) : right(x);
+        }
+        int z = allocate(k, y);
+        if(y == NIL)
+            root = z;
+        else if(cmp < 0)
+            setLeft(y, z);
+        else
+            setRight(y, z);
+        size++;
+        modCount++;
+        repairInsert(z);
+        return true;
+    }
+
+    /**
+     * Removes the passed key from the tree.
+     * @param o key to remove
+     * @return  true if the key was stored in the tree and has been removed
+     * @throws ClassCastException if o can not be compared with the stored keys
+     * @throws NullPointerException if o is null
+     */
+    @Override
+    public boolean remove(Object o) {
+        ensureOpen();
+        int p = getNode(castKey(o));
+        if(p == NIL)
+            return false;
+        delete(p);
+        return true;
+    }
+
+    /**
+     * Returns the smallest key of the tree.
+     * @return  smallest key
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public K first() {
+        ensureOpen();
+        if(root == NIL)
+            throw new NoSuchElementException("OffHeapRedBlackTree is empty.");
+        return key(minNode(root));
+    }
+
+    /**
+     * Returns the greatest key of the tree.
+     * @return  greatest key
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public K last() {
+        ensureOpen();
+        if(root == NIL)
+            throw new NoSuchElementException("OffHeapRedBlackTree is empty.");
+        return key(maxNode(root));
+    }
+
+    /**
+     * Returns an in-order iterator over the keys. Every returned key is decoded freshly. The iterator is fail-fast.
+     * @return  in-order iterator
+     */
+    @Override
+    public Iterator<K> iterator() {
+        ensureOpen();
+        return new KeyIterator(root == NIL ? NIL : minNode(root), false);
+    }
+
+    /**
+     * Returns a reverse in-order iterator over the keys. The iterator is fail-fast.
+     * @return  reverse in-order iterator
+     */
+    public Iterator<K> rIterator() {
+        ensureOpen();
+        return new KeyIterator(root == NIL ? NIL : maxNode(root), true);
+    }
+
+    /**
+     * Throws an IllegalStateException if the tree has been closed.
+     */
+    private void ensureOpen() {
+        if(chunks == null)
+            throw new IllegalStateException("OffHeapRedBlackTree has been closed.");
+    }
+
+    /**
+     * Casts the passed Object to the key type.
+     * @param o Object to cast
+     * @return  o as key
+     * @throws NullPointerException if o is null
+     */
+    @SuppressWarnings("unchecked")
+    private K castKey(Object o) {
+        if(o == null)
+            throw new NullPointerException("OffHeapRedBlackTree does not permit null keys.");
+        return (K) o;
+    }
+
+    /**
+     * Returns the slot number of the Node holding the passed key.
+     * @param k key to look for
+     * @return  slot number of the Node or NIL if the key is not stored
+     */
+    private int getNode(K k) {
+        int p = root;
+        while(p != NIL) {
+            int cmp = compare(k, p);
+            if(cmp == 0)
+                return p;
+            p = cmp < 0 ? left(p) : right(p);
+        }
+        return NIL;
+    }
+
+    /**
+     * Returns the slot number of the left child of the passed Node.
+     * @param n slot number of the Node
+     * @return  slot number of the left child
+     */
+    private int left(int n) {
+        return chunks[n >>> CHUNK_SHIFT].getInt((n & CHUNK_MASK) * stride + LEFT);
+    }
+
+    /**
+     * Returns the slot number of the right child of the passed Node.
+     * @param n slot number of the Node
+     * @return  slot number of the right child
+     */
+    private int right(int n) {
+        return chunks[n >>> CHUNK_SHIFT].getInt((n & CHUNK_MASK) * stride + RIGHT);
+    }
+
+    /**
+     * Returns the slot number of the father of the passed Node.
+     * @param n slot number of the Node
+     * @return  slot number of the father
+     */
+    private int father(int n) {
+        return chunks[n >>> CHUNK_SHIFT].getInt((n & CHUNK_MASK) * stride + FATHER);
+    }
+
+    /**
+     * Returns the colour of the passed Node.
+     * @param n slot number of the Node
+     * @return  RED or BLACK
+     */
+    private int colour(int n) {
+        return chunks[n >>> CHUNK_SHIFT].getInt((n & CHUNK_MASK) * stride + COLOUR);
+    }
+
+    /**
+     * Sets the left child of the passed Node.
+     * @param n slot number of the Node
+     * @param v slot number of the new left child
+     */
+    private void setLeft(int n, int v) {
+        chunks[n >>> CHUNK_SHIFT].putInt((n & CHUNK_MASK) * stride + LEFT, v);
+    }
+
+    /**
+     * Sets the right child of the passed Node.
+     * @param n slot number of the Node
+     * @param v slot number of the new right child
+     */
+    private void setRight(int n, int v) {
+        chunks[n >>> CHUNK_SHIFT].putInt((n & CHUNK_MASK) * stride + RIGHT, v);
+    }
+
+    /**
+     * Sets the father of the passed Node.
+     * @param n slot number of the Node
+     * @param v slot number of the new father
+     */
+    private void setFather(int n, int v) {
+        chunks[n >>> CHUNK_SHIFT].putInt((n & CHUNK_MASK) * stride + FATHER, v);
+    }
+
+    /**
+     * Sets the colour of the passed Node.
+     * @param n slot number of the Node
+     * @param v RED or BLACK
+     */
+    private void setColour(int n, int v) {
+        chunks[n >>> CHUNK_SHIFT].putInt((n & CHUNK_MASK) * stride + COLOUR, v);
+    }
+
+    /**
+     * Decodes the key of the passed Node.
+     * @param n slot number of the Node
+     * @return  decoded key
+     */
+    private K key(int n) {
+        return codec.read(chunks[n >>> CHUNK_SHIFT], (n & CHUNK_MASK) * stride + KEY);
+    }
+
+    /**
+     * Compares the passed key with the key of the passed Node.
+     * @param k key to compare
+     * @param n slot number of the Node
+     * @return  a negative integer, zero, or a positive integer as k is less than, equal to, or greater than the key of n
+     */
+    private int compare(K k, int n) {
+        return codec.compare(k, chunks[n >>> CHUNK_SHIFT], (n & CHUNK_MASK) * stride + KEY);
+    }
+
+    /**
+     * Returns a slot for a new red Node holding the passed key, taken from the free list or the end of the chunks.
+     * @param k key to store
+     * @param f slot number of the father of the new Node
+     * @return  slot number of the new Node
+     */
+    private int allocate(K k, int f) {
+        int z;
+        if(free != NIL) {
+            z = free;
+            free = left(z);
+        } else {
+            if(next == Integer.MAX_VALUE)
+                throw new IllegalStateException("OffHeapRedBlackTree is full.");
+            if(next >>> CHUNK_SHIFT == chunkCount)
+                addChunk();
+            z = next++;
+        }
+        codec.write(chunks[z >>> CHUNK_SHIFT], (z & CHUNK_MASK) * stride + KEY, k);
+        setLeft(z, NIL);
+        setRight(z, NIL);
+        setFather(z, f);
+        setColour(z, RED);
+        return z;
+    }
+
+    /**
+     * Puts the slot of a deleted Node on the free list.
+     * @param z slot number of the deleted Node
+     */
+    private void release(int z) {
+        setLeft(z, free);
+        free = z;
+    }
+
+    /**
+     * Allocates a new chunk of native memory.
+     */
+    private void addChunk() {
+        if(chunkCount == chunks.length)
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        chunks[chunkCount++] = ByteBuffer.allocateDirect(CHUNK_SIZE * stride).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Returns the slot number of the Node with the smallest key in the subtree of the passed Node.
+     * @param p root of the subtree, must not be NIL
+     * @return  slot number of the minimum Node
+     */
+    private int minNode(int p) {
+        for(int l = left(p); l != NIL; l = left(p))
+            p = l;
+        return p;
+    }
+
+    /**
+     * Returns the slot number of the Node with the greatest key in the subtree of the passed Node.
+     * @param p root of the subtree, must not be NIL
+     * @return  slot number of the maximum Node
+     */
+    private int maxNode(int p) {
+        for(int r = right(p); r != NIL; r = right(p))
+            p = r;
+        return p;
+    }
+
+    /**
+     * Returns the in-order successor of the passed Node.
+     * @param p slot number of a Node
+     * @return  slot number of the successor or NIL if p holds the greatest key
+     */
+    private int successor(int p) {
+        if(right(p) != NIL)
+            return minNode(right(p));
+        int f = father(p);
+        while(f != NIL && p == right(f)) {
+            p = f;
+            f = father(f);
+        }
+        return f;
+    }
+
+    /**
+     * Returns the in-order predecessor of the passed Node.
+     * @param p slot number of a Node
+     * @return  slot number of the predecessor or NIL if p holds the smallest key
+     */
+    private int predecessor(int p) {
+        if(left(p) != NIL)
+            return maxNode(left(p));
+        int f = father(p);
+        while(f != NIL && p == left(f)) {
+            p = f;
+            f = father(f);
+        }
+        return f;
+    }
+
+    /**
+     * Performs a left rotation of the passed Node.
+     * @param x slot number of the Node to rotate
+     */
+    private void leftRotate(int x) {
+        int y = right(x);
+        int b = left(y);
+        setRight(x, b);
+        if(b != NIL)
+            setFather(b, x);
+        int f = father(x);
+        setFather(y, f);
+        if(f == NIL)
+            root = y;
+        else if(x == left(f))
+            setLeft(f, y);
+        else
+            setRight(f, y);
+        setLeft(y, x);
+        setFather(x, y);
+    }
+
+    /**
+     * Performs a right rotation of the passed Node.
+     * @param x slot number of the Node to rotate
+     */
+    private void rightRotate(int x) {
+        int y = left(x);
+        int b = right(y);
+        setLeft(x, b);
+        if(b != NIL)
+            setFather(b, x);
+        int f = father(x);
+        setFather(y, f);
+        if(f == NIL)
+            root = y;
+        else if(x == right(f))
+            setRight(f, y);
+        else
+            setLeft(f, y);
+        setRight(y, x);
+        setFather(x, y);
+    }
+
+    /**
+     * Repairs the properties of the tree after the insertion of the passed Node.
+     * @param z slot number of the inserted Node
+     */
+    private void repairInsert(int z) {
+        while(colour(father(z)) == RED) {
+            int f = father(z);
+            int g = father(f);
+            if(f == left(g)) {
+                int u = right(g);
+                if(colour(u) == RED) {
+                    setColour(f, BLACK);
+                    setColour(u, BLACK);
+                    setColour(g, RED);
+                    z = g;
+                } else {
+                    if(z == right(f)) {
+                        z = f;
+                        leftRotate(z);
+                        f = father(z);
+                    }
+                    setColour(f, BLACK);
+                    setColour(g, RED);
+                    rightRotate(g);
+                }
+            } else {
+                int u = left(g);
+                if(colour(u) == RED) {
+                    setColour(f, BLACK);
+                    setColour(u, BLACK);
+                    setColour(g, RED);
+                    z = g;
+                } else {
+                    if(z == left(f)) {
+                        z = f;
+                        rightRotate(z);
+                        f = father(z);
+                    }
+                    setColour(f, BLACK);
+                    setColour(g, RED);
+                    leftRotate(g);
+                }
+            }
+        }
+        setColour(root, BLACK);
+    }
+
+    /**
+     * Replaces the subtree rooted at u with the subtree rooted at v. Sets the father of v even if v is NIL, so the
+     * repair after a deletion can start from it.
+     * @param u slot number of the Node to replace
+     * @param v slot number of the replacing Node
+     */
+    private void transplant(int u, int v) {
+        int f = father(u);
+        if(f == NIL)
+            root = v;
+        else if(u == left(f))
+            setLeft(f, v);
+        else
+            setRight(f, v);
+        setFather(v, f);
+    }
+
+    /**
+     * Deletes the passed Node from the tree. A Node with two children is replaced by its successor Node, so every other
+     * Node keeps its slot and iterators stay valid.
+     * @param z slot number of the Node to delete
+     */
+    private void delete(int z) {
+        int removedColour = colour(z);
+        int x;
+        if(left(z) == NIL) {
+            x = right(z);
+            transplant(z, x);
+        } else if(right(z) == NIL) {
+            x = left(z);
+            transplant(z, x);
+        } else {
+            int y = minNode(right(z));
+            removedColour = colour(y);
+            x = right(y);
+            if(father(y) == z) {
+                setFather(x, y);
+            } else {
+                transplant(y, x);
+                setRight(y, right(z));
+                setFather(right(y), y);
+            }
+            transplant(z, y);
+            setLeft(y, left(z));
+            setFather(left(y), y);
+            setColour(y, colour(z));
+        }
+        if(removedColour == BLACK)
+            repairDelete(x);
+        // the nil leaf may have been used as a temporary father pointer holder
+        setFather(NIL, NIL);
+        release(z);
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Restores the properties of the tree after a deletion.
+     * @param x slot number of the Node that took the place of the removed Node, possibly NIL
+     */
+    private void repairDelete(int x) {
+        while(x != root && colour(x) == BLACK) {
+            int f = father(x);
+            if(x == left(f)) {
+                int w = right(f);
+                if(colour(w) == RED) {
+                    setColour(w, BLACK);
+                    setColour(f, RED);
+                    leftRotate(f);
+                    w = right(f);
+                }
+                if(colour(left(w)) == BLACK && colour(right(w)) == BLACK) {
+                    setColour(w, RED);
+                    x = f;
+                } else {
+                    if(colour(right(w)) == BLACK) {
+                        setColour(left(w), BLACK);
+                        setColour(w, RED);
+                        rightRotate(w);
+                        w = right(f);
+                    }
+                    setColour(w, colour(f));
+                    setColour(f, BLACK);
+                    setColour(right(w), BLACK);
+                    leftRotate(f);
+                    x = root;
+                }
+            } else {
+                int w = left(f);
+                if(colour(w) == RED) {
+                    setColour(w, BLACK);
+                    setColour(f, RED);
+                    rightRotate(f);
+                    w = left(f);
+                }
+                if(colour(left(w)) == BLACK && colour(right(w)) == BLACK) {
+                    setColour(w, RED);
+                    x = f;
+                } else {
+                    if(colour(left(w)) == BLACK) {
+                        setColour(right(w), BLACK);
+                        setColour(w, RED);
+                        leftRotate(w);
+                        w = left(f);
+                    }
+                    setColour(w, colour(f));
+                    setColour(f, BLACK);
+                    setColour(left(w), BLACK);
+                    rightRotate(f);
+                    x = root;
+                }
+            }
+        }
+        setColour(x, BLACK);
+    }
+
+    /**
+     * Iterator over the keys that walks from Node to successor (or predecessor) by slot number.
+     */
+    private class KeyIterator implements Iterator<K> {
+        /**
+         * slot number of the Node returned by the next call to next(), NIL if the iteration is finished.
+         */
+        int next;
+        /**
+         * slot number of the Node returned by the last call to next(), NIL if remove() must not be called.
+         */
+        int lastReturned = NIL;
+        /**
+         * Whether the iterator walks in descending order.
+         */
+        final boolean descending;
+        /**
+         * Value of modCount the iterator expects.
+         */
+        int expectedModCount = modCount;
+
+        /**
+         * Creates a new iterator starting at the passed Node.
+         * @param first slot number of the first Node, NIL for an empty iteration
+         * @param descending    whether to walk in descending order
+         */
+        KeyIterator(int first, boolean descending) {
+            this.next = first;
+            this.descending = descending;
+        }
+
+        /**
+         * Returns whether next() will return a new key.
+         * @return true if there are more keys
+         */
+        @Override
+        public boolean hasNext() {
+            return next != NIL;
+        }
+
+        /**
+         * Returns the next key and advances to its successor (or predecessor).
+         * @return next key
+         */
+        @Override
+        public K next() {
+            if(next == NIL)
+                throw new NoSuchElementException("No more elements in OffHeapRedBlackTree.");
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException("OffHeapRedBlackTree was modified during iteration.");
+            lastReturned = next;
+            next = descending ? predecessor(next) : successor(next);
+            return key(lastReturned);
+        }
+
+        /**
+         * Deletes the key last returned by next(). Can only be called ONCE after a call to next().
+         */
+        @Override
+        public void remove() {
+            if(lastReturned == NIL)
+                throw new IllegalStateException("Next method hasn't been called or remove has already been called after last next call.");
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException("OffHeapRedBlackTree was modified during iteration.");
+            delete(lastReturned);
+            expectedModCount = modCount;
+            lastReturned = NIL;
+        }
+    }
+
+    /**
+     * Releases the native memory of direct buffers eagerly through sun.misc.Unsafe.invokeCleaner(), which is looked up
+     * reflectively. If it is not available the memory is released once the garbage collector reclaims the buffers.
+     */
+    private static final class Cleaner {
+        /**
+         * the Unsafe instance, null if not available.
+         */
+        private static final Object UNSAFE;
+        /**
+         * the invokeCleaner method, null if not available.
+         */
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                Class<?> cls = Class.forName("sun.misc.Unsafe");
+                Field field = cls.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                unsafe = field.get(null);
+                invokeCleaner = cls.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                unsafe = null;
+                invokeCleaner = null;
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        /**
+         * Frees the native memory of the passed direct buffer. The buffer must not be accessed afterwards.
+         * @param buffer    direct buffer to free
+         */
+        static void free(ByteBuffer buffer) {
+            if(INVOKE_CLEANER == null)
+                return;
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } catch (ReflectiveOperationException e) {
+                // memory is left to the garbage collector
+            }
+        }
+    }
+}
@@ -0,0 +1,632 @@
+package app.exercise.adt;
+
+import app.exercise.visualtree.DrawableTreeElement;
+
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Persistent red-black-tree set. Nodes are immutable and have no father pointer; add() and remove() copy only the
+ * O(log n) Nodes on the search path and repair the colours functionally on the way back up, every untouched subtree is
+ * shared with the previous version. A version is therefore never changed once it is published, which makes
+ * {@link #snapshot()} O(1) and lets any number of threads iterate old versions without locks while the newest version
+ * keeps changing.
+ * <p>
+ * Writers are serialized by the monitor of the set, readers only read the volatile current version. Iterators walk the
+ * version that was current when they were created and never throw a ConcurrentModificationException. Duplicates and null
+ * elements are not permitted.
+ * @param <E>   type of the stored elements
+ */
+public class PersistentRedBlackTree<E> extends AbstractSet<E> {
+    /**
+     *  boolean constant BLACK that stores the boolean value that represents the colour black (false)
+     */
+    private static final boolean BLACK = false;
+    /**
+     *  boolean constant RED that stores the boolean value that represents the colour red (true)
+     */
+    private static final boolean RED = true;
+
+    /**
+     * Immutable Node of a PersistentRedBlackTree. Empty subtrees are represented by null, so leafs are black by definition.
+     * @param <E>   type of the stored element
+     */
+    static final class Node<E> implements DrawableTreeElement<E> {
+        /**
+         * root of the left subtree, null if empty.
+         */
+        final Node<E> left;
+        /**
+         * stored element.
+         */
+        final E data;
+        /**
+         * root of the right subtree, null if empty.
+         */
+        final Node<E> right;
+        /**
+         * colour of the Node.
+         */
+        final boolean colour;
+
+        /**
+         * Constructs a Node from its subtrees, element and colour.
+         * @param left  left subtree
+         * @param data  element
+         * @param right right subtree
+         * @param colour    colour of the Node
+         */
+        Node(Node<E> left, E data, Node<E> right, boolean colour) {
+            this.left = left;
+            this.data = data;
+            this.right = right;
+            this.colour = colour;
+        }
+
+        /**
+         * Returns left child of current Node.
+         * @return left child
+         */
+        @Override
+        public Node<E> getLeft() {
+            return left;
+        }
+
+        /**
+         * Returns right child of current Node.
+         * @return right child
+         */
+        @Override
+        public Node<E> getRight() {
+            return right;
+        }
+
+        /**
+         * Returns if colour of Node is Red or not.
+         * @return true, if colour is red, false otherwise
+         */
+        @Override
+        public boolean isRed() {
+            return colour;
+        }
+
+        /**
+         * Returns data stored in Node.
+         * @return  data field of Node object
+         */
+        @Override
+        public E getValue() {
+            return data;
+        }
+    }
+
+    /**
+     * Immutable pair of a root and the number of elements below it, published as a whole so that readers always see a
+     * matching size.
+     * @param <E>   type of the stored elements
+     */
+    private static final class Version<E> {
+        /**
+         * root of the version, null if empty.
+         */
+        final Node<E> root;
+        /**
+         * number of elements.
+         */
+        final int size;
+
+        /**
+         * Constructs a version.
+         * @param root  root Node
+         * @param size  number of elements
+         */
+        Version(Node<E> root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Comparator that orders the elements, null for their natural ordering.
+     */
+    private final Comparator<? super E> comparator;
+    /**
+     * current version, replaced by every modification.
+     */
+    private volatile Version<E> version;
+
+    /**
+     * Default constructor that initializes an empty set ordered by the natural ordering of its elements.
+     */
+    public PersistentRedBlackTree() {
+        this(null);
+    }
+
+    /**
+     * Constructor that initializes an empty set ordered by the passed Comparator.
+     * @param comparator    Comparator that orders the elements, null for their natural ordering
+     */
+    public PersistentRedBlackTree(Comparator<? super E> comparator) {
+        this(comparator, new Version<>(null, 0));
+    }
+
+    /**
+     * Constructor that starts from an existing version. Used by snapshot().
+     * @param comparator    Comparator that orders the elements
+     * @param version   initial version
+     */
+    private PersistentRedBlackTree(Comparator<? super E> comparator, Version<E> version) {
+        this.comparator = comparator;
+        this.version = version;
+    }
+
+    /**
+     * Returns a set that holds the current version of this one. Takes O(1) time and copies nothing; later modifications
+     * of either set are not visible to the other one.
+     * @return  point-in-time copy of this set
+     */
+    public PersistentRedBlackTree<E> snapshot() {
+        return new PersistentRedBlackTree<>(comparator, version);
+    }
+
+    /**
+     * Returns the Comparator that orders the elements.
+     * @return  Comparator or null if the natural ordering is used
+     */
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Returns the number of elements.
+     * @return  number of stored elements
+     */
+    @Override
+    public int size() {
+        return version.size;
+    }
+
+    /**
+     * Returns root Node of the current version.
+     * @return  root Node, null if the set is empty
+     */
+    public Node<E> getRoot() {
+        return version.root;
+    }
+
+    /**
+     * Returns the black height of the current version, the number of black Nodes on any path from the root to a leaf.
+     * @return  black height
+     */
+    public int getBlackHeight() {
+        int height = 0;
+        for(Node<E> p = version.root; p != null; p = p.left)
+            if(p.colour == BLACK)
+                height++;
+        return height;
+    }
+
+    /**
+     * Returns whether the passed element is stored in the set.
+     * @param o element to look for
+     * @return  true if o is stored in the set
+     * @throws NullPointerException if o is null
+     * @throws ClassCastException if o cannot be compared with the elements of the set
+     */
+    @Override
+    public boolean contains(Object o) {
+        E e = castElement(o);
+        Node<E> p = version.root;
+        while(p != null) {
+            int cmp = compare(e, p.data);
+            if(cmp == 0)
+                return true;
+            p = cmp < 0 ? p.left : p.right;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the smallest element.
+     * @return  smallest element
+     * @throws NoSuchElementException if the set is empty
+     */
+    public E first() {
+        Node<E> p = version.root;
+        if(p == null)
+            throw new NoSuchElementException("PersistentRedBlackTree is empty.");
+        while(p.left != null)
+            p = p.left;
+        return p.data;
+    }
+
+    /**
+     * Returns the greatest element.
+     * @return  greatest element
+     * @throws NoSuchElementException if the set is empty
+     */
+    public E last() {
+        Node<E> p = version.root;
+        if(p == null)
+            throw new NoSuchElementException("PersistentRedBlackTree is empty.");
+        while(p.right != null)
+            p = p.right;
+        return p.data;
+    }
+
+    /**
+     * Inserts the passed element by copying its search path and publishes the new version.
+     * @param e element to insert
+     * @return  true if the element has been inserted, false if it was already stored
+     * @throws NullPointerException if e is null
+     */
+    @Override
+    public synchronized boolean add(E e) {
+        castElement(e);
+        Version<E> current = version;
+        Node<E> root = insert(current.root, e);
+        if(root == current.root)
+            return false;
+        version = new Version<>(blacken(root), current.size + 1);
+        return true;
+    }
+
+    /**
+     * Removes the passed element by copying its search path and publishes the new version.
+     * @param o element to remove
+     * @return  true if the element was stored and has been removed
+     * @throws NullPointerException if o is null
+     * @throws ClassCastException if o cannot be compared with the elements of the set
+     */
+    @Override
+    public synchronized boolean remove(Object o) {
+        E e = castElement(o);
+        Version<E> current = version;
+        Node<E> root = delete(current.root, e);
+        if(root == current.root)
+            return false;
+        version = new Version<>(blacken(root), current.size - 1);
+        return true;
+    }
+
+    /**
+     * Removes all elements by publishing an empty version. Snapshots taken before keep their elements.
+     */
+    @Override
+    public synchronized void clear() {
+        version = new Version<>(null, 0);
+    }
+
+    /**
+     * Returns an iterator over the current version in ascending order. remove() removes the element from the set, the
+     * iteration itself continues on the version it started with.
+     * @return  ascending iterator
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new VersionIterator(version.root, false);
+    }
+
+    /**
+     * Returns an iterator over the current version in descending order.
+     * @return  descending iterator
+     */
+    public Iterator<E> rIterator() {
+        return new VersionIterator(version.root, true);
+    }
+
+    /**
+     * Inserts e below p and returns the new root of the subtree. Black Nodes on the way back up are rebuilt by balance(),
+     * which replaces repairInsert(); a red father is left to its black grandfather. Returns p itself if e is already
+     * stored, so that nothing is copied.
+     * @param p root of the subtree
+     * @param e element to insert
+     * @return  new root of the subtree, possibly red with a red child
+     */
+    private Node<E> insert(Node<E> p, E e) {
+        if(p == null)
+            return new Node<>(null, e, null, RED);
+        int cmp = compare(e, p.data);
+        if(cmp < 0) {
+            Node<E> left = insert(p.left, e);
+            if(left == p.left)
+                return p;
+            return p.colour == RED ? new Node<>(left, p.data, p.right, RED) : balance(left, p.data, p.right);
+        } else if(cmp > 0) {
+            Node<E> right = insert(p.right, e);
+            if(right == p.right)
+                return p;
+            return p.colour == RED ? new Node<>(p.left, p.data, right, RED) : balance(p.left, p.data, right);
+        }
+        return p;
+    }
+
+    /**
+     * Deletes e below p and returns the new root of the subtree. If the subtree the element was removed from was black,
+     * its black height has dropped by one and balanceLeft() or balanceRight() restore it, which replaces repairDelete().
+     * Returns p itself if e is not stored.
+     * @param p root of the subtree
+     * @param e element to delete
+     * @return  new root of the subtree
+     */
+    private Node<E> delete(Node<E> p, E e) {
+        if(p == null)
+            return null;
+        int cmp = compare(e, p.data);
+        if(cmp < 0) {
+            Node<E> left = delete(p.left, e);
+            if(left == p.left)
+                return p;
+            return isBlack(p.left) ? balanceLeft(left, p.data, p.right) : new Node<>(left, p.data, p.right, RED);
+        } else if(cmp > 0) {
+            Node<E> right = delete(p.right, e);
+            if(right == p.right)
+                return p;
+            return isBlack(p.right) ? balanceRight(p.left, p.data, right) : new Node<>(p.left, p.data, right, RED);
+        }
+        return fuse(p.left, p.right);
+    }
+
+    /**
+     * Builds a black Node from the passed parts and resolves a red child with a red child below it by a rotation and
+     * recolouring. Both children red is resolved by recolouring only.
+     * @param a left subtree
+     * @param x element
+     * @param b right subtree
+     * @return  balanced subtree
+     */
+    private static <E> Node<E> balance(Node<E> a, E x, Node<E> b) {
+        if(isRed(a) && isRed(b)) {
+            // FALL 3
+            return red(blackCopy(a), x, blackCopy(b));
+        } else if(isRed(a) && isRed(a.left)) {
+            // FALL 4.3
+            return red(blackCopy(a.left), a.data, black(a.right, x, b));
+        } else if(isRed(a) && isRed(a.right)) {
+            // FALL 4.1
+            return red(black(a.left, a.data, a.right.left), a.right.data, black(a.right.right, x, b));
+        } else if(isRed(b) && isRed(b.right)) {
+            // FALL 4.4
+            return red(black(a, x, b.left), b.data, blackCopy(b.right));
+        } else if(isRed(b) && isRed(b.left)) {
+            // FALL 4.2
+            return red(black(a, x, b.left.left), b.left.data, black(b.left.right, b.data, b.right));
+        }
+        return black(a, x, b);
+    }
+
+    /**
+     * Rebuilds a Node whose left subtree has lost one black Node.
+     * @param a left subtree, one black Node short
+     * @param x element
+     * @param b right subtree
+     * @return  subtree with equal black heights
+     */
+    private static <E> Node<E> balanceLeft(Node<E> a, E x, Node<E> b) {
+        if(isRed(a)) {
+            return red(blackCopy(a), x, b);
+        } else if(isBlack(b)) {
+            return balance(a, x, redCopy(b));
+        } else if(isRed(b) && isBlack(b.left)) {
+            return red(black(a, x, b.left.left), b.left.data, balance(b.left.right, b.data, redCopy(b.right)));
+        }
+        throw new IllegalStateException("PersistentRedBlackTree is not balanced.");
+    }
+
+    /**
+     * Rebuilds a Node whose right subtree has lost one black Node.
+     * @param a left subtree
+     * @param x element
+     * @param b right subtree, one black Node short
+     * @return  subtree with equal black heights
+     */
+    private static <E> Node<E> balanceRight(Node<E> a, E x, Node<E> b) {
+        if(isRed(b)) {
+            return red(a, x, blackCopy(b));
+        } else if(isBlack(a)) {
+            return balance(redCopy(a), x, b);
+        } else if(isRed(a) && isBlack(a.right)) {
+            return red(balance(redCopy(a.left), a.data, a.right.left), a.right.data, black(a.right.right, x, b));
+        }
+        throw new IllegalStateException("PersistentRedBlackTree is not balanced.");
+    }
+
+    /**
+     * Joins the subtrees of a deleted Node, every element of a is smaller than every element of b. The result has the
+     * black height of the deleted Node's subtrees.
+     * @param a left subtree
+     * @param b right subtree
+     * @return  joined subtree
+     */
+    private static <E> Node<E> fuse(Node<E> a, Node<E> b) {
+        if(a == null)
+            return b;
+        if(b == null)
+            return a;
+        if(a.colour == RED && b.colour == RED) {
+            Node<E> middle = fuse(a.right, b.left);
+            if(isRed(middle))
+                return red(red(a.left, a.data, middle.left), middle.data, red(middle.right, b.data, b.right));
+            return red(a.left, a.data, red(middle, b.data, b.right));
+        } else if(a.colour == BLACK && b.colour == BLACK) {
+            Node<E> middle = fuse(a.right, b.left);
+            if(isRed(middle))
+                return red(black(a.left, a.data, middle.left), middle.data, black(middle.right, b.data, b.right));
+            return balanceLeft(a.left, a.data, black(middle, b.data, b.right));
+        } else if(b.colour == RED) {
+            return red(fuse(a, b.left), b.data, b.right);
+        }
+        return red(a.left, a.data, fuse(a.right, b));
+    }
+
+    /**
+     * Returns the passed Node coloured black, copying it only if it is red.
+     * @param p Node to colour, may be null
+     * @return  black Node or null
+     */
+    private static <E> Node<E> blacken(Node<E> p) {
+        return isRed(p) ? blackCopy(p) : p;
+    }
+
+    /**
+     * Returns whether the passed Node is a red Node.
+     * @param p Node to check, may be null
+     * @return  true if p is not null and red
+     */
+    private static boolean isRed(Node<?> p) {
+        return p != null && p.colour == RED;
+    }
+
+    /**
+     * Returns whether the passed Node is a black Node. Unlike a leaf, null does not count as black Node here.
+     * @param p Node to check, may be null
+     * @return  true if p is not null and black
+     */
+    private static boolean isBlack(Node<?> p) {
+        return p != null && p.colour == BLACK;
+    }
+
+    /**
+     * Creates a red Node.
+     * @param a left subtree
+     * @param x element
+     * @param b right subtree
+     * @return  new red Node
+     */
+    private static <E> Node<E> red(Node<E> a, E x, Node<E> b) {
+        return new Node<>(a, x, b, RED);
+    }
+
+    /**
+     * Creates a black Node.
+     * @param a left subtree
+     * @param x element
+     * @param b right subtree
+     * @return  new black Node
+     */
+    private static <E> Node<E> black(Node<E> a, E x, Node<E> b) {
+        return new Node<>(a, x, b, BLACK);
+    }
+
+    /**
+     * Returns a red copy of the passed Node.
+     * @param p Node to copy
+     * @return  red Node with the children and element of p
+     */
+    private static <E> Node<E> redCopy(Node<E> p) {
+        return red(p.left, p.data, p.right);
+    }
+
+    /**
+     * Returns a black copy of the passed Node.
+     * @param p Node to copy
+     * @return  black Node with the children and element of p
+     */
+    private static <E> Node<E> blackCopy(Node<E> p) {
+        return black(p.left, p.data, p.right);
+    }
+
+    /**
+     * Compares two elements with the Comparator of the set or their natural ordering.
+     * @param a first element
+     * @param b second element
+     * @return  negative, zero or positive as a is less than, equal to or greater than b
+     * @throws ClassCastException if the elements cannot be compared
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(E a, E b) {
+        return comparator == null ? ((Comparable<? super E>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    /**
+     * Casts the passed Object to the element type of the set.
+     * @param o element to cast
+     * @return  passed element as type E
+     * @throws NullPointerException if o is null
+     */
+    @SuppressWarnings("unchecked")
+    private E castElement(Object o) {
+        if(o == null)
+            throw new NullPointerException("PersistentRedBlackTree does not permit null elements.");
+        return (E) o;
+    }
+
+    /**
+     * In-order iterator over a single version. Keeps the not yet visited ancestors on a stack since Nodes have no father
+     * pointer.
+     */
+    private class VersionIterator implements Iterator<E> {
+        /**
+         * Nodes whose element and opposite subtree are still to visit.
+         */
+        private final ArrayDeque<Node<E>> stack = new ArrayDeque<>();
+        /**
+         * Whether the iterator walks in descending order.
+         */
+        private final boolean descending;
+        /**
+         * element returned by the last call to next(), null if there is none or it has been removed.
+         */
+        private E last;
+
+        /**
+         * Constructs an iterator over the subtree rooted at the passed Node.
+         * @param root  root of the version
+         * @param descending    true for descending order
+         */
+        VersionIterator(Node<E> root, boolean descending) {
+            this.descending = descending;
+            push(root);
+        }
+
+        /**
+         * Pushes the passed Node and all Nodes on its path towards the first element in iteration order.
+         * @param p Node to start from
+         */
+        private void push(Node<E> p) {
+            while(p != null) {
+                stack.push(p);
+                p = descending ? p.right : p.left;
+            }
+        }
+
+        /**
+         * Returns whether there are elements left.
+         * @return  true if next() returns an element
+         */
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        /**
+         * Returns the next element of the version.
+         * @return  next element
+         * @throws NoSuchElementException if there is none
+         */
+        @Override
+        public E next() {
+            if(stack.isEmpty())
+                throw new NoSuchElementException();
+            Node<E> p = stack.pop();
+            push(descending ? p.left : p.right);
+            last = p.data;
+            return last;
+        }
+
+        /**
+         * Removes the element returned by the last call to next() from the set.
+         * @throws IllegalStateException if next() has not been called or the element has already been removed
+         */
+        @Override
+        public void remove() {
+            if(last == null)
+                throw new IllegalStateException();
+            PersistentRedBlackTree.this.remove(last);
+            last = null;
+        }
+    }
+}
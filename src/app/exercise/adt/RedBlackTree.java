@@ -2,17 +2,35 @@ package app.exercise.adt;
 
 import app.exercise.visualtree.DrawableTreeElement;
 
-import java.util.AbstractCollection;
-import java.util.ArrayDeque;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
- * Class that implements a height balanced tree (a red-black-tree). Can be used for any type of Object E that implement Comparable"<"E">".
+ * Class that implements a height balanced tree (a red-black-tree). Can be used for any type of Object E that implement Comparable"<"E">",
+ * or for any type of Object if a Comparator is passed to the constructor.
+ * Implements NavigableSet, range views returned by subSet(), headSet(), tailSet() and descendingSet() are backed by the tree.
  * @author Alexander Wähling
  * @version 0.9
  */
-public class RedBlackTree<E extends Comparable<E>> extends AbstractCollection<E> {
+public class RedBlackTree<E> extends AbstractSet<E> implements NavigableSet<E> {
     /**
      *  boolean constant BLACK that stores the boolean value that represents the colour black (false)
      */
@@ -21,94 +39,78 @@ public class RedBlackTree<E extends Comparable<E>> extends AbstractCollection<E>
      *  boolean constant RED that stores the boolean value that represents the colour red (true)
      */
     private static final boolean RED = true;
+    /**
+     * Set operation codes used by SetOperation.
+     */
+    private static final int UNION = 0, INTERSECTION = 1, DIFFERENCE = 2;
+    /**
+     * Black height of the other tree's subtree above which a SetOperation forks its halves. Such a subtree holds
+     * at least 2^8 - 1 elements.
+     */
+    private static final int PARALLEL_HEIGHT = 8;
 
     /**
-     * inner Node-class that is used to as data containers for the red-black tree
+     * nested Node-class that is used to as data containers for the red-black tree. Nodes do not reference the tree they
+     * belong to and store their colour as a primitive, so every element costs exactly one Node object. All leafs of a tree
+     * are represented by the single {@link RedBlackTree#nil} sentinel of that tree.
      */
-    class Node implements DrawableTreeElement<E> {
+    static class Node<E> implements DrawableTreeElement<E> {
         /**
-         * Reference to the Node containing the left subtree (left meaning smaller by compareTo()
+         * Reference to the Node containing the left subtree (left meaning smaller by compare()
          */
-        Node left;
+        Node<E> left;
         /**
-         * Reference to the Node containing the right subtree (right meaning greater by compareTo()
+         * Reference to the Node containing the right subtree (right meaning greater by compare()
          */
-        Node right;
+        Node<E> right;
         /**
          * Reference to the parent Node
          */
-        Node father;
-        /**
-         * Boolean variable that is used to store the colour of an individual Node.
-         */
-        Boolean colour;
+        Node<E> father;
         /**
          * Variable of type E that stores the data inside the Node.
          */
         E data;
-
         /**
-         * default constructor creating a new Node object with colour = BLACK.
+         * Boolean variable that is used to store the colour of an individual Node.
          */
-        Node() {
-            colour = BLACK;
-        }
+        boolean colour;
 
         /**
-         * Constructs a new empty Node with colour black and sets it's father to the reference of the passed Node.
-         * @param father Node to set as father for instantiated one.
+         * default constructor creating a new Node object with colour = BLACK. Used for the anchor and the nil sentinel.
          */
-        Node(Node father) {
+        Node() {
             colour = BLACK;
-            this.father = father;
         }
 
         /**
-         * Construct a new Node that holds passed data, whose father is the passed Node. Colour is set to RED.
+         * Construct a new Node that holds passed data, whose father is the passed Node. Colour is set to RED and both
+         * children are set to the passed leaf sentinel.
          * @param data  data to store inside Node
          * @param father    Node to set as father for instantiated one
+         * @param nil   leaf sentinel of the tree the Node belongs to
          */
-        Node(E data, Node father) {
+        Node(E data, Node<E> father, Node<E> nil) {
             this.data = data;
             colour = RED;
             this.father = father;
-            left = new Node(this);
-            right = new Node(this);
+            left = nil;
+            right = nil;
         }
 
         /**
          * Returns colour of current Node object.
-         * @return colour of Node object. If colour = null, returns BLACK
+         * @return colour of Node object.
          */
         boolean getColour() {
-            return Boolean.TRUE.equals(colour);
-        }
-
-        /**
-         * Replaces current Node with the passed Node inside the tree by setting child variables and father variable of parent und passed
-         * Node respectively. Should only be called on Nodes with no childs except Null leafs.
-         * @param p Node to replace current one with
-         * @return reference to Node that replaced current one
-         */
-        Node replaceWith(Node p) {
-            p.father = father;
-            if(this == father.left) {
-                father.left = p;
-            } else {
-                father.right = p;
-            }
-            if(this == root) {
-                setAnchor(p);
-                root = p;
-            }
-            return p;
+            return colour;
         }
 
         /**
-         * Returns brother of current Node. Can be Null-Data Leaf.
+         * Returns brother of current Node. Can be the nil leaf.
          * @return brother of current Node.
          */
-        Node getBrother() {
+        Node<E> getBrother() {
             if(this == father.left)
                 return father.right;
             else
@@ -118,80 +120,29 @@ public class RedBlackTree<E extends Comparable<E>> extends AbstractCollection<E>
          * Returns grandfather of current Node.
          * @return grandfather of current Node.
          */
-        Node getGrandfather() {
+        Node<E> getGrandfather() {
             if(father != null)
                 return father.father;
             else
                 return null;
         }
         /**
-         * Returns uncle of current Node. Can be Null-Data Leaf.
+         * Returns uncle of current Node. Can be the nil leaf.
          * @return uncle of current Node.
          */
-        Node getUncle() {
+        Node<E> getUncle() {
             if (father == getGrandfather().left)
                 return getGrandfather().right;
             else
                 return getGrandfather().left;
         }
 
-        /**
-         * Inserts data into tree with current Node as root by recursively calling insert() and after completed insertions
-         * calls repairInsert() to repair properties of red-black-tree
-         * @param data  data to be inserted into tree
-         * @throws DuplicateElementException in case data to be inserted is already stored in tree.
-         */
-        void insert(E data) {
-            if(this.data == null) {
-                // can only be the case if it's the first piece of data to be inserted
-                root = new Node(data, anchor);
-            } else if (this.data.compareTo(data) == 0) {
-                throw new DuplicateElementException(data + " Cannot store duplicate elements.");
-            } else if (data.compareTo(this.data) < 0) {
-                // if left Node is a leaf, replace leaf with leafed Node containing data
-                if(left.data == null) {
-                    left = new Node(data, this);
-                    repairInsert(left);
-                } else {
-                    left.insert(data);
-                }
-            } else {
-                if(right.data == null) {
-                    right = new Node(data, this);
-                    repairInsert(right);
-                } else {
-                    right.insert(data);
-                }
-            }
-        }
-
-        /**
-         * Checks if passed data is already stored in tree by recursively calling contains() on child Nodes depending on the result of this.data.compareTo(data).
-         * @param data  data to be checked if it's inside the tree
-         * @return  true if data is present in tree, false otherwise
-         */
-        boolean contains(E data) {
-            if(this.data != null) {
-                if(this.data.compareTo(data) == 0) {
-                    return true;
-                } else if(data.compareTo(this.data) < 0) {
-                    return left.contains(data);
-                } else if(data.compareTo(this.data) > 0) {
-                    return right.contains(data);
-                } else {
-                    return false;
-                }
-            } else {
-                return false;
-            }
-        }
-
         /**
          * Returns left child of current Node.
          * @return left child
          */
         @Override
-        public Node getLeft() {
+        public Node<E> getLeft() {
             return left;
         }
         /**
@@ -199,7 +150,7 @@ public class RedBlackTree<E extends Comparable<E>> extends AbstractCollection<E>
          * @return right child
          */
         @Override
-        public Node getRight() {
+        public Node<E> getRight() {
             return right;
         }
 
@@ -225,30 +176,384 @@ public class RedBlackTree<E extends Comparable<E>> extends AbstractCollection<E>
 
 
 
+    /**
+     * Node that additionally stores the number of Nodes in the subtree it is the root of and the multiplicity of its data.
+     * Only used by trees that maintain order statistics or count duplicates, so other trees keep the smaller Node layout.
+     */
+    static final class CountedNode<E> extends Node<E> {
+        /**
+         * Number of data holding Nodes in the subtree rooted at this Node, including this Node.
+         */
+        int count;
+        /**
+         * Number of times the data has been added, if the tree uses {@link DuplicatePolicy#COUNT}.
+         */
+        int multiplicity;
+
+        /**
+         * Construct a new CountedNode that holds passed data, whose father is the passed Node. Count and multiplicity are set to 1.
+         * @param data  data to store inside Node
+         * @param father    Node to set as father for instantiated one
+         * @param nil   leaf sentinel of the tree the Node belongs to
+         */
+        CountedNode(E data, Node<E> father, Node<E> nil) {
+            super(data, father, nil);
+            count = 1;
+            multiplicity = 1;
+        }
+    }
+
     /*-----------------------------------------------------------------------------------------------------------------*/
 
 
     /**
      * anchor always points to root. Does not hold any data.
      */
-    private Node anchor;
+    private Node<E> anchor;
     /**
      * Reference to the current root of the red black tree.
      */
-    private Node root;
+    private Node<E> root;
     /**
      * Keeps track of the current size of the red black tree.
      */
     private int size = 0;
+    /**
+     * Number of structural modifications of the tree. Used by iterators to detect concurrent modifications.
+     */
+    private int modCount = 0;
+    /**
+     * Sentinel that represents every leaf of this tree. Always black and never holds data. Its father reference is only
+     * meaningful while a deletion is being repaired.
+     */
+    private final Node<E> nil;
+    /**
+     * Whether every Node stores the size of its subtree, which enables select(), rank() and count() in O(log n).
+     */
+    private final boolean orderStatistics;
+    /**
+     * Determines how add() reacts to elements that are already stored in the tree.
+     */
+    private final DuplicatePolicy duplicatePolicy;
+    /**
+     * Comparator that orders the elements of the tree, null if the natural ordering of the elements is used.
+     */
+    private final Comparator<? super E> comparator;
+    /**
+     * Memory mapped snapshot the tree has been opened from, as long as no heap Nodes have been created for it. null otherwise.
+     */
+    private MappedSnapshot<E> snapshot;
+    /**
+     * Log every modification is appended to, null if modifications are not logged.
+     */
+    private WriteAheadLog<E> log;
+    /**
+     * Instrumentation the tree reports to, null if the tree is not instrumented.
+     */
+    private TreeMetrics metrics;
 
     /**
      * Default constructor that initializes a new RedBlackTree by properly creating and setting the anchor and root Nodes.
+     * The tree orders its elements by their natural ordering and does not maintain order statistics.
      */
     public RedBlackTree() {
-        anchor = new Node();
-        root = new Node(anchor);
-        anchor.left = root;
-        anchor.right = root;
+        this(false);
+    }
+
+    /**
+     * Constructor that initializes a new RedBlackTree by properly creating and setting the anchor and root Nodes.
+     * If orderStatistics is true, every Node additionally stores the size of its subtree, which costs one int per element
+     * and enables {@link #select(int)}, {@link #rank(Object)} and {@link #count(Object, Object)} in O(log n).
+     * @param orderStatistics whether the tree maintains subtree sizes
+     */
+    public RedBlackTree(boolean orderStatistics) {
+        this(orderStatistics, DuplicatePolicy.THROW);
+    }
+
+    /**
+     * Constructor that initializes a new RedBlackTree that handles duplicates according to the passed policy. The tree
+     * does not maintain order statistics.
+     * @param duplicatePolicy   how add() reacts to elements that are already stored in the tree
+     */
+    public RedBlackTree(DuplicatePolicy duplicatePolicy) {
+        this(false, duplicatePolicy);
+    }
+
+    /**
+     * Constructor that initializes a new RedBlackTree by properly creating and setting the anchor and root Nodes.
+     * @param orderStatistics whether the tree maintains subtree sizes
+     * @param duplicatePolicy   how add() reacts to elements that are already stored in the tree
+     * @throws NullPointerException if duplicatePolicy is null
+     */
+    public RedBlackTree(boolean orderStatistics, DuplicatePolicy duplicatePolicy) {
+        this(null, orderStatistics, duplicatePolicy);
+    }
+
+    /**
+     * Constructor that initializes a new RedBlackTree that orders its elements by the passed Comparator. The tree does not
+     * maintain order statistics.
+     * @param comparator    Comparator that orders the elements, null for their natural ordering
+     */
+    public RedBlackTree(Comparator<? super E> comparator) {
+        this(comparator, false, DuplicatePolicy.THROW);
+    }
+
+    /**
+     * Constructor that initializes a new RedBlackTree by properly creating and setting the anchor and root Nodes.
+     * @param comparator    Comparator that orders the elements, null for their natural ordering
+     * @param orderStatistics whether the tree maintains subtree sizes
+     * @param duplicatePolicy   how add() reacts to elements that are already stored in the tree
+     * @throws NullPointerException if duplicatePolicy is null
+     */
+    public RedBlackTree(Comparator<? super E> comparator, boolean orderStatistics, DuplicatePolicy duplicatePolicy) {
+        if(duplicatePolicy == null)
+            throw new NullPointerException("Duplicate policy cannot be null.");
+        this.comparator = comparator;
+        this.orderStatistics = orderStatistics;
+        this.duplicatePolicy = duplicatePolicy;
+        nil = new Node<>();
+        anchor = new Node<>();
+        root = nil;
+        setAnchor(root);
+    }
+
+    /**
+     * Constructor for {@link #split(Object)} that initializes an empty RedBlackTree with the ordering, order statistics
+     * and duplicate policy of the passed tree and the passed nil sentinel, so Nodes can be moved between both trees as
+     * they are.
+     * @param tree  tree to take the settings from
+     * @param nil   leaf sentinel to share
+     */
+    private RedBlackTree(RedBlackTree<E> tree, Node<E> nil) {
+        comparator = tree.comparator;
+        orderStatistics = tree.orderStatistics;
+        duplicatePolicy = tree.duplicatePolicy;
+        this.nil = nil;
+        anchor = new Node<>();
+        root = nil;
+        setAnchor(root);
+    }
+
+    /**
+     * Constructor that initializes a new RedBlackTree holding the elements of the passed SortedSet and using its ordering.
+     * Since the elements are already sorted, the tree is built bottom-up in linear time by {@link #loadSorted(Iterator, int)}.
+     * @param s SortedSet whose elements are stored in the new tree
+     * @throws NullPointerException if s or one of its elements is null
+     */
+    public RedBlackTree(SortedSet<E> s) {
+        this(s.comparator());
+        load(s);
+    }
+
+    /**
+     * Constructor that initializes a new RedBlackTree holding the elements of the passed Collection. The elements are
+     * sorted first, afterwards the tree is built bottom-up in linear time by {@link #loadSorted(Iterator, int)}.
+     * @param c Collection whose elements are stored in the new tree
+     * @throws NullPointerException if c or one of its elements is null
+     * @throws DuplicateElementException if c contains equivalent elements
+     */
+    public RedBlackTree(Collection<? extends E> c) {
+        this();
+        load(c);
+    }
+
+    /**
+     * Builds the tree from the elements of the passed Collection. SortedSets with the same ordering as the tree are loaded
+     * directly, all other Collections are copied into an array and sorted before loading.
+     * @param c Collection whose elements are stored in the tree
+     * @throws IllegalStateException if the tree is not empty
+     * @throws NullPointerException if c or one of its elements is null
+     * @throws DuplicateElementException if c contains equivalent elements
+     */
+    @SuppressWarnings("unchecked")
+    public void load(Collection<? extends E> c) {
+        if(c instanceof SortedSet && Objects.equals(((SortedSet<?>) c).comparator(), comparator)) {
+            loadSorted(c.iterator(), c.size());
+        } else {
+            Object[] sorted = c.toArray();
+            Arrays.sort(sorted, (a, b) -> compare((E) a, (E) b));
+            loadSorted(((List<E>) (List<?>) Arrays.asList(sorted)).iterator(), sorted.length);
+        }
+    }
+
+    /**
+     * Builds the tree from the passed array, which has to be sorted in strictly ascending order.
+     * @param sorted    elements to store in the tree in ascending order
+     * @throws IllegalStateException if the tree is not empty
+     * @throws NullPointerException if one of the elements is null
+     * @throws IllegalArgumentException if the elements are not sorted
+     * @throws DuplicateElementException if the array contains equivalent elements
+     */
+    public void loadSorted(E[] sorted) {
+        loadSorted(Arrays.asList(sorted).iterator(), sorted.length);
+    }
+
+    /**
+     * Builds the tree from the first size elements of the passed Iterator, which has to return them in strictly ascending
+     * order. The tree is built bottom-up in O(n) without any rotations: it is a complete binary tree whose Nodes are all
+     * black, except for the Nodes on the lowest level if that level is not full. The tree is only changed if all elements
+     * could be loaded and, if a log is attached, logged; the tree is emptied again if the record can not be appended.
+     * @param it    Iterator returning the elements in ascending order
+     * @param size  number of elements to take from the Iterator
+     * @throws IllegalStateException if the tree is not empty
+     * @throws NullPointerException if one of the elements is null
+     * @throws IllegalArgumentException if the elements are not sorted
+     * @throws DuplicateElementException if the Iterator returns equivalent elements
+     * @throws NoSuchElementException if the Iterator returns less than size elements
+     */
+    public void loadSorted(Iterator<? extends E> it, int size) {
+        if(this.size != 0)
+            throw new IllegalStateException("Can only load elements into an empty RedBlackTree.");
+        if(size < 0)
+            throw new IllegalArgumentException("Negative size: " + size);
+        buildSorted(it, size);
+        if(log != null) {
+            try {
+                log.addedAll(this);
+            } catch (RuntimeException e) {
+                reset();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Replaces the content of the tree with the first size elements of the passed Iterator, which have to be sorted.
+     * @param it    Iterator returning the elements in ascending order
+     * @param size  number of elements to take from the Iterator
+     */
+    private void buildSorted(Iterator<? extends E> it, int size) {
+        int redLevel = 31 - Integer.numberOfLeadingZeros(size + 1);
+        List<E> previous = new ArrayList<>(1);
+        previous.add(null);
+        Node<E> top = buildFromSorted(0, 0, size - 1, redLevel, it, previous);
+        modCount++;
+        snapshot = null;
+        root = top;
+        setAnchor(root);
+        this.size = size;
+        if(metrics != null)
+            metrics.rebuilt(32 - Integer.numberOfLeadingZeros(size));
+    }
+
+    /**
+     * Recursively builds the subtree holding the elements lo to hi of the sorted input. The left subtree is built first,
+     * so the elements are taken from the Iterator in ascending order.
+     * @param level depth of the subtree root, starting at 0
+     * @param lo    index of the first element of the subtree
+     * @param hi    index of the last element of the subtree
+     * @param redLevel  depth of the incomplete lowest level, whose Nodes are coloured red
+     * @param it    Iterator returning the elements
+     * @param previous  holds the last element taken from the Iterator to check the order
+     * @return  root of the subtree, nil if the subtree is empty
+     */
+    private Node<E> buildFromSorted(int level, int lo, int hi, int redLevel, Iterator<? extends E> it, List<E> previous) {
+        if(hi < lo)
+            return nil;
+        int mid = (lo + hi) >>> 1;
+        Node<E> left = buildFromSorted(level + 1, lo, mid - 1, redLevel, it, previous);
+
+        E data = it.next();
+        if(data == null)
+            throw new NullPointerException("Cannot store null elements.");
+        E last = previous.get(0);
+        if(last != null) {
+            int cmp = compare(last, data);
+            if(cmp == 0)
+                throw new DuplicateElementException(data + " Cannot store duplicate elements.");
+            if(cmp > 0)
+                throw new IllegalArgumentException("Elements are not sorted: " + data + " follows " + last);
+        }
+        previous.set(0, data);
+
+        Node<E> middle = newNode(data, null);
+        middle.colour = level == redLevel ? RED : BLACK;
+        middle.left = left;
+        if(left != nil)
+            left.father = middle;
+        middle.right = buildFromSorted(level + 1, mid + 1, hi, redLevel, it, previous);
+        if(middle.right != nil)
+            middle.right.father = middle;
+        if(orderStatistics)
+            ((CountedNode<E>) middle).count = hi - lo + 1;
+        return middle;
+    }
+
+    /**
+     * Writes the elements of the tree to the passed file in the snapshot format of {@link MappedSnapshot}: the encoded
+     * elements in the order of the tree followed by one colour bit per element. The file can be opened again with
+     * {@link #mapSnapshot(Path, KeyCodec)}. An existing file is replaced atomically, so a tree can write a snapshot to
+     * the file it has been mapped from.
+     * @param file  file to write, an existing file is replaced
+     * @param codec codec that encodes the elements, its order has to match the natural ordering if the tree has no
+     * Comparator
+     * @throws IOException if the file can not be written
+     * @throws UnsupportedOperationException if the tree uses {@link DuplicatePolicy#COUNT}, since multiplicities are not stored
+     */
+    public void writeSnapshot(Path file, KeyCodec<E> codec) throws IOException {
+        if(duplicatePolicy == DuplicatePolicy.COUNT)
+            throw new UnsupportedOperationException("Snapshots do not store multiplicities.");
+        MappedSnapshot.write(file, iterator(), size, codec);
+    }
+
+    /**
+     * Opens the passed snapshot file as content of this tree. The file is memory mapped, so this costs O(1): contains(),
+     * first(), last(), size() and iteration run directly on the mapped file. All other operations, in particular the first
+     * modification, create the heap Nodes from the snapshot in O(n) first. Since the colours are stored in the file, the
+     * Nodes are linked without any repairs.
+     * @param file  snapshot file written by {@link #writeSnapshot(Path, KeyCodec)} of a tree with the same ordering
+     * @param codec codec the snapshot has been written with
+     * @throws IOException if the file can not be read or is not a valid snapshot
+     * @throws IllegalStateException if the tree is not empty
+     * @throws UnsupportedOperationException if the tree uses {@link DuplicatePolicy#COUNT}
+     */
+    public void mapSnapshot(Path file, KeyCodec<E> codec) throws IOException {
+        if(this.size != 0)
+            throw new IllegalStateException("Can only map a snapshot into an empty RedBlackTree.");
+        if(duplicatePolicy == DuplicatePolicy.COUNT)
+            throw new UnsupportedOperationException("Snapshots do not store multiplicities.");
+        MappedSnapshot<E> mapped = MappedSnapshot.map(file, codec);
+        modCount++;
+        snapshot = mapped;
+        size = mapped.size();
+    }
+
+    /**
+     * Creates the heap Nodes for the snapshot the tree has been opened from, if that has not been done yet.
+     */
+    private void materialize() {
+        if(snapshot == null)
+            return;
+        MappedSnapshot<E> mapped = snapshot;
+        snapshot = null;
+        root = buildFromSnapshot(mapped, 0, size - 1);
+        setAnchor(root);
+        if(metrics != null)
+            metrics.rebuilt(32 - Integer.numberOfLeadingZeros(size));
+    }
+
+    /**
+     * Recursively builds the subtree holding the elements lo to hi of the snapshot with the colours stored in the snapshot.
+     * @param mapped    snapshot to read from
+     * @param lo    index of the first element of the subtree
+     * @param hi    index of the last element of the subtree
+     * @return  root of the subtree, nil if the subtree is empty
+     */
+    private Node<E> buildFromSnapshot(MappedSnapshot<E> mapped, int lo, int hi) {
+        if(hi < lo)
+            return nil;
+        int mid = (lo + hi) >>> 1;
+        Node<E> middle = newNode(mapped.get(mid), null);
+        middle.colour = mapped.isRed(mid) ? RED : BLACK;
+        middle.left = buildFromSnapshot(mapped, lo, mid - 1);
+        if(middle.left != nil)
+            middle.left.father = middle;
+        middle.right = buildFromSnapshot(mapped, mid + 1, hi);
+        if(middle.right != nil)
+            middle.right.father = middle;
+        if(orderStatistics)
+            ((CountedNode<E>) middle).count = hi - lo + 1;
+        return middle;
     }
 
     /**
@@ -256,8 +561,9 @@ public class RedBlackTree<E extends Comparable<E>> extends AbstractCollection<E>
      * @return black height if the tree
      */
     public int getBlackHeight() {
+        materialize();
         int depth = 0;
-        Node pointer = root;
+        Node<E> pointer = root;
         do {
             if(pointer.getColour() == BLACK)
                 depth++;
@@ -270,7 +576,8 @@ public class RedBlackTree<E extends Comparable<E>> extends AbstractCollection<E>
      * Returns current root of the tree.
      * @return root of tree
      */
-    public Node getRoot() {
+    public Node<E> getRoot() {
+        materialize();
         return root;
     }
 
@@ -279,9 +586,9 @@ public class RedBlackTree<E extends Comparable<E>> extends AbstractCollection<E>
      * @param p Node to find closest Node to
      * @return closest Node in ascending order from p
      */
-    private Node getClosestNode(Node p) {
-        Node curr = p.right;
-        while (curr.left.data != null)
+    private Node<E> getClosestNode(Node<E> p) {
+        Node<E> curr = p.right;
+        while (curr.left != nil)
             curr = curr.left;
         return curr;
     }
@@ -290,19 +597,245 @@ public class RedBlackTree<E extends Comparable<E>> extends AbstractCollection<E>
      * @param p Node to find closest Node to
      * @return closest Node in descending order from p
      */
-    private Node rGetClosestNode(Node p) {
-        Node curr = p.left;
-        while(curr.right.data != null)
+    private Node<E> rGetClosestNode(Node<E> p) {
+        Node<E> curr = p.left;
+        while(curr.right != nil)
             curr = curr.right;
         return curr;
     }
 
+    /**
+     * Returns the in-order successor of the passed Node by following the father links, if the Node has no right subtree.
+     * @param p Node to find the successor of
+     * @return successor of p or null if p holds the maximum
+     */
+    private Node<E> successor(Node<E> p) {
+        if(p.right != nil)
+            return getClosestNode(p);
+        Node<E> father = p.father;
+        while(father != anchor && p == father.right) {
+            p = father;
+            father = father.father;
+        }
+        return father == anchor ? null : father;
+    }
+
+    /**
+     * Returns the in-order predecessor of the passed Node by following the father links, if the Node has no left subtree.
+     * @param p Node to find the predecessor of
+     * @return predecessor of p or null if p holds the minimum
+     */
+    private Node<E> predecessor(Node<E> p) {
+        if(p.left != nil)
+            return rGetClosestNode(p);
+        Node<E> father = p.father;
+        while(father != anchor && p == father.left) {
+            p = father;
+            father = father.father;
+        }
+        return father == anchor ? null : father;
+    }
+
+    /**
+     * Returns the Node with the least data greater than (or equal to, if inclusive) the passed data.
+     * @param data  data to compare with
+     * @param inclusive whether a Node holding data itself may be returned
+     * @return  ceiling Node or null if there is none
+     */
+    private Node<E> ceilingNode(E data, boolean inclusive) {
+        materialize();
+        Node<E> curr = root;
+        Node<E> best = null;
+        while(curr != nil) {
+            int cmp = compare(data, curr.data);
+            if(cmp == 0 && inclusive)
+                return curr;
+            if(cmp < 0) {
+                best = curr;
+                curr = curr.left;
+            } else {
+                curr = curr.right;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the Node with the greatest data less than (or equal to, if inclusive) the passed data.
+     * @param data  data to compare with
+     * @param inclusive whether a Node holding data itself may be returned
+     * @return  floor Node or null if there is none
+     */
+    private Node<E> floorNode(E data, boolean inclusive) {
+        materialize();
+        Node<E> curr = root;
+        Node<E> best = null;
+        while(curr != nil) {
+            int cmp = compare(data, curr.data);
+            if(cmp == 0 && inclusive)
+                return curr;
+            if(cmp > 0) {
+                best = curr;
+                curr = curr.right;
+            } else {
+                curr = curr.left;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Inserts data into the tree by descending iteratively from the passed Node with one compare() call per level and after
+     * completed insertion calls repairInsert() to repair properties of red-black-tree. Apart from the new Node nothing is allocated.
+     * Increases size if data has been inserted, which is how callers tell an insertion from a duplicate.
+     * @param start Node to start the descent from, either the root or a Node whose subtree must hold data
+     * @param data  data to be inserted into tree
+     * @return  the new Node holding data, or the Node already holding an element equivalent to data
+     */
+    private Node<E> insert(Node<E> start, E data) {
+        Node<E> father = anchor;
+        Node<E> curr = start;
+        int cmp = 0;
+        while(curr != nil) {
+            cmp = compare(data, curr.data);
+            if(cmp == 0)
+                return curr;
+            father = curr;
+            curr = cmp < 0 ? curr.left : curr.right;
+        }
+        if(father == anchor)
+            // nothing has been compared yet, make sure that the first element can be compared at all
+            compare(data, data);
+        Node<E> p = newNode(data, father);
+        if(orderStatistics) {
+            for(Node<E> q = father; q != anchor; q = q.father)
+                ((CountedNode<E>) q).count++;
+        }
+        if(father == anchor) {
+            // can only be the case if it's the first piece of data to be inserted
+            root = p;
+            setAnchor(root);
+        } else if(cmp < 0) {
+            father.left = p;
+        } else {
+            father.right = p;
+        }
+        size++;
+        modCount++;
+        repairInsert(p);
+        if(metrics != null)
+            metrics.inserted(depthOf(p));
+        return p;
+    }
+
+    /**
+     * Returns the Node to start the insertion of data from, given that data is greater than the data of the passed finger
+     * Node. Climbs from the finger towards the root until the subtree of the current Node is bounded above by data,
+     * so consecutive insertions of ascending data only descend the part of the tree between them.
+     * @param finger    Node that holds data smaller than the passed data
+     * @param data  data that is about to be inserted
+     * @return  Node whose subtree must hold data
+     */
+    private Node<E> climb(Node<E> finger, E data) {
+        Node<E> curr = finger;
+        while(curr != root) {
+            if(curr == curr.father.left && compare(data, curr.father.data) < 0)
+                return curr;
+            curr = curr.father;
+        }
+        return root;
+    }
+
+    /**
+     * Creates a new red Node holding the passed data. Returns a CountedNode if the tree maintains order statistics or
+     * counts duplicates.
+     * @param data  data to store inside Node
+     * @param father    Node to set as father for instantiated one
+     * @return  new Node
+     */
+    private Node<E> newNode(E data, Node<E> father) {
+        if(orderStatistics || duplicatePolicy == DuplicatePolicy.COUNT)
+            return new CountedNode<>(data, father, nil);
+        return new Node<>(data, father, nil);
+    }
+
+    /**
+     * Returns the number of Nodes in the subtree rooted at the passed Node. Only valid if the tree maintains order statistics.
+     * @param p root of the subtree
+     * @return  size of the subtree, 0 for the nil leaf
+     */
+    private int count(Node<E> p) {
+        return p == nil ? 0 : ((CountedNode<E>) p).count;
+    }
+
+    /**
+     * Returns the number of Nodes in front of the passed one by walking up the father links and adding the subtree sizes
+     * of the left siblings. Requires order statistics.
+     * @param p Node to rank
+     * @return  number of elements less than the data of p
+     */
+    private int rankOf(Node<E> p) {
+        int rank = count(p.left);
+        for(Node<E> father = p.father; father != anchor; p = father, father = father.father)
+            if(p == father.right)
+                rank += count(father.left) + 1;
+        return rank;
+    }
+
+    /**
+     * Recomputes the subtree size stored in the passed Node from its children.
+     * @param p Node to update
+     */
+    private void updateCount(Node<E> p) {
+        ((CountedNode<E>) p).count = count(p.left) + count(p.right) + 1;
+    }
+
+    /**
+     * Returns the Node that stores data equal to the passed data by descending iteratively from the root with one
+     * compare() call per level.
+     * @param data  data to look for
+     * @return  Node holding data or the nil leaf if data is not stored in the tree
+     */
+    private Node<E> getNode(E data) {
+        materialize();
+        Node<E> curr = root;
+        while(curr != nil) {
+            int cmp = compare(data, curr.data);
+            if(cmp == 0)
+                return curr;
+            curr = cmp < 0 ? curr.left : curr.right;
+        }
+        return nil;
+    }
+
+    /**
+     * Replaces passed Node p with the passed Node q inside the tree by setting child variables and father variable of parent und passed
+     * Node respectively. Should only be called on Nodes with no childs except nil leafs. If q is the nil sentinel, its father is
+     * set to the father of p so that repairDelete() can start from it.
+     * @param p Node to be replaced
+     * @param q Node to replace p with
+     * @return reference to Node that replaced p
+     */
+    private Node<E> replaceWith(Node<E> p, Node<E> q) {
+        q.father = p.father;
+        if(p == p.father.left) {
+            p.father.left = q;
+        } else {
+            p.father.right = q;
+        }
+        if(p == root) {
+            setAnchor(q);
+            root = q;
+        }
+        return q;
+    }
+
     /**
      * sets the child references of the anchor to the passed Node, as well as the father reference of the passed Node to anchor. The passed
      * Node should always be the root of the RedBlackTree
      * @param root Node that anchor should point to.
      */
-    private void setAnchor(Node root) {
+    private void setAnchor(Node<E> root) {
         anchor.left = root;
         anchor.right = root;
         root.father = anchor;
@@ -311,7 +844,7 @@ public class RedBlackTree<E extends Comparable<E>> extends AbstractCollection<E>
     /**
      * swaps the colours of the two passed Node objects
      */
-    private void swapColours(Node o, Node p) {
+    private void swapColours(Node<E> o, Node<E> p) {
         boolean clr = o.getColour();
         o.colour = p.getColour();
         p.colour = clr;
@@ -321,13 +854,15 @@ public class RedBlackTree<E extends Comparable<E>> extends AbstractCollection<E>
      * Repairs the properties of the RedBlackTree after insertion.
      * @param p problematic Node to start repair from
      */
-    private void repairInsert(Node p) {
+    private void repairInsert(Node<E> p) {
         if(p != root && p.father.colour != BLACK) {
             if(p.father == root && root.colour == RED) {
                 // FALL 2
+                countRepair(TreeMetrics.RepairCase.INSERT_2);
                 root.colour = BLACK;
             } else if(p.getGrandfather().left.colour == RED && p.getGrandfather().right.colour == RED) {
                 // FALL 3
+                countRepair(TreeMetrics.RepairCase.INSERT_3);
                 p.getGrandfather().colour = RED;
                 p.getGrandfather().left.colour = BLACK;
                 p.getGrandfather().right.colour = BLACK;
@@ -336,18 +871,22 @@ public class RedBlackTree<E extends Comparable<E>> extends AbstractCollection<E>
                 // FALL 4
                 if (p.father == p.getGrandfather().left && p == p.father.right) {
                     // FALL 4.1
+                    countRepair(TreeMetrics.RepairCase.INSERT_4_1);
                     leftRotate(p.father);
                     repairInsert(p.left);
                 } else if (p.father == p.getGrandfather().right && p == p.father.left) {
                     // FALL 4.2
+                    countRepair(TreeMetrics.RepairCase.INSERT_4_2);
                     rightRotate(p.father);
                     repairInsert(p.right);
                 } else if (p.father == p.getGrandfather().left && p == p.father.left) {
                     // FALL 4.3
+                    countRepair(TreeMetrics.RepairCase.INSERT_4_3);
                     swapColours(p.father, p.getGrandfather());
                     rightRotate(p.getGrandfather());
                 } else if (p.father == p.getGrandfather().right && p == p.father.right) {
                     // FALL 4.4
+                    countRepair(TreeMetrics.RepairCase.INSERT_4_4);
                     swapColours(p.father, p.getGrandfather());
                     leftRotate(p.getGrandfather());
                 }
@@ -359,31 +898,39 @@ public class RedBlackTree<E extends Comparable<E>> extends AbstractCollection<E>
      * Detes passed Node from RedBlackTree. Calls repairDelete() after insertion to restore the properties of the RedBlackTree.
      * @param p Node to delete from tree.
      */
-    private void delete(Node p) {
-        if(p.left.data == null && p.right.data == null) {
+    private void delete(Node<E> p) {
+        modCount++;
+        if(orderStatistics && (p.left == nil || p.right == nil)) {
+            // p is removed from the tree in FALL 1 and FALL 2, so every ancestor loses one Node
+            for(Node<E> q = p.father; q != anchor; q = q.father)
+                ((CountedNode<E>) q).count--;
+        }
+        if(p.left == nil && p.right == nil) {
             // FALL 1
             boolean clr = p.colour;
-            Node probl = p.replaceWith(new Node(p.father));
+            Node<E> probl = replaceWith(p, nil);
             if(clr == BLACK)
                 repairDelete(probl);
-        } else if(p.left.data == null ^ p.right.data == null) {
+        } else if(p.left == nil ^ p.right == nil) {
             // FALL 2
-            if(p.left.data == null) {
+            if(p.left == nil) {
                 boolean clr = p.colour;
-                Node probl = p.replaceWith(p.right);
+                Node<E> probl = replaceWith(p, p.right);
                 if(clr == BLACK)
                     repairDelete(probl);
             } else {
                 boolean clr = p.colour;
-                Node probl = p.replaceWith(p.left);
+                Node<E> probl = replaceWith(p, p.left);
                 if(clr == BLACK)
                     repairDelete(probl);
             }
         } else {
             // FALL 3
             // no child is leaf
-            Node closest = getClosestNode(p);
+            Node<E> closest = getClosestNode(p);
             p.data = closest.data;
+            if(duplicatePolicy == DuplicatePolicy.COUNT)
+                ((CountedNode<E>) p).multiplicity = ((CountedNode<E>) closest).multiplicity;
             delete(closest);
         }
 
@@ -394,31 +941,37 @@ public class RedBlackTree<E extends Comparable<E>> extends AbstractCollection<E>
      * Restores properties of the RedBlackTree after a deletion.
      * @param p problematic Node to start repair from.
      */
-    private void repairDelete(Node p) {
-        if(p != root) {
+    private void repairDelete(Node<E> p) {
+        // a red root still has to be recoloured, otherwise FALL 1.2 / 2.2 could leave it red above a red child
+        if(p != root || p.getColour() == RED) {
             if (p.getColour() == RED) {
                 // Schleifenanfang 1.
+                countRepair(TreeMetrics.RepairCase.DELETE_RED);
                 p.colour = BLACK;
             } else if(p == p.father.left) {
                 // FALL 1
                 if(p.getBrother().getColour() == RED) {
                     // FALL 1.1
+                    countRepair(TreeMetrics.RepairCase.DELETE_1_1);
                     p.getBrother().colour = BLACK;
                     p.father.colour = RED;
                     leftRotate(p.father);
                 }
                 if(p.getBrother().right != null && p.getBrother().left != null && p.getBrother().right.getColour() == BLACK && p.getBrother().left.getColour() == BLACK) {
                     // FALL 1.2 return to Schleifenanfang
+                    countRepair(TreeMetrics.RepairCase.DELETE_1_2);
                     p.getBrother().colour = RED;
                     repairDelete(p.father);
                 } else {
-                    if(p.getBrother().left.getColour() == RED) {
-                        // FALL 1.3
+                    if(p.getBrother().right.getColour() == BLACK) {
+                        // FALL 1.3 only the inner nephew is red
+                        countRepair(TreeMetrics.RepairCase.DELETE_1_3);
                         p.getBrother().colour = RED;
                         p.getBrother().left.colour = BLACK;
                         rightRotate(p.getBrother());
                     }
                     // FALL 1.4
+                    countRepair(TreeMetrics.RepairCase.DELETE_1_4);
                     swapColours(p.getBrother(), p.father);
                     p.getBrother().right.colour = BLACK;
                     leftRotate(p.father);
@@ -427,22 +980,26 @@ public class RedBlackTree<E extends Comparable<E>> extends AbstractCollection<E>
                 // FALL 2
                 if(p.getBrother().getColour() == RED) {
                     // FALL 2.1
+                    countRepair(TreeMetrics.RepairCase.DELETE_2_1);
                     p.getBrother().colour = BLACK;
                     p.father.colour = RED;
                     rightRotate(p.father);
                 }
                 if(p.getBrother().right != null && p.getBrother().left != null && p.getBrother().right.getColour() == BLACK && p.getBrother().left.getColour() == BLACK) {
                     // FALL 2.2
+                    countRepair(TreeMetrics.RepairCase.DELETE_2_2);
                     p.getBrother().colour = RED;
                     repairDelete(p.father);
                 } else if(p.getBrother().right != null) {
-                    if(p.getBrother().right != null && p.getBrother().right.getColour() == RED) {
-                        // FALL 2.3
+                    if(p.getBrother().left.getColour() == BLACK) {
+                        // FALL 2.3 only the inner nephew is red
+                        countRepair(TreeMetrics.RepairCase.DELETE_2_3);
                         p.getBrother().colour = RED;
                         p.getBrother().right.colour = BLACK;
                         leftRotate(p.getBrother());
                     }
                     // FALL 2.4
+                    countRepair(TreeMetrics.RepairCase.DELETE_2_4);
                     swapColours(p.getBrother(), p.father);
                     p.getBrother().left.colour = BLACK;
                     rightRotate(p.father);
@@ -455,250 +1012,2585 @@ public class RedBlackTree<E extends Comparable<E>> extends AbstractCollection<E>
      * Performs a left rotation of the passed Node.
      * @param p Node to leftroatte.
      */
-    private void leftRotate(Node p) {
+    private void leftRotate(Node<E> p) {
+        if(metrics != null)
+            metrics.leftRotation();
         if(p != root) {
             if(p.father.left == p)
                 p.father.left = p.right;
             else
                 p.father.right = p.right;
-            Node father = p.father;
+            Node<E> father = p.father;
             p.father = p.right;
             p.right = p.father.left;
             p.father.left = p;
-            p.right.father = p;
+            if(p.right != nil)
+                p.right.father = p;
             p.father.father = father;
         } else {
             root = p.right;
             p.father = root;
             p.right = root.left;
             root.left = p;
-            p.right.father = p;
+            if(p.right != nil)
+                p.right.father = p;
             setAnchor(root);
         }
+        if(orderStatistics) {
+            // the Node that took the place of p now roots the former subtree of p
+            ((CountedNode<E>) p.father).count = count(p);
+            updateCount(p);
+        }
     }
     /**
      * Performs a right rotation of the passed Node.
      * @param p Node to right rotate.
      */
-    private void rightRotate(Node p) {
+    private void rightRotate(Node<E> p) {
+        if(metrics != null)
+            metrics.rightRotation();
         if(p != root) {
             if (p.father.left == p)
                 p.father.left = p.left;
             else
                 p.father.right = p.left;
-            Node father = p.father;
+            Node<E> father = p.father;
             p.father = p.left;
             p.left = p.father.right;
             p.father.right = p;
-            p.left.father = p;
+            if(p.left != nil)
+                p.left.father = p;
             p.father.father = father;
         } else {
             root = p.left;
             p.father = root;
             p.left = root.right;
             root.right = p;
-            p.left.father = p;
+            if(p.left != nil)
+                p.left.father = p;
             setAnchor(root);
         }
+        if(orderStatistics) {
+            // the Node that took the place of p now roots the former subtree of p
+            ((CountedNode<E>) p.father).count = count(p);
+            updateCount(p);
+        }
     }
 
     /**
-     * Returns whether passed data is stored inside RedBlackTree by calling the node.contains() Method on the current root.
+     * Returns whether passed data is stored inside RedBlackTree by looking up the Node holding it with getNode(). Overrides
+     * the linear scan of AbstractCollection, so the lookup is O(log n) even if the tree is only known as a Collection.
      * @param element element to look for in tree
-     * @return  true if element
+     * @return  true if element is stored in the tree
+     * @throws NullPointerException if element is null
+     * @throws ClassCastException if element cannot be compared with the elements of the tree
+     */
+    @Override
+    public boolean contains(Object element) {
+        TreeMetrics m = metrics;
+        if(m == null)
+            return containsElement(element);
+        long start = System.nanoTime();
+        try {
+            return containsElement(element);
+        } finally {
+            m.contains(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Looks up the passed element, in the mapped snapshot if the tree has not created its heap Nodes yet.
+     * @param element element to look for
+     * @return  true if element is stored in the tree
      */
-    public boolean contains(E element) {
-        return root.contains(element);
+    private boolean containsElement(Object element) {
+        if(snapshot != null)
+            return snapshot.indexOf(castElement(element), comparator) >= 0;
+        return getNode(castElement(element)) != nil;
     }
 
     /**
-     * Returns the Node wih the minimal data inside.
-     * @return Minimum Node
+     * Removes passed element from the RedBlackTree by looking up its Node with getNode() and deleting it with delete().
+     * If the tree uses {@link DuplicatePolicy#COUNT}, only one occurrence is removed.
+     * @param element element to remove from tree
+     * @return  true if the element was stored in the tree and has been removed, false otherwise
+     * @throws NullPointerException if element is null
+     * @throws ClassCastException if element cannot be compared with the elements of the tree
      */
-    private Node minNode() {
-        Node min = root;
-        if(root.data != null) {
-            while (min.left.data != null) {
-                min = min.left;
-            }
-            return min;
-        } else {
-            return null;
+    @Override
+    public boolean remove(Object element) {
+        TreeMetrics m = metrics;
+        if(m == null)
+            return removeElement(element);
+        long start = System.nanoTime();
+        try {
+            return removeElement(element);
+        } finally {
+            m.remove(System.nanoTime() - start, currentBlackHeight());
         }
     }
 
     /**
-     * Returns the Node with the maximum data inside.
-     * @return  Maximum Node
+     * Removes one occurrence of the passed element and logs the removal.
+     * @param element element to remove
+     * @return  true if the element was stored in the tree and has been removed
      */
-    private Node maxNode() {
-        Node max = root;
-        if(root.data != null) {
-            while(max.right.data != null) {
-                max = max.right;
-            }
-            return max;
+    private boolean removeElement(Object element) {
+        E data = castElement(element);
+        Node<E> p = getNode(data);
+        if(p == nil)
+            return false;
+        if(log != null)
+            log.removed(data);
+        removeOccurrence(p);
+        return true;
+    }
+
+    /**
+     * Removes one occurrence of the data of the passed Node. Deletes the Node unless the tree uses {@link DuplicatePolicy#COUNT}
+     * and the data has been added more than once.
+     * @param p Node holding the data to remove
+     */
+    private void removeOccurrence(Node<E> p) {
+        if(duplicatePolicy == DuplicatePolicy.COUNT && ((CountedNode<E>) p).multiplicity > 1) {
+            ((CountedNode<E>) p).multiplicity--;
         } else {
-            return null;
+            delete(p);
+            size--;
         }
     }
 
     /**
-     * Add passed Data into RedBlackTree by calling the insert Method of the current root with data to be inserted as argument.
-     * Null object cannot be stored inside the tree. Trying so will throw a NullPointerException. Also returns a DuplicateElementException if the data is already stored inside the tree.
-     * @param data  data to insert into tree.
-     * @return  Returns true in insertion was successful.
-     * @throws NullPointerException if the data to be stored is null
-     * @throws DuplicateElementException if the data is already stored inside the tree
+     * Returns whether all elements of the passed Collection are stored in the tree. If the Collection is a RedBlackTree
+     * with the same comparator, both trees are walked side by side in ascending order, otherwise every element is looked
+     * up with contains().
+     * @param c Collection to be checked for containment in this tree
+     * @return  true if every element of c is stored in the tree
+     * @throws NullPointerException if c or one of its elements is null
+     * @throws ClassCastException if an element of c cannot be compared with the elements of the tree
      */
     @Override
-    public boolean add(E data) {
-        if(data == null) {
-            throw new NullPointerException("Cannot store null elements.");
-        } else {
-            root.insert(data);
-            size++;
+    public boolean containsAll(Collection<?> c) {
+        if(c instanceof RedBlackTree && Objects.equals(((RedBlackTree<?>) c).comparator(), comparator)
+                && preferMerge(c.size())) {
+            if(c.size() > size)
+                return false;
+            Iterator<E> it = iterator();
+            for(Object o : c) {
+                E data = castElement(o);
+                int cmp = 1;
+                while(cmp > 0 && it.hasNext())
+                    cmp = compare(data, it.next());
+                if(cmp != 0)
+                    return false;
+            }
             return true;
         }
+        return super.containsAll(c);
     }
 
     /**
-     * Returns the current size (number of non-equivalent data objects) stored inside the tree.
-     * @return  number of stored elements.
+     * Adds all elements of the passed Collection to the tree by calling addBatch(). Elements that are already stored in
+     * the tree are skipped instead of throwing a DuplicateElementException.
+     * @param c Collection of elements to add
+     * @return  true if an element has been inserted or a stored element has been replaced by a different instance
+     * @throws NullPointerException if c or one of its elements is null, in which case the tree is not changed
+     * @throws ClassCastException if an element of c cannot be compared with the elements of the tree, in which case the tree is not changed
      */
     @Override
-    public int size() {
-        return size;
+    public boolean addAll(Collection<? extends E> c) {
+        boolean[] replaced = new boolean[1];
+        return anyTrue(addBatch(c, replaced)) || replaced[0];
     }
 
     /**
-     * Returns an in-order iterator to the current RedBlackTree.
-     * @return  in-order iterator.
+     * Removes all elements of the passed Collection from the tree by calling removeBatch().
+     * @param c Collection of elements to remove
+     * @return  true if the tree changed
+     * @throws NullPointerException if c or one of its elements is null, in which case the tree is not changed
+     * @throws ClassCastException if an element of c cannot be compared with the elements of the tree, in which case the tree is not changed
      */
     @Override
-    public Iterator<E> iterator() {
-        return new Iterator<E>() {
-            ArrayDeque<Node> usedStack = new ArrayDeque<>();
-            Node cursor = null;
-            Node max = maxNode();
-            boolean removable = false;
-
-            /**
-             * Returns whether next() will return a new element of the tree or throw an exception.
-             * @return true if tree has more elements to be iterated over, false otherwise
-             */
-            @Override
-            public boolean hasNext() {
-                return cursor != max;
-            }
-
-            /**
-             * Returns next element stored inside RedBlackTree by natural ordering.
-             * @return net element
-             */
-            @Override
-            public E next() {
-                if(cursor == null) {
-                    cursor = minNode();
-                    usedStack.push(cursor);
-                    removable = true;
-                    return cursor.data;
-                } else {
-                    if(hasNext()) {
-                        if(cursor.right.data != null) {
-                            cursor = getClosestNode(cursor);
-                        } else if(cursor != root) {
-                            while (cursor.equals(usedStack.peek()) ) {
-                                cursor = cursor.father;
-                                usedStack.pop();
-                            }
-                        }
-                        usedStack.push(cursor);
-                        removable = true;
-                        return cursor.data;
-                    } else {
-                        throw new NoSuchElementException("No more elements in RedBlackTree.");
+    public boolean removeAll(Collection<?> c) {
+        return anyTrue(removeBatch(c));
+    }
+
+    /**
+     * Inserts all elements of the passed Collection into the tree. The batch is sorted first and then merged into the tree:
+     * Large batches are merged with the in-order sequence of the tree and the tree is rebuilt by loadSorted() in O(n + m),
+     * small batches are inserted in ascending order, each descent starting from the previous insertion point (finger search).
+     * Duplicates do not throw, they are reported in the returned array and otherwise handled by the {@link DuplicatePolicy}
+     * of the tree, {@link DuplicatePolicy#THROW} acting like {@link DuplicatePolicy#REJECT}. Trees that count duplicates
+     * always use the finger search. All elements are checked before the tree is changed.
+     * @param c Collection of elements to insert
+     * @return  for every element of c in its iteration order, true if it has been inserted, false if an equivalent element
+     *          was already stored in the tree or appeared earlier in c
+     * @throws NullPointerException if c or one of its elements is null
+     * @throws ClassCastException if an element of c cannot be compared with the elements of the tree
+     */
+    public boolean[] addBatch(Collection<? extends E> c) {
+        return addBatch(c, new boolean[1]);
+    }
+
+    /**
+     * Implementation of {@link #addBatch(Collection)} that additionally reports whether a stored element has been
+     * replaced by a different instance.
+     * @param c Collection of elements to insert
+     * @param replaced  holds true afterwards if the {@link DuplicatePolicy#REPLACE} policy stored a different instance
+     * @return  for every element of c in its iteration order, true if it has been inserted
+     */
+    private boolean[] addBatch(Collection<? extends E> c, boolean[] replaced) {
+        Object[] batch = c.toArray();
+        Integer[] order = sortedOrder(batch);
+        boolean[] inserted = new boolean[batch.length];
+        if(batch.length == 0)
+            return inserted;
+        // duplicates only change the tree if they replace or count
+        boolean duplicatesChange = duplicatePolicy == DuplicatePolicy.REPLACE || duplicatePolicy == DuplicatePolicy.COUNT;
+
+        if(duplicatePolicy != DuplicatePolicy.COUNT && preferMerge(batch.length)) {
+            ArrayList<E> merged = new ArrayList<>(size + batch.length);
+            Iterator<E> it = iterator();
+            E curr = it.hasNext() ? it.next() : null;
+            E previous = null;
+            for(int i : order) {
+                E data = castElement(batch[i]);
+                int cmp = -1;
+                while(curr != null && (cmp = compare(data, curr)) > 0) {
+                    merged.add(curr);
+                    curr = it.hasNext() ? it.next() : null;
+                }
+                if(curr != null && cmp == 0) {
+                    if(duplicatePolicy == DuplicatePolicy.REPLACE && curr != data) {
+                        curr = data;
+                        replaced[0] = true;
                     }
+                } else if(previous == null || compare(previous, data) != 0) {
+                    merged.add(data);
+                    inserted[i] = true;
+                } else if(duplicatePolicy == DuplicatePolicy.REPLACE) {
+                    merged.set(merged.size() - 1, data);
                 }
+                previous = data;
             }
-
-            /**
-             * Deletes last element returned by next(). Can only be called ONCE after a call to next().
-             */
-            @Override
-            public void remove() {
-                if(removable) {
-                    delete(usedStack.peek());
-                    size--;
-                    removable = false;
-                } else {
-                    throw new IllegalStateException("Next method hasn't been called or remove has already been called after last next call.");
+            while(curr != null) {
+                merged.add(curr);
+                curr = it.hasNext() ? it.next() : null;
+            }
+            logBatch(true, batch, order, inserted, duplicatesChange);
+            if(merged.size() != size || replaced[0]) {
+                buildSorted(merged.iterator(), merged.size());
+            }
+        } else {
+            materialize();
+            if(log != null && !duplicatesChange) {
+                // look the elements up first, so that only the new ones are logged before the tree changes
+                E previous = null;
+                for(int i : order) {
+                    E data = castElement(batch[i]);
+                    inserted[i] = (previous == null || compare(previous, data) != 0) && getNode(data) == nil;
+                    previous = data;
                 }
             }
-        };
+            logBatch(true, batch, order, inserted, duplicatesChange);
+            Node<E> finger = null;
+            for(int i : order) {
+                E data = castElement(batch[i]);
+                int before = size;
+                finger = insert(finger == null ? root : climb(finger, data), data);
+                inserted[i] = size != before;
+                if(!inserted[i] && addDuplicate(finger, data))
+                    replaced[0] = true;
+            }
+        }
+        return inserted;
     }
 
     /**
-     * Returns an reverse in-order iterator for the RedBlackTree.
-     * @return  reverse in-order iterator
+     * Removes all elements of the passed Collection from the tree. The batch is sorted first: Large batches are merged
+     * with the in-order sequence of the tree and the remaining elements are rebuilt by loadSorted() in O(n + m), small batches
+     * are looked up and deleted one by one in ascending order. Trees that count duplicates always take the second path and
+     * remove one occurrence per element of c. All elements are checked before the tree is changed.
+     * @param c Collection of elements to remove
+     * @return  for every element of c in its iteration order, true if it (or one of its occurrences) has been removed,
+     *          false if it was not stored in the tree (anymore)
+     * @throws NullPointerException if c or one of its elements is null
+     * @throws ClassCastException if an element of c cannot be compared with the elements of the tree
      */
-    public Iterator<E> rIterator() {
-        return new Iterator<E>() {
-            ArrayDeque<Node> usedStack = new ArrayDeque<>();
-            Node cursor = null;
-            Node min = minNode();
-            boolean removable = false;
-
-            /**
-             * Returns whether next() will return a new element of the tree or throw an exception.
-             * @return true if tree has more elements to be iterated over, false otherwise
-             */
-            @Override
-            public boolean hasNext() {
-                return cursor != min;
-            }
-            /**
-             * Returns next element stored inside RedBlackTree by reversed natural ordering.
-             * @return net element
-             */
-            @Override
-            public E next() {
-                if(cursor == null) {
-                    cursor = maxNode();
-                    usedStack.push(cursor);
-                    removable = true;
-                    return cursor.data;
-                } else {
-                    if(hasNext() ) {
-                        if(cursor.left.data != null) {
-                            cursor = rGetClosestNode(cursor);
-                        } else if(cursor != root) {
-                            while (cursor == usedStack.peek() ) {
-                                cursor = cursor.father;
-                                usedStack.pop();
-                            }
-                        }
-                        usedStack.push(cursor);
-                        removable = true;
-                        return cursor.data;
-                    } else {
-                        throw new NoSuchElementException("No more elements in RedBlackTree");
+    public boolean[] removeBatch(Collection<?> c) {
+        Object[] batch = c.toArray();
+        Integer[] order = sortedOrder(batch);
+        boolean[] removed = new boolean[batch.length];
+        if(batch.length == 0 || size == 0)
+            return removed;
+
+        if(duplicatePolicy != DuplicatePolicy.COUNT && preferMerge(batch.length)) {
+            ArrayList<E> remaining = new ArrayList<>(size);
+            Iterator<E> it = iterator();
+            E curr = it.hasNext() ? it.next() : null;
+            for(int i : order) {
+                E data = castElement(batch[i]);
+                int cmp = -1;
+                while(curr != null && (cmp = compare(data, curr)) > 0) {
+                    remaining.add(curr);
+                    curr = it.hasNext() ? it.next() : null;
+                }
+                if(curr != null && cmp == 0) {
+                    removed[i] = true;
+                    curr = it.hasNext() ? it.next() : null;
+                }
+            }
+            while(curr != null) {
+                remaining.add(curr);
+                curr = it.hasNext() ? it.next() : null;
+            }
+            logBatch(false, batch, order, removed, false);
+            if(remaining.size() != size) {
+                buildSorted(remaining.iterator(), remaining.size());
+            }
+        } else {
+            if(log != null) {
+                // look the elements up first, so that the removals can be logged before the tree changes
+                E previous = null;
+                int occurrences = 0;
+                for(int i : order) {
+                    E data = castElement(batch[i]);
+                    if(previous == null || compare(previous, data) != 0) {
+                        Node<E> p = getNode(data);
+                        occurrences = p == nil ? 0 : multiplicityOf(p);
                     }
+                    removed[i] = occurrences-- > 0;
+                    previous = data;
+                }
+                logBatch(false, batch, order, removed, false);
+            }
+            for(int i : order) {
+                Node<E> p = getNode(castElement(batch[i]));
+                if(p != nil) {
+                    removeOccurrence(p);
+                    removed[i] = true;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Appends one record for the elements of a sorted batch that change the tree, if a log is attached and there is
+     * at least one of them. Called before the tree is changed.
+     * @param add   whether the elements are added or removed
+     * @param batch elements of the batch
+     * @param order indices into batch in ascending order of the elements
+     * @param changed   for every element of batch, whether it changes the tree
+     * @param all   whether every element changes the tree, regardless of changed
+     */
+    private void logBatch(boolean add, Object[] batch, Integer[] order, boolean[] changed, boolean all) {
+        if(log == null)
+            return;
+        List<E> elements = new ArrayList<>();
+        for(int i : order) {
+            if(all || changed[i])
+                elements.add(castElement(batch[i]));
+        }
+        if(elements.isEmpty())
+            return;
+        if(add)
+            log.addedAll(elements);
+        else
+            log.removedAll(elements);
+    }
+
+    /**
+     * Adds all elements of the passed tree to this one. This tree is split along the root of the other tree and both
+     * halves are combined with the matching subtrees of the other tree in parallel on the common ForkJoinPool; the
+     * results are joined with the root element again. Needs O(m log(n/m + 1)) comparisons for trees with n and m
+     * elements, m &lt;= n, and copies the Nodes of the other tree that end up in this one. If both trees have
+     * comparable sizes, so that O(n + m) is less than that, the in-order sequences of both trees are merged and the
+     * tree is rebuilt from the result instead, unless the tree counts duplicates. Equivalent elements are kept
+     * once, replaced by the element of the other tree or their multiplicities are added, depending on the
+     * {@link DuplicatePolicy} of this tree ({@link DuplicatePolicy#THROW} acting like {@link DuplicatePolicy#REJECT}).
+     * The other tree is only read and must not be modified during the call.
+     * @param other tree whose elements are added
+     * @return  true if an element has been added or a stored element has been replaced by a different instance
+     * @throws NullPointerException if other is null
+     * @throws IllegalArgumentException if other is not ordered like this tree
+     */
+    public boolean union(RedBlackTree<E> other) {
+        return combine(UNION, other);
+    }
+
+    /**
+     * Removes all elements from this tree that are not stored in the passed tree, like retainAll(), but by splitting and
+     * joining the tree in parallel or merging trees of comparable sizes like {@link #union(RedBlackTree)}. Elements are
+     * removed with all of their occurrences.
+     * The other tree is only read and must not be modified during the call.
+     * @param other tree whose elements are retained
+     * @return  true if this tree changed
+     * @throws NullPointerException if other is null
+     * @throws IllegalArgumentException if other is not ordered like this tree
+     */
+    public boolean intersection(RedBlackTree<E> other) {
+        return combine(INTERSECTION, other);
+    }
+
+    /**
+     * Removes all elements from this tree that are stored in the passed tree, like removeAll(), but by splitting and
+     * joining the tree in parallel or merging trees of comparable sizes like {@link #union(RedBlackTree)}. Elements are
+     * removed with all of their occurrences.
+     * The other tree is only read and must not be modified during the call.
+     * @param other tree whose elements are removed
+     * @return  true if this tree changed
+     * @throws NullPointerException if other is null
+     * @throws IllegalArgumentException if other is not ordered like this tree
+     */
+    public boolean difference(RedBlackTree<E> other) {
+        return combine(DIFFERENCE, other);
+    }
+
+    /**
+     * Moves all elements greater than or equal to the passed element into a new tree, this tree keeps the smaller ones.
+     * The tree is split along the search path of the element and both halves are joined back together on the way up,
+     * which costs O(log n). Without order statistics the size of the new tree is counted, which costs O(m) for the m
+     * moved elements, and a log attached to this tree records the moved elements as removed before the tree changes.
+     * <p>
+     * Every tree represents its leafs by one nil sentinel, whose father reference is written while a deletion is
+     * repaired. The new tree shares the sentinel of this tree, so both trees must not be modified by different threads
+     * at the same time. The new tree has the ordering, order statistics and duplicate policy of this tree, but neither
+     * metrics nor a log.
+     * @param e element to split at
+     * @return  tree holding the elements greater than or equal to e
+     * @throws NullPointerException if e is null
+     * @throws ClassCastException if e cannot be compared with the elements of the tree
+     */
+    public RedBlackTree<E> split(E e) {
+        castElement(e);
+        materialize();
+        RedBlackTree<E> greater = new RedBlackTree<>(this, nil);
+        if(size == 0)
+            return greater;
+        if(log != null) {
+            List<E> moved = new ArrayList<>();
+            recordFrom(root, e, moved);
+            if(!moved.isEmpty())
+                log.removedAll(moved);
+        }
+        Split<E> s = split(new Part<>(root, blackHeight(root, nil)), e);
+        Part<E> right = s.found == null ? s.right : join(new Part<>(nil, 0), s.found, s.right);
+        greater.root = right.root;
+        greater.setAnchor(greater.root);
+        greater.size = orderStatistics ? count(greater.root) : sizeOf(greater.root);
+        root = s.left.root;
+        setAnchor(root);
+        size -= greater.size;
+        modCount++;
+        if(metrics != null)
+            metrics.rebuilt(heightOf(root));
+        return greater;
+    }
+
+    /**
+     * Moves all elements of the passed tree into this one, every element of which has to be smaller than all elements
+     * of the passed tree. The lower of both trees is hung into the spine of the higher one at the level of equal black
+     * height, which costs O(log n). The passed tree is empty afterwards.
+     * <p>
+     * The Nodes keep their leafs, so the passed tree has to share the nil sentinel of this tree to be joined in
+     * O(log n), as trees returned by {@link #split(Object)} do. The leafs of any other tree are relinked to the
+     * sentinel of this tree first, which costs O(m) for its m elements. A log attached to this tree records the moved
+     * elements as added, a log attached to the passed tree records that it has been cleared, both before the trees
+     * change. If the second record can not be appended, the first one is compensated by a record that removes the
+     * moved elements again.
+     * @param greater   tree holding the greater elements
+     * @throws NullPointerException if greater is null
+     * @throws IllegalArgumentException if greater is this tree, is ordered differently, differs in order statistics or
+     * duplicate policy, or holds an element that is not greater than all elements of this tree
+     */
+    public void join(RedBlackTree<E> greater) {
+        if(greater == this)
+            throw new IllegalArgumentException("Cannot join a tree with itself.");
+        if(!Objects.equals(comparator, greater.comparator))
+            throw new IllegalArgumentException("Trees are ordered differently.");
+        if(orderStatistics != greater.orderStatistics || duplicatePolicy != greater.duplicatePolicy)
+            throw new IllegalArgumentException("Trees store their Nodes differently.");
+        if(greater.size == 0)
+            return;
+        if(size > 0 && compare(last(), greater.first()) >= 0)
+            throw new IllegalArgumentException("Elements of the trees overlap: " + greater.first() + " follows "
+                    + last());
+        materialize();
+        greater.materialize();
+        if(log != null || greater.log != null) {
+            List<E> moved = new ArrayList<>();
+            greater.recordAll(greater.root, moved);
+            if(log != null)
+                log.addedAll(moved);
+            if(greater.log != null) {
+                try {
+                    greater.log.cleared();
+                } catch (RuntimeException ex) {
+                    if(log != null)
+                        log.removedAll(moved);
+                    throw ex;
                 }
             }
-            /**
-             * Deletes last element returned by next(). Can only be called ONCE after a call to next().
-             */
-            @Override
-            public void remove() {
-                if(removable) {
-                    delete(usedStack.peek());
-                    size--;
-                    removable = false;
+        }
+        if(greater.nil != nil)
+            relink(greater.root, greater.nil);
+        Part<E> joined = join(new Part<>(root, blackHeight(root, nil)),
+                new Part<>(greater.root, blackHeight(greater.root, nil)));
+        root = joined.root;
+        setAnchor(root);
+        size += greater.size;
+        modCount++;
+        if(metrics != null)
+            metrics.rebuilt(heightOf(root));
+        greater.reset();
+    }
+
+    /**
+     * Runs the passed set operation and installs the resulting tree. Trees of comparable sizes are merged by
+     * {@link #merge(int, RedBlackTree)}, otherwise the operation runs on the common ForkJoinPool.
+     * @param op    UNION, INTERSECTION or DIFFERENCE
+     * @param other second operand
+     * @return  true if this tree changed
+     */
+    private boolean combine(int op, RedBlackTree<E> other) {
+        if(!Objects.equals(comparator, other.comparator))
+            throw new IllegalArgumentException("Trees are ordered differently.");
+        if(other == this) {
+            if(op != DIFFERENCE)
+                return false;
+            boolean changed = size > 0;
+            clear();
+            return changed;
+        }
+        if(duplicatePolicy != DuplicatePolicy.COUNT && preferMerge(other.size) && other.preferMerge(size))
+            return merge(op, other);
+        materialize();
+        other.materialize();
+        if(log != null) {
+            List<E> changes = new ArrayList<>();
+            if(op == INTERSECTION)
+                collectChanges(op, other, root, nil, changes);
+            else
+                collectChanges(op, other, other.root, other.nil, changes);
+            if(!changes.isEmpty()) {
+                if(op == UNION)
+                    log.addedAll(changes);
+                else
+                    log.removedAll(changes);
+            }
+        }
+        SetOperation operation = new SetOperation(op, other, new Part<>(root, blackHeight(root, nil)), other.root,
+                blackHeight(other.root, other.nil));
+        Part<E> result = ForkJoinPool.commonPool().invoke(operation);
+
+        int before = size;
+        long found = operation.found.sum();
+        if(op == UNION)
+            size += (int) operation.added.sum();
+        else if(op == INTERSECTION)
+            size = (int) found;
+        else
+            size -= (int) found;
+        root = result.root;
+        setAnchor(root);
+        modCount++;
+        if(metrics != null)
+            metrics.rebuilt(heightOf(root));
+        return size != before || operation.replaced.sum() > 0;
+    }
+
+    /**
+     * Collects the elements a set operation is going to add to or remove from this tree, so that they can be logged
+     * before the tree changes. Walks the other tree and looks its elements up in this one, or for an intersection walks
+     * this tree and looks its elements up in the other one, since all elements that are not found are removed.
+     * @param op    UNION, INTERSECTION or DIFFERENCE
+     * @param other second operand
+     * @param p root of the subtree to walk
+     * @param leaf  leaf sentinel of the tree p belongs to
+     * @param changes   List to add the elements to, every occurrence once
+     */
+    private void collectChanges(int op, RedBlackTree<E> other, Node<E> p, Node<E> leaf, List<E> changes) {
+        if(p == leaf)
+            return;
+        collectChanges(op, other, p.left, leaf, changes);
+        if(op == INTERSECTION) {
+            if(other.getNode(p.data) == other.nil)
+                changes.addAll(Collections.nCopies(multiplicityOf(p), p.data));
+        } else {
+            Node<E> q = getNode(p.data);
+            if(op == DIFFERENCE) {
+                if(q != nil)
+                    changes.addAll(Collections.nCopies(multiplicityOf(q), q.data));
+            } else if(duplicatePolicy == DuplicatePolicy.COUNT) {
+                changes.addAll(Collections.nCopies(other.multiplicityOf(p), p.data));
+            } else if(q == nil || duplicatePolicy == DuplicatePolicy.REPLACE) {
+                changes.add(p.data);
+            }
+        }
+        collectChanges(op, other, p.right, leaf, changes);
+    }
+
+    /**
+     * Combines the in-order sequences of this tree and the passed one side by side in O(n + m) and rebuilds this tree
+     * by buildSorted() if it changed. Cheaper than splitting and joining if both trees have comparable sizes, since
+     * every split then only separates a few elements. Not used by trees that count duplicates, since buildSorted()
+     * creates Nodes with a multiplicity of 1.
+     * @param op    UNION, INTERSECTION or DIFFERENCE
+     * @param other second operand
+     * @return  true if this tree changed
+     */
+    private boolean merge(int op, RedBlackTree<E> other) {
+        ArrayList<E> merged = new ArrayList<>(op == UNION ? size + other.size : size);
+        List<E> changes = new ArrayList<>();
+        Iterator<E> it = iterator();
+        Iterator<E> otherIt = other.iterator();
+        E curr = it.hasNext() ? it.next() : null;
+        E otherCurr = otherIt.hasNext() ? otherIt.next() : null;
+        boolean replaced = false;
+        // once this tree is exhausted only a union can take further elements
+        while(curr != null || (op == UNION && otherCurr != null)) {
+            int cmp = curr == null ? 1 : otherCurr == null ? -1 : compare(curr, otherCurr);
+            if(cmp < 0) {
+                if(op == INTERSECTION)
+                    changes.add(curr);
+                else
+                    merged.add(curr);
+                curr = it.hasNext() ? it.next() : null;
+            } else if(cmp > 0) {
+                if(op == UNION) {
+                    merged.add(otherCurr);
+                    changes.add(otherCurr);
+                }
+                otherCurr = otherIt.hasNext() ? otherIt.next() : null;
+            } else {
+                if(op == DIFFERENCE) {
+                    changes.add(curr);
+                } else if(op == UNION && duplicatePolicy == DuplicatePolicy.REPLACE) {
+                    merged.add(otherCurr);
+                    changes.add(otherCurr);
+                    replaced |= otherCurr != curr;
                 } else {
-                    throw new IllegalStateException("Next method hasn't been called or remove has already been called after last next call.");
+                    merged.add(curr);
                 }
+                curr = it.hasNext() ? it.next() : null;
+                otherCurr = otherIt.hasNext() ? otherIt.next() : null;
+            }
+        }
+        if(merged.size() == size && !replaced)
+            return false;
+        if(log != null) {
+            if(op == UNION)
+                log.addedAll(changes);
+            else
+                log.removedAll(changes);
+        }
+        buildSorted(merged.iterator(), merged.size());
+        return true;
+    }
+
+    /**
+     * Returns the black height of the subtree rooted at the passed Node, counting the root if it is black and not the
+     * leafs.
+     * @param p root of the subtree
+     * @param leaf  leaf sentinel of the tree p belongs to
+     * @return  black height of p
+     */
+    private static <E> int blackHeight(Node<E> p, Node<E> leaf) {
+        int height = 0;
+        for(; p != leaf; p = p.left) {
+            if(p.colour == BLACK)
+                height++;
+        }
+        return height;
+    }
+
+    /**
+     * Returns the passed child of a Node with the passed black height as a Part with a black root. A red child is coloured
+     * black, which increases its black height by one.
+     * @param child child Node, may be nil
+     * @param height    black height of the father
+     * @param fatherColour  colour of the father
+     * @return  child as detached Part
+     */
+    private Part<E> child(Node<E> child, int height, boolean fatherColour) {
+        int childHeight = fatherColour == BLACK ? height - 1 : height;
+        if(child.colour == RED) {
+            child.colour = BLACK;
+            childHeight++;
+        }
+        return new Part<>(child, childHeight);
+    }
+
+    /**
+     * Splits the passed Part into the elements less than and greater than the passed element. Both halves are built by
+     * join() on the way back up, which costs O(log n) in total since the black heights of the joined Parts increase along
+     * the path.
+     * @param t Part to split, its Nodes are reused
+     * @param e element to split at
+     * @return  smaller Part, Node equivalent to e (or null) and greater Part
+     */
+    private Split<E> split(Part<E> t, E e) {
+        if(t.root == nil)
+            return new Split<>(t, null, t);
+        Node<E> p = t.root;
+        Part<E> left = child(p.left, t.height, p.colour);
+        Part<E> right = child(p.right, t.height, p.colour);
+        int cmp = compare(e, p.data);
+        if(cmp < 0) {
+            Split<E> s = split(left, e);
+            return new Split<>(s.left, s.found, join(s.right, p, right));
+        } else if(cmp > 0) {
+            Split<E> s = split(right, e);
+            return new Split<>(join(left, p, s.left), s.found, s.right);
+        }
+        return new Split<>(left, p, right);
+    }
+
+    /**
+     * Joins two Parts with black roots and a Node in between, every element of l being smaller than the data of k and
+     * every element of r greater. The lower Part is hung into the spine of the higher one at the level of equal black
+     * height and repaired like after an insertion, so the join costs O(|h(l) - h(r)| + 1).
+     * @param l smaller Part
+     * @param k Node holding the middle element, its children are overwritten
+     * @param r greater Part
+     * @return  joined Part with a black root
+     */
+    private Part<E> join(Part<E> l, Node<E> k, Part<E> r) {
+        Node<E> t;
+        int height;
+        if(l.height > r.height) {
+            t = joinRight(l.root, l.height, k, r.root, r.height);
+            height = l.height;
+        } else if(l.height < r.height) {
+            t = joinLeft(l.root, l.height, k, r.root, r.height);
+            height = r.height;
+        } else {
+            t = link(k, l.root, r.root, RED);
+            height = l.height;
+        }
+        if(t.colour == RED) {
+            t.colour = BLACK;
+            height++;
+        }
+        return new Part<>(t, height);
+    }
+
+    /**
+     * Joins two Parts without a Node in between by taking the maximum out of the smaller Part.
+     * @param l smaller Part
+     * @param r greater Part
+     * @return  joined Part with a black root
+     */
+    private Part<E> join(Part<E> l, Part<E> r) {
+        if(l.root == nil)
+            return r;
+        if(r.root == nil)
+            return l;
+        Split<E> max = splitLast(l);
+        return join(max.left, max.found, r);
+    }
+
+    /**
+     * Detaches the Node holding the maximum of the passed Part. The remainder is joined back together on the way up.
+     * @param t Part to take the maximum from, must not be empty
+     * @return  remainder as left Part and the detached Node as found Node
+     */
+    private Split<E> splitLast(Part<E> t) {
+        Node<E> p = t.root;
+        Part<E> left = child(p.left, t.height, p.colour);
+        if(p.right == nil)
+            return new Split<>(left, p, null);
+        Split<E> s = splitLast(child(p.right, t.height, p.colour));
+        return new Split<>(join(left, p, s.left), s.found, null);
+    }
+
+    /**
+     * Hangs k and the lower Part r into the right spine of l at the first black Node with the black height of r. A red
+     * Node with a red right child below a black one is FALL 4.4 of repairInsert() and is resolved by a left rotation.
+     * @param l root of the higher Part
+     * @param hl    black height of l
+     * @param k Node holding the middle element
+     * @param r root of the lower Part
+     * @param hr    black height of r
+     * @return  new root of l, possibly red with a red right child
+     */
+    private Node<E> joinRight(Node<E> l, int hl, Node<E> k, Node<E> r, int hr) {
+        if(l.colour == BLACK && hl == hr)
+            return link(k, l, r, RED);
+        Node<E> t = joinRight(l.right, l.colour == BLACK ? hl - 1 : hl, k, r, hr);
+        l.right = t;
+        t.father = l;
+        if(l.colour == BLACK && t.colour == RED && t.right.colour == RED) {
+            // FALL 4.4
+            t.right.colour = BLACK;
+            l.right = t.left;
+            if(t.left != nil)
+                t.left.father = l;
+            t.left = l;
+            l.father = t;
+            if(orderStatistics)
+                updateCount(l);
+            l = t;
+        }
+        if(orderStatistics)
+            updateCount(l);
+        return l;
+    }
+
+    /**
+     * Mirror image of joinRight(): hangs k and the lower Part l into the left spine of r.
+     * @param l root of the lower Part
+     * @param hl    black height of l
+     * @param k Node holding the middle element
+     * @param r root of the higher Part
+     * @param hr    black height of r
+     * @return  new root of r, possibly red with a red left child
+     */
+    private Node<E> joinLeft(Node<E> l, int hl, Node<E> k, Node<E> r, int hr) {
+        if(r.colour == BLACK && hl == hr)
+            return link(k, l, r, RED);
+        Node<E> t = joinLeft(l, hl, k, r.left, r.colour == BLACK ? hr - 1 : hr);
+        r.left = t;
+        t.father = r;
+        if(r.colour == BLACK && t.colour == RED && t.left.colour == RED) {
+            // FALL 4.3
+            t.left.colour = BLACK;
+            r.left = t.right;
+            if(t.right != nil)
+                t.right.father = r;
+            t.right = r;
+            r.father = t;
+            if(orderStatistics)
+                updateCount(r);
+            r = t;
+        }
+        if(orderStatistics)
+            updateCount(r);
+        return r;
+    }
+
+    /**
+     * Makes l and r the children of k and colours k. Never writes to the nil sentinel, so disjoint Parts can be linked
+     * by different threads.
+     * @param k new father
+     * @param l left child
+     * @param r right child
+     * @param colour    colour of k
+     * @return  k
+     */
+    private Node<E> link(Node<E> k, Node<E> l, Node<E> r, boolean colour) {
+        k.left = l;
+        k.right = r;
+        if(l != nil)
+            l.father = k;
+        if(r != nil)
+            r.father = k;
+        k.colour = colour;
+        if(orderStatistics)
+            updateCount(k);
+        return k;
+    }
+
+    /**
+     * Copies the passed subtree of another tree into Nodes of this tree, keeping colours and multiplicities.
+     * @param other tree the subtree belongs to
+     * @param q root of the subtree
+     * @param operation operation that counts the copied elements
+     * @return  root of the copy
+     */
+    private Node<E> copy(RedBlackTree<E> other, Node<E> q, SetOperation operation) {
+        if(q == other.nil)
+            return nil;
+        Node<E> p = newNode(q.data, null);
+        if(duplicatePolicy == DuplicatePolicy.COUNT)
+            ((CountedNode<E>) p).multiplicity = other.multiplicityOf(q);
+        operation.added.increment();
+        return link(p, copy(other, q.left, operation), copy(other, q.right, operation), q.colour);
+    }
+
+    /**
+     * Adds every occurrence of the elements of the passed subtree to the passed Collection in ascending order.
+     * @param p root of the subtree
+     * @param changes   Collection to add the elements to
+     */
+    private void recordAll(Node<E> p, Collection<? super E> changes) {
+        if(p == nil)
+            return;
+        recordAll(p.left, changes);
+        changes.addAll(Collections.nCopies(multiplicityOf(p), p.data));
+        recordAll(p.right, changes);
+    }
+
+    /**
+     * Adds every occurrence of the elements of the passed subtree that are greater than or equal to the passed element
+     * to the passed Collection in ascending order. Only descends into subtrees that can hold such elements.
+     * @param p root of the subtree
+     * @param e smallest element to add
+     * @param changes   Collection to add the elements to
+     */
+    private void recordFrom(Node<E> p, E e, Collection<? super E> changes) {
+        if(p == nil)
+            return;
+        if(compare(p.data, e) >= 0) {
+            recordFrom(p.left, e, changes);
+            changes.addAll(Collections.nCopies(multiplicityOf(p), p.data));
+            recordAll(p.right, changes);
+        } else {
+            recordFrom(p.right, e, changes);
+        }
+    }
+
+    /**
+     * Returns the number of Nodes in the passed subtree by visiting all of them, for trees without order statistics.
+     * @param p root of the subtree
+     * @return  size of the subtree, 0 for the nil leaf
+     */
+    private int sizeOf(Node<E> p) {
+        return p == nil ? 0 : sizeOf(p.left) + 1 + sizeOf(p.right);
+    }
+
+    /**
+     * Replaces the passed leaf sentinel of another tree by the nil sentinel of this tree in the passed subtree.
+     * @param p root of the subtree, not a leaf
+     * @param leaf  leaf sentinel of the tree p belongs to
+     */
+    private void relink(Node<E> p, Node<E> leaf) {
+        if(p.left == leaf)
+            p.left = nil;
+        else
+            relink(p.left, leaf);
+        if(p.right == leaf)
+            p.right = nil;
+        else
+            relink(p.right, leaf);
+    }
+
+    /**
+     * Returns the indices of the passed elements in ascending order of the elements. Equivalent elements keep their
+     * relative order, so the first occurrence of an element comes first.
+     * @param batch elements to sort
+     * @return  indices into batch in ascending order of the elements
+     * @throws NullPointerException if one of the elements is null
+     * @throws ClassCastException if the elements cannot be compared with each other
+     */
+    private Integer[] sortedOrder(Object[] batch) {
+        Integer[] order = new Integer[batch.length];
+        for(int i = 0; i < batch.length; i++) {
+            castElement(batch[i]);
+            order[i] = i;
+        }
+        if(batch.length == 1)
+            // a single element is not compared by the sort
+            compare(castElement(batch[0]), castElement(batch[0]));
+        Arrays.sort(order, (i, j) -> compare(castElement(batch[i]), castElement(batch[j])));
+        return order;
+    }
+
+    /**
+     * Returns whether the passed array contains at least one true value.
+     * @param values    array to check
+     * @return  true if any value is true
+     */
+    private static boolean anyTrue(boolean[] values) {
+        for(boolean value : values) {
+            if(value)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Decides whether walking both sorted sequences side by side (O(n + m)) is cheaper than looking up all m elements
+     * of the other Collection one by one (O(m log n)).
+     * @param m size of the other Collection
+     * @return  true if a sorted merge should be used
+     */
+    private boolean preferMerge(int m) {
+        int log = 32 - Integer.numberOfLeadingZeros(size);
+        return (long) m * log >= (long) size + m;
+    }
+
+    /**
+     * Compares the two passed elements with the Comparator of the tree or by their natural ordering if there is none.
+     * @param a first element
+     * @param b second element
+     * @return  negative, zero or positive as a is less than, equal to or greater than b
+     * @throws ClassCastException if the elements cannot be compared
+     */
+    @SuppressWarnings("unchecked")
+    int compare(E a, E b) {
+        if(metrics != null)
+            metrics.comparison();
+        return comparator == null ? ((Comparable<? super E>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    /**
+     * Casts the passed Object to the element type of the tree. The cast itself is unchecked, a wrong type is detected by
+     * the first call to compare() with the returned reference.
+     * @param element element to cast
+     * @return  passed element as type E
+     * @throws NullPointerException if element is null
+     */
+    @SuppressWarnings("unchecked")
+    private E castElement(Object element) {
+        if(element == null)
+            throw new NullPointerException("Tree does not contain null elements.");
+        return (E) element;
+    }
+
+    /**
+     * Returns the Node wih the minimal data inside.
+     * @return Minimum Node
+     */
+    private Node<E> minNode() {
+        materialize();
+        Node<E> min = root;
+        if(root != nil) {
+            while (min.left != nil) {
+                min = min.left;
+            }
+            return min;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the Node with the maximum data inside.
+     * @return  Maximum Node
+     */
+    private Node<E> maxNode() {
+        materialize();
+        Node<E> max = root;
+        if(root != nil) {
+            while(max.right != nil) {
+                max = max.right;
+            }
+            return max;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Add passed Data into RedBlackTree by calling the insert Method with data to be inserted as argument.
+     * Null object cannot be stored inside the tree. Trying so will throw a NullPointerException. If the data is already
+     * stored inside the tree, the {@link DuplicatePolicy} of the tree decides what happens; by default a DuplicateElementException is thrown.
+     * Needs only one descent in any case.
+     * @param data  data to insert into tree.
+     * @return  Returns true if insertion was successful or a stored element has been replaced by a different instance,
+     *          false if a duplicate was rejected, replaced by the same instance or counted.
+     * @throws NullPointerException if the data to be stored is null
+     * @throws DuplicateElementException if the data is already stored inside the tree and the policy is {@link DuplicatePolicy#THROW}
+     */
+    @Override
+    public boolean add(E data) {
+        TreeMetrics m = metrics;
+        if(m == null)
+            return addElement(data);
+        long start = System.nanoTime();
+        try {
+            return addElement(data);
+        } finally {
+            m.add(System.nanoTime() - start, currentBlackHeight());
+        }
+    }
+
+    /**
+     * Inserts the passed element with one descent and applies the {@link DuplicatePolicy}. If a log is attached, the
+     * element is looked up first, so that the change can be logged before the tree is modified.
+     * @param data  data to insert into tree
+     * @return  true if the tree changed its size or stores a different instance
+     */
+    private boolean addElement(E data) {
+        if(data == null) {
+            throw new NullPointerException("Cannot store null elements.");
+        } else {
+            materialize();
+            if(log != null) {
+                // make sure that the element can be compared before it is logged
+                compare(data, data);
+                boolean stored = getNode(data) != nil;
+                if(stored && duplicatePolicy == DuplicatePolicy.THROW)
+                    throw new DuplicateElementException(data + " Cannot store duplicate elements.");
+                if(!stored || duplicatePolicy != DuplicatePolicy.REJECT)
+                    log.added(data);
+            }
+            int before = size;
+            Node<E> p = insert(root, data);
+            boolean changed = true;
+            if(size == before) {
+                if(duplicatePolicy == DuplicatePolicy.THROW)
+                    throw new DuplicateElementException(data + " Cannot store duplicate elements.");
+                if(duplicatePolicy == DuplicatePolicy.REJECT)
+                    return false;
+                changed = addDuplicate(p, data);
             }
-        };
+            return changed;
+        }
+    }
+
+    /**
+     * Handles an element that is equivalent to the data of the passed Node according to the {@link DuplicatePolicy} of
+     * the tree. {@link DuplicatePolicy#THROW} is treated like {@link DuplicatePolicy#REJECT}.
+     * @param p Node holding the equivalent element
+     * @param data  element that was added
+     * @return  true if a different instance has been stored, false otherwise
+     */
+    private boolean addDuplicate(Node<E> p, E data) {
+        switch(duplicatePolicy) {
+            case REPLACE:
+                boolean replaced = p.data != data;
+                p.data = data;
+                return replaced;
+            case COUNT:
+                ((CountedNode<E>) p).multiplicity++;
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Adds one occurrence of the passed element to a tree that uses {@link DuplicatePolicy#COUNT}: inserts it with a
+     * multiplicity of 1 or increments the multiplicity of the stored equivalent element. Unlike add(), which only tells
+     * whether the set of elements changed, the returned multiplicity tells both cases apart. Needs one descent.
+     * @param data  element to add
+     * @return  multiplicity of the element after the call
+     * @throws NullPointerException if data is null
+     * @throws ClassCastException if data cannot be compared with the elements of the tree
+     * @throws UnsupportedOperationException if the tree does not use {@link DuplicatePolicy#COUNT}
+     */
+    public int addOccurrence(E data) {
+        if(duplicatePolicy != DuplicatePolicy.COUNT)
+            throw new UnsupportedOperationException("Tree does not count duplicates.");
+        if(data == null)
+            throw new NullPointerException("Cannot store null elements.");
+        if(log != null) {
+            // make sure that the element can be compared before it is logged
+            compare(data, data);
+            log.added(data);
+        }
+        materialize();
+        int before = size;
+        CountedNode<E> p = (CountedNode<E>) insert(root, data);
+        if(size == before)
+            p.multiplicity++;
+        return p.multiplicity;
+    }
+
+    /**
+     * Returns how often an element equivalent to the passed one has been added to the tree. Trees that do not use
+     * {@link DuplicatePolicy#COUNT} store every element once.
+     * @param element element to look for in tree
+     * @return  multiplicity of the element, 0 if it is not stored in the tree
+     * @throws NullPointerException if element is null
+     * @throws ClassCastException if element cannot be compared with the elements of the tree
+     */
+    public int multiplicity(Object element) {
+        Node<E> p = getNode(castElement(element));
+        if(p == nil)
+            return 0;
+        return multiplicityOf(p);
+    }
+
+    /**
+     * Returns the current size (number of non-equivalent data objects) stored inside the tree.
+     * @return  number of stored elements.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all elements from the tree by detaching the root. Runs in constant time.
+     */
+    @Override
+    public void clear() {
+        if(log != null)
+            log.cleared();
+        reset();
+    }
+
+    /**
+     * Removes all elements without logging.
+     */
+    private void reset() {
+        modCount++;
+        snapshot = null;
+        root = nil;
+        setAnchor(root);
+        size = 0;
+        if(metrics != null)
+            metrics.rebuilt(0);
+    }
+
+    /**
+     * Attaches a log to the tree. Every following modification appends a record to it, so the tree can be restored by
+     * {@link WriteAheadLog#recover(RedBlackTree, Path)} after a crash. Records are appended, and synced if the
+     * {@link WriteAheadLog.SyncPolicy} demands it, before the modification is applied to the tree; if appending fails,
+     * an UncheckedIOException is thrown and the tree is left unchanged. To know which elements change, add() and the
+     * batch operations look the elements up first while a log is attached.
+     * @param log   log to append to, null to stop logging
+     */
+    public void setLog(WriteAheadLog<E> log) {
+        this.log = log;
+    }
+
+    /**
+     * Attaches instrumentation to the tree. Every following rotation, repair case and comparison is counted and add(),
+     * contains() and remove() are timed. Without metrics every hook costs a single null check.
+     * @param metrics   metrics to report to, null to stop reporting
+     */
+    public void setMetrics(TreeMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the instrumentation attached to the tree.
+     * @return  metrics or null if the tree is not instrumented
+     */
+    public TreeMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Counts a hit of the passed repair case, if the tree is instrumented.
+     * @param repairCase    case of repairInsert() or repairDelete() that has been hit
+     */
+    private void countRepair(TreeMetrics.RepairCase repairCase) {
+        if(metrics != null)
+            metrics.repair(repairCase);
+    }
+
+    /**
+     * Returns the depth of the passed Node, the root having depth 1.
+     * @param p Node to measure
+     * @return  number of Nodes on the path from the root to p
+     */
+    private int depthOf(Node<E> p) {
+        int depth = 0;
+        for(; p != anchor; p = p.father)
+            depth++;
+        return depth;
+    }
+
+    /**
+     * Returns the height of the passed subtree by visiting all of its Nodes, for the metrics after a set operation.
+     * @param p root of the subtree
+     * @return  number of Nodes on the longest path down from p, 0 if p is nil
+     */
+    private int heightOf(Node<E> p) {
+        return p == nil ? 0 : 1 + Math.max(heightOf(p.left), heightOf(p.right));
+    }
+
+    /**
+     * Returns the black height of the tree without materializing a mapped snapshot, for the metrics.
+     * @return  black height counting the nil leafs
+     */
+    private int currentBlackHeight() {
+        int height = 1;
+        for(Node<E> p = root; p != nil; p = p.left) {
+            if(p.colour == BLACK)
+                height++;
+        }
+        return height;
+    }
+
+    /**
+     * Returns the number of occurrences the passed Node stands for.
+     * @param p Node holding data
+     * @return  multiplicity of the data, 1 unless the tree uses {@link DuplicatePolicy#COUNT}
+     */
+    private int multiplicityOf(Node<E> p) {
+        return duplicatePolicy == DuplicatePolicy.COUNT ? ((CountedNode<E>) p).multiplicity : 1;
+    }
+
+    /**
+     * Appends a record for data that is about to be deleted with all of its occurrences, if a log is attached.
+     * @param data  data to delete
+     * @param multiplicity  number of occurrences to delete
+     */
+    private void logDeleted(E data, int multiplicity) {
+        if(log != null)
+            log.removedAll(Collections.nCopies(multiplicity, data));
+    }
+
+    /**
+     * Returns the Comparator that orders the elements of the tree.
+     * @return  Comparator of the tree or null if the natural ordering of the elements is used
+     */
+    @Override
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Returns the smallest element of the tree by using minNode().
+     * @return  smallest element
+     * @throws NoSuchElementException if the tree is empty
+     */
+    @Override
+    public E first() {
+        if(snapshot != null && size > 0)
+            return snapshot.get(0);
+        return dataOf(minNode());
+    }
+
+    /**
+     * Returns the greatest element of the tree by using maxNode().
+     * @return  greatest element
+     * @throws NoSuchElementException if the tree is empty
+     */
+    @Override
+    public E last() {
+        if(snapshot != null && size > 0)
+            return snapshot.get(size - 1);
+        return dataOf(maxNode());
+    }
+
+    /**
+     * Removes and returns the smallest element of the tree.
+     * @return  smallest element or null if the tree is empty
+     */
+    @Override
+    public E pollFirst() {
+        return pollNode(minNode());
+    }
+
+    /**
+     * Removes and returns the greatest element of the tree.
+     * @return  greatest element or null if the tree is empty
+     */
+    @Override
+    public E pollLast() {
+        return pollNode(maxNode());
+    }
+
+    /**
+     * Returns the greatest element strictly less than the passed one.
+     * @param e element to compare with
+     * @return  greatest element less than e or null if there is none
+     */
+    @Override
+    public E lower(E e) {
+        return dataOrNull(floorNode(e, false));
+    }
+
+    /**
+     * Returns the greatest element less than or equal to the passed one.
+     * @param e element to compare with
+     * @return  greatest element less than or equal to e or null if there is none
+     */
+    @Override
+    public E floor(E e) {
+        return dataOrNull(floorNode(e, true));
+    }
+
+    /**
+     * Returns the least element greater than or equal to the passed one.
+     * @param e element to compare with
+     * @return  least element greater than or equal to e or null if there is none
+     */
+    @Override
+    public E ceiling(E e) {
+        return dataOrNull(ceilingNode(e, true));
+    }
+
+    /**
+     * Returns the least element strictly greater than the passed one.
+     * @param e element to compare with
+     * @return  least element greater than e or null if there is none
+     */
+    @Override
+    public E higher(E e) {
+        return dataOrNull(ceilingNode(e, false));
+    }
+
+    /**
+     * Returns a reverse order view of the tree. The view is backed by the tree.
+     * @return  descending view of the tree
+     */
+    @Override
+    public NavigableSet<E> descendingSet() {
+        return new SubSet(true, null, true, true, null, true, true);
+    }
+
+    /**
+     * Returns a reverse in-order iterator for the RedBlackTree by calling rIterator().
+     * @return  reverse in-order iterator
+     */
+    @Override
+    public Iterator<E> descendingIterator() {
+        return rIterator();
+    }
+
+    /**
+     * Returns a view of the elements between fromElement and toElement. The view is backed by the tree.
+     * @param fromElement   low endpoint of the view
+     * @param fromInclusive whether the low endpoint is part of the view
+     * @param toElement high endpoint of the view
+     * @param toInclusive   whether the high endpoint is part of the view
+     * @return  view of the elements in the passed range
+     * @throws IllegalArgumentException if fromElement is greater than toElement
+     */
+    @Override
+    public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        return new SubSet(false, fromElement, fromInclusive, false, toElement, toInclusive, false);
+    }
+
+    /**
+     * Returns a view of the elements less than (or equal to, if inclusive) toElement. The view is backed by the tree.
+     * @param toElement high endpoint of the view
+     * @param inclusive whether the high endpoint is part of the view
+     * @return  view of the elements less than toElement
+     */
+    @Override
+    public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+        return new SubSet(true, null, true, false, toElement, inclusive, false);
+    }
+
+    /**
+     * Returns a view of the elements greater than (or equal to, if inclusive) fromElement. The view is backed by the tree.
+     * @param fromElement   low endpoint of the view
+     * @param inclusive whether the low endpoint is part of the view
+     * @return  view of the elements greater than fromElement
+     */
+    @Override
+    public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+        return new SubSet(false, fromElement, inclusive, true, null, true, false);
+    }
+
+    /**
+     * Returns a view of the elements from fromElement (inclusive) to toElement (exclusive).
+     * @param fromElement   low endpoint of the view
+     * @param toElement high endpoint of the view
+     * @return  view of the elements in the passed range
+     */
+    @Override
+    public SortedSet<E> subSet(E fromElement, E toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    /**
+     * Returns a view of the elements strictly less than toElement.
+     * @param toElement high endpoint of the view
+     * @return  view of the elements less than toElement
+     */
+    @Override
+    public SortedSet<E> headSet(E toElement) {
+        return headSet(toElement, false);
+    }
+
+    /**
+     * Returns a view of the elements greater than or equal to fromElement.
+     * @param fromElement   low endpoint of the view
+     * @return  view of the elements greater than or equal to fromElement
+     */
+    @Override
+    public SortedSet<E> tailSet(E fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    /**
+     * Returns the element at the passed position in ascending order by descending along the stored subtree sizes.
+     * @param k position of the element, starting at 0 for the smallest one
+     * @return  k-th smallest element
+     * @throws IndexOutOfBoundsException if k is negative or not less than size()
+     * @throws UnsupportedOperationException if the tree does not maintain order statistics
+     */
+    public E select(int k) {
+        requireOrderStatistics();
+        if(k < 0 || k >= size)
+            throw new IndexOutOfBoundsException("Index " + k + " out of bounds for size " + size);
+        materialize();
+        Node<E> curr = root;
+        while(true) {
+            int left = count(curr.left);
+            if(k < left) {
+                curr = curr.left;
+            } else if(k == left) {
+                return curr.data;
+            } else {
+                k -= left + 1;
+                curr = curr.right;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of elements in the tree that are strictly less than the passed one. The passed element does not
+     * need to be stored in the tree.
+     * @param e element to compare with
+     * @return  number of elements less than e
+     * @throws UnsupportedOperationException if the tree does not maintain order statistics
+     */
+    public int rank(E e) {
+        requireOrderStatistics();
+        return headCount(e, false);
+    }
+
+    /**
+     * Returns the number of elements in the tree that are greater than or equal to from and less than to.
+     * @param from  low endpoint (inclusive)
+     * @param to    high endpoint (exclusive)
+     * @return  number of elements in the range
+     * @throws IllegalArgumentException if from is greater than to
+     * @throws UnsupportedOperationException if the tree does not maintain order statistics
+     */
+    public int count(E from, E to) {
+        requireOrderStatistics();
+        if(compare(from, to) > 0)
+            throw new IllegalArgumentException("from > to");
+        return headCount(to, false) - headCount(from, false);
+    }
+
+    /**
+     * Returns the number of elements less than (or equal to, if inclusive) the passed one by descending along the stored
+     * subtree sizes.
+     * @param e element to compare with
+     * @param inclusive whether an element equal to e is counted
+     * @return  number of elements below e
+     */
+    private int headCount(E e, boolean inclusive) {
+        materialize();
+        int count = 0;
+        Node<E> curr = root;
+        while(curr != nil) {
+            int cmp = compare(e, curr.data);
+            if(cmp < 0) {
+                curr = curr.left;
+            } else if(cmp > 0) {
+                count += count(curr.left) + 1;
+                curr = curr.right;
+            } else {
+                return count + count(curr.left) + (inclusive ? 1 : 0);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Throws an exception if the tree does not maintain order statistics.
+     * @throws UnsupportedOperationException if the tree does not maintain order statistics
+     */
+    private void requireOrderStatistics() {
+        if(!orderStatistics)
+            throw new UnsupportedOperationException("RedBlackTree was created without order statistics.");
+    }
+
+    /**
+     * Returns the data of the passed Node.
+     * @param p Node to return the data of
+     * @return  data of p
+     * @throws NoSuchElementException if p is null
+     */
+    private E dataOf(Node<E> p) {
+        if(p == null)
+            throw new NoSuchElementException("RedBlackTree is empty.");
+        return p.data;
+    }
+
+    /**
+     * Returns the data of the passed Node or null if there is no Node.
+     * @param p Node to return the data of
+     * @return  data of p or null
+     */
+    private E dataOrNull(Node<E> p) {
+        return p == null ? null : p.data;
+    }
+
+    /**
+     * Deletes the passed Node from the tree and returns the data it held.
+     * @param p Node to delete
+     * @return  data of p or null if p is null
+     */
+    private E pollNode(Node<E> p) {
+        if(p == null)
+            return null;
+        E data = p.data;
+        logDeleted(data, multiplicityOf(p));
+        delete(p);
+        size--;
+        return data;
+    }
+
+    /**
+     * Returns an in-order iterator to the current RedBlackTree. The iterator is fail-fast.
+     * @return  in-order iterator.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        if(snapshot != null)
+            return new SnapshotIterator(snapshot, false);
+        return new TreeIterator(minNode(), false, null);
+    }
+
+    /**
+     * Returns an reverse in-order iterator for the RedBlackTree. The iterator is fail-fast.
+     * @return  reverse in-order iterator
+     */
+    public Iterator<E> rIterator() {
+        if(snapshot != null)
+            return new SnapshotIterator(snapshot, true);
+        return new TreeIterator(maxNode(), true, null);
+    }
+
+    /**
+     * Returns a Spliterator over the elements in ascending order that splits along the subtrees, starting with the left
+     * and right subtree of the root. Reports SIZED at the top level; if the tree maintains order statistics, the size of
+     * every split is exact as well and the Spliterator additionally reports SUBSIZED. Fails fast like the iterator.
+     * @return  Spliterator over the elements of the tree
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new TreeSpliterator(minNode(), null, 0, size);
+    }
+
+    /**
+     * Detached subtree together with its black height. The root is black unless the subtree is empty.
+     * @param <E>   type of the stored elements
+     */
+    private static final class Part<E> {
+        /**
+         * root of the subtree, the nil sentinel if empty.
+         */
+        final Node<E> root;
+        /**
+         * number of black Nodes on every path from the root down to a leaf, not counting the leaf.
+         */
+        final int height;
+
+        /**
+         * Creates a Part.
+         * @param root  root of the subtree
+         * @param height    black height of the subtree
+         */
+        Part(Node<E> root, int height) {
+            this.root = root;
+            this.height = height;
+        }
+    }
+
+    /**
+     * Result of split(): the Parts less than and greater than an element and the Node equivalent to it, if there is one.
+     * @param <E>   type of the stored elements
+     */
+    private static final class Split<E> {
+        /**
+         * Part holding the smaller elements.
+         */
+        final Part<E> left;
+        /**
+         * detached Node equivalent to the element split at, null if there is none.
+         */
+        final Node<E> found;
+        /**
+         * Part holding the greater elements.
+         */
+        final Part<E> right;
+
+        /**
+         * Creates a Split.
+         * @param left  smaller Part
+         * @param found equivalent Node or null
+         * @param right greater Part
+         */
+        Split(Part<E> left, Node<E> found, Part<E> right) {
+            this.left = left;
+            this.found = found;
+            this.right = right;
+        }
+    }
+
+    /**
+     * One step of union(), intersection() or difference(): splits a Part of this tree at the root of a subtree of the other
+     * tree, combines the halves with the left and right subtree and joins the results. Both halves run in parallel as long
+     * as the subtree of the other tree has a black height above {@link #PARALLEL_HEIGHT}; the Nodes of this tree are
+     * divided between the halves, so the tasks never touch the same Node. Counters are shared by all tasks of an
+     * operation.
+     */
+    private final class SetOperation extends RecursiveTask<Part<E>> {
+        /**
+         * ForkJoinTask is Serializable, SetOperations are never serialized.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * UNION, INTERSECTION or DIFFERENCE.
+         */
+        final int op;
+        /**
+         * second operand.
+         */
+        final RedBlackTree<E> other;
+        /**
+         * Part of this tree to combine.
+         */
+        final Part<E> t1;
+        /**
+         * subtree of the other tree to combine with.
+         */
+        final Node<E> t2;
+        /**
+         * black height of t2.
+         */
+        final int h2;
+        /**
+         * number of elements of the other tree that were equivalent to an element of this tree.
+         */
+        final LongAdder found;
+        /**
+         * number of Nodes created for elements of the other tree.
+         */
+        final LongAdder added;
+        /**
+         * number of stored elements replaced by a different instance.
+         */
+        final LongAdder replaced;
+
+        /**
+         * Creates the top level task of an operation.
+         * @param op    UNION, INTERSECTION or DIFFERENCE
+         * @param other second operand
+         * @param t1    this tree as Part
+         * @param t2    root of the other tree
+         * @param h2    black height of the other tree
+         */
+        SetOperation(int op, RedBlackTree<E> other, Part<E> t1, Node<E> t2, int h2) {
+            this(op, other, new LongAdder(), new LongAdder(), new LongAdder(), t1, t2, h2);
+        }
+
+        /**
+         * Creates a task that shares the counters of an operation.
+         * @param op    UNION, INTERSECTION or DIFFERENCE
+         * @param other second operand
+         * @param found counter for equivalent elements
+         * @param added counter for created Nodes
+         * @param replaced  counter for replaced elements
+         * @param t1    Part of this tree
+         * @param t2    subtree of the other tree
+         * @param h2    black height of t2
+         */
+        SetOperation(int op, RedBlackTree<E> other, LongAdder found, LongAdder added, LongAdder replaced, Part<E> t1,
+                     Node<E> t2, int h2) {
+            this.op = op;
+            this.other = other;
+            this.found = found;
+            this.added = added;
+            this.replaced = replaced;
+            this.t1 = t1;
+            this.t2 = t2;
+            this.h2 = h2;
+        }
+
+        /**
+         * Combines t1 with t2.
+         * @return  combined Part with a black root
+         */
+        @Override
+        protected Part<E> compute() {
+            if(t2 == other.nil)
+                return op == INTERSECTION ? new Part<>(nil, 0) : t1;
+            if(t1.root == nil) {
+                if(op != UNION)
+                    return t1;
+                Node<E> copy = copy(other, t2, this);
+                int height = h2;
+                if(copy.colour == RED) {
+                    copy.colour = BLACK;
+                    height++;
+                }
+                return new Part<>(copy, height);
+            }
+
+            Split<E> s = split(t1, t2.data);
+            int childHeight = t2.colour == BLACK ? h2 - 1 : h2;
+            SetOperation left = new SetOperation(op, other, found, added, replaced, s.left, t2.left, childHeight);
+            SetOperation right = new SetOperation(op, other, found, added, replaced, s.right, t2.right, childHeight);
+            Part<E> l;
+            Part<E> r;
+            if(h2 > PARALLEL_HEIGHT) {
+                left.fork();
+                r = right.compute();
+                l = left.join();
+            } else {
+                l = left.compute();
+                r = right.compute();
+            }
+
+            Node<E> k = s.found;
+            if(k != null)
+                found.increment();
+            if(op == UNION) {
+                int multiplicity = other.multiplicityOf(t2);
+                if(k == null) {
+                    k = newNode(t2.data, null);
+                    if(duplicatePolicy == DuplicatePolicy.COUNT)
+                        ((CountedNode<E>) k).multiplicity = multiplicity;
+                    added.increment();
+                } else if(duplicatePolicy == DuplicatePolicy.REPLACE) {
+                    if(k.data != t2.data)
+                        replaced.increment();
+                    k.data = t2.data;
+                } else if(duplicatePolicy == DuplicatePolicy.COUNT) {
+                    ((CountedNode<E>) k).multiplicity += multiplicity;
+                }
+                return RedBlackTree.this.join(l, k, r);
+            } else if(op == INTERSECTION) {
+                return k == null ? RedBlackTree.this.join(l, r) : RedBlackTree.this.join(l, k, r);
+            }
+            return RedBlackTree.this.join(l, r);
+        }
+    }
+
+    /**
+     * Iterator that walks the tree from a start Node to its in-order successors (or predecessors) by following the father
+     * links, so no auxiliary stack is needed and every step costs amortized O(1). Stops when it leaves the range of the
+     * SubSet it belongs to, if there is one. Fails fast with a ConcurrentModificationException if the tree is structurally
+     * modified other than through the iterator itself.
+     */
+    private class TreeIterator implements Iterator<E> {
+        /**
+         * Node whose data is returned by the next call to next(). null if the iteration is finished.
+         */
+        Node<E> next;
+        /**
+         * Node returned by the last call to next(). null if remove() must not be called.
+         */
+        Node<E> lastReturned;
+        /**
+         * Whether the iterator walks in descending order.
+         */
+        final boolean descending;
+        /**
+         * Range the iterator is restricted to or null for the whole tree.
+         */
+        final SubSet range;
+        /**
+         * Value of modCount the iterator expects. Differs from modCount after a modification that bypassed the iterator.
+         */
+        int expectedModCount = modCount;
+
+        /**
+         * Creates a new iterator starting at the passed Node.
+         * @param first Node to start from, null for an empty iteration
+         * @param descending    whether to walk in descending order
+         * @param range range to stay in or null for the whole tree
+         */
+        TreeIterator(Node<E> first, boolean descending, SubSet range) {
+            this.next = first;
+            this.descending = descending;
+            this.range = range;
+        }
+
+        /**
+         * Returns whether next() will return a new element of the tree or throw an exception.
+         * @return true if tree has more elements to be iterated over, false otherwise
+         */
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        /**
+         * Returns next element of the iteration and advances to its successor (or predecessor).
+         * @return next element
+         */
+        @Override
+        public E next() {
+            if(next == null)
+                throw new NoSuchElementException("No more elements in RedBlackTree.");
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException("RedBlackTree was modified during iteration.");
+            lastReturned = next;
+            next = descending ? predecessor(next) : successor(next);
+            if(next != null && range != null && (descending ? range.tooLow(next.data) : range.tooHigh(next.data)))
+                next = null;
+            return lastReturned.data;
+        }
+
+        /**
+         * Deletes last element returned by next(). Can only be called ONCE after a call to next().
+         */
+        @Override
+        public void remove() {
+            if(lastReturned == null)
+                throw new IllegalStateException("Next method hasn't been called or remove has already been called after last next call.");
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException("RedBlackTree was modified during iteration.");
+            // delete() moves the data of the successor into a Node with two children and removes the successor Node instead
+            if(!descending && next != null && lastReturned.left != nil && lastReturned.right != nil)
+                next = lastReturned;
+            logDeleted(lastReturned.data, multiplicityOf(lastReturned));
+            delete(lastReturned);
+            size--;
+            expectedModCount = modCount;
+            lastReturned = null;
+        }
+    }
+
+    /**
+     * Spliterator over the in-order range from a start Node up to a fence Node (exclusive). trySplit() hands out the part
+     * of the range in front of the root of the next subtree, so both halves stay contiguous and sorted and the split costs
+     * O(1) (O(log n) with order statistics, where the exact sizes of both halves are computed from the subtree sizes).
+     */
+    private class TreeSpliterator implements Spliterator<E> {
+        /**
+         * Node whose data is returned next. null if the range is exhausted.
+         */
+        Node<E> current;
+        /**
+         * First Node behind the range, null if the range reaches the maximum.
+         */
+        final Node<E> fence;
+        /**
+         * 0 for the top level Spliterator, -1 for a part handed out by trySplit(), 1 for the part that has been kept.
+         */
+        int side;
+        /**
+         * Number of remaining elements, exact at the top level and with order statistics, halved per split otherwise.
+         */
+        int est;
+        /**
+         * Value of modCount the Spliterator expects.
+         */
+        final int expectedModCount = modCount;
+
+        /**
+         * Creates a Spliterator over the passed range.
+         * @param current   first Node of the range, null for an empty range
+         * @param fence first Node behind the range or null
+         * @param side  which part of a split the Spliterator is
+         * @param est   size estimate
+         */
+        TreeSpliterator(Node<E> current, Node<E> fence, int side, int est) {
+            this.current = current;
+            this.fence = fence;
+            this.side = side;
+            this.est = est;
+        }
+
+        /**
+         * Splits off the part of the range in front of the next subtree root: the root of the tree at the top level, the
+         * right child of the first Node for a kept part and the left child of the fence for a handed out part.
+         * @return  Spliterator over the front part or null if the range cannot be split
+         */
+        @Override
+        public Spliterator<E> trySplit() {
+            Node<E> e = current;
+            Node<E> s = null;
+            if(e != null && e != fence) {
+                if(side == 0)
+                    s = root;
+                else if(side > 0)
+                    s = e.right;
+                else if(fence != null)
+                    s = fence.left;
+            }
+            if(s == null || s == nil || s == e || s == fence || compare(e.data, s.data) >= 0)
+                return null;
+            int prefix;
+            if(orderStatistics) {
+                int from = rankOf(e);
+                int to = rankOf(s);
+                prefix = to - from;
+                est -= prefix;
+            } else {
+                prefix = est >>>= 1;
+            }
+            side = 1;
+            current = s;
+            return new TreeSpliterator(e, s, -1, prefix);
+        }
+
+        /**
+         * Passes the next element to the passed action.
+         * @param action    action to perform
+         * @return  false if the range is exhausted
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if(action == null)
+                throw new NullPointerException();
+            Node<E> e = current;
+            if(e == null || e == fence)
+                return false;
+            current = successor(e);
+            if(est > 0)
+                est--;
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException("RedBlackTree was modified during iteration.");
+            action.accept(e.data);
+            return true;
+        }
+
+        /**
+         * Passes all remaining elements to the passed action and checks for concurrent modifications at the end.
+         * @param action    action to perform
+         */
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            if(action == null)
+                throw new NullPointerException();
+            Node<E> e = current;
+            current = null;
+            est = 0;
+            while(e != null && e != fence) {
+                action.accept(e.data);
+                e = successor(e);
+            }
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException("RedBlackTree was modified during iteration.");
+        }
+
+        /**
+         * Returns the number of remaining elements, an estimate for split parts of trees without order statistics.
+         * @return  size estimate
+         */
+        @Override
+        public long estimateSize() {
+            return est;
+        }
+
+        /**
+         * Returns SORTED, DISTINCT, ORDERED and NONNULL, SIZED if the estimate is exact and SUBSIZED with order statistics.
+         * @return  characteristics of the Spliterator
+         */
+        @Override
+        public int characteristics() {
+            return SORTED | DISTINCT | ORDERED | NONNULL
+                    | (side == 0 || orderStatistics ? SIZED : 0)
+                    | (orderStatistics ? SUBSIZED : 0);
+        }
+
+        /**
+         * Returns the Comparator of the tree.
+         * @return  Comparator or null if the natural ordering is used
+         */
+        @Override
+        public Comparator<? super E> getComparator() {
+            return comparator;
+        }
+    }
+
+    /**
+     * Iterator over the elements of a memory mapped snapshot, used as long as the tree has not created its heap Nodes.
+     * remove() creates the heap Nodes and removes the element from them, the iteration continues on the snapshot, which
+     * is not changed. Fails fast like {@link TreeIterator}.
+     */
+    private class SnapshotIterator implements Iterator<E> {
+        /**
+         * Snapshot to read from.
+         */
+        final MappedSnapshot<E> mapped;
+        /**
+         * Index of the element returned by the next call to next().
+         */
+        int next;
+        /**
+         * Element returned by the last call to next(). null if remove() must not be called.
+         */
+        E lastReturned;
+        /**
+         * Whether the iterator walks in descending order.
+         */
+        final boolean descending;
+        /**
+         * Value of modCount the iterator expects.
+         */
+        int expectedModCount = modCount;
+
+        /**
+         * Creates a new iterator starting at the first (or last, if descending) element of the snapshot.
+         * @param mapped    snapshot to read from
+         * @param descending    whether to walk in descending order
+         */
+        SnapshotIterator(MappedSnapshot<E> mapped, boolean descending) {
+            this.mapped = mapped;
+            this.descending = descending;
+            this.next = descending ? mapped.size() - 1 : 0;
+        }
+
+        /**
+         * Returns whether next() will return a new element.
+         * @return true if there are more elements
+         */
+        @Override
+        public boolean hasNext() {
+            return next >= 0 && next < mapped.size();
+        }
+
+        /**
+         * Decodes and returns the next element of the snapshot.
+         * @return next element
+         */
+        @Override
+        public E next() {
+            if(!hasNext())
+                throw new NoSuchElementException("No more elements in RedBlackTree.");
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException("RedBlackTree was modified during iteration.");
+            lastReturned = mapped.get(next);
+            next += descending ? -1 : 1;
+            return lastReturned;
+        }
+
+        /**
+         * Deletes last element returned by next(). Can only be called ONCE after a call to next().
+         */
+        @Override
+        public void remove() {
+            if(lastReturned == null)
+                throw new IllegalStateException("Next method hasn't been called or remove has already been called after last next call.");
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException("RedBlackTree was modified during iteration.");
+            RedBlackTree.this.remove(lastReturned);
+            expectedModCount = modCount;
+            lastReturned = null;
+        }
+    }
+
+    /**
+     * View of a range of the tree that is backed by the tree. Bounds are stored in ascending order, a descending view
+     * only changes the direction of navigation and iteration.
+     */
+    private class SubSet extends AbstractSet<E> implements NavigableSet<E> {
+        /**
+         * Whether the view is unbounded below (then lo is ignored).
+         */
+        final boolean fromStart;
+        /**
+         * Low endpoint of the view.
+         */
+        final E lo;
+        /**
+         * Whether the low endpoint is part of the view.
+         */
+        final boolean loInclusive;
+        /**
+         * Whether the view is unbounded above (then hi is ignored).
+         */
+        final boolean toEnd;
+        /**
+         * High endpoint of the view.
+         */
+        final E hi;
+        /**
+         * Whether the high endpoint is part of the view.
+         */
+        final boolean hiInclusive;
+        /**
+         * Whether the view is in descending order.
+         */
+        final boolean descending;
+
+        /**
+         * Creates a new view of the tree.
+         * @param fromStart whether the view is unbounded below
+         * @param lo    low endpoint
+         * @param loInclusive   whether lo is part of the view
+         * @param toEnd whether the view is unbounded above
+         * @param hi    high endpoint
+         * @param hiInclusive   whether hi is part of the view
+         * @param descending    whether the view is in descending order
+         * @throws NullPointerException if a bounded endpoint is null
+         * @throws IllegalArgumentException if lo is greater than hi
+         */
+        SubSet(boolean fromStart, E lo, boolean loInclusive, boolean toEnd, E hi, boolean hiInclusive, boolean descending) {
+            if((!fromStart && lo == null) || (!toEnd && hi == null))
+                throw new NullPointerException("Range endpoints cannot be null.");
+            if(!fromStart && !toEnd && compare(lo, hi) > 0)
+                throw new IllegalArgumentException("fromElement > toElement");
+            this.fromStart = fromStart;
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.toEnd = toEnd;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.descending = descending;
+        }
+
+        /**
+         * Returns whether the passed element lies below the range of the view.
+         * @param e element to check
+         * @return  true if e is too low
+         */
+        boolean tooLow(E e) {
+            if(fromStart)
+                return false;
+            int cmp = compare(e, lo);
+            return cmp < 0 || (cmp == 0 && !loInclusive);
+        }
+
+        /**
+         * Returns whether the passed element lies above the range of the view.
+         * @param e element to check
+         * @return  true if e is too high
+         */
+        boolean tooHigh(E e) {
+            if(toEnd)
+                return false;
+            int cmp = compare(e, hi);
+            return cmp > 0 || (cmp == 0 && !hiInclusive);
+        }
+
+        /**
+         * Returns whether the passed element lies inside the range of the view.
+         * @param e element to check
+         * @return  true if e is in range
+         */
+        boolean inRange(E e) {
+            return !tooLow(e) && !tooHigh(e);
+        }
+
+        /**
+         * Returns whether the passed element can be used as endpoint of a view of this view.
+         * @param e element to check
+         * @param inclusive whether e would be part of the new view
+         * @return  true if e is a valid endpoint
+         */
+        boolean inRange(E e, boolean inclusive) {
+            if(inclusive)
+                return inRange(e);
+            return (fromStart || compare(e, lo) >= 0) && (toEnd || compare(e, hi) <= 0);
+        }
+
+        /**
+         * Returns the Node with the smallest data inside the range.
+         * @return  lowest Node or null if the view is empty
+         */
+        Node<E> absLowest() {
+            Node<E> p = fromStart ? minNode() : ceilingNode(lo, loInclusive);
+            return p == null || tooHigh(p.data) ? null : p;
+        }
+
+        /**
+         * Returns the Node with the greatest data inside the range.
+         * @return  highest Node or null if the view is empty
+         */
+        Node<E> absHighest() {
+            Node<E> p = toEnd ? maxNode() : floorNode(hi, hiInclusive);
+            return p == null || tooLow(p.data) ? null : p;
+        }
+
+        /**
+         * Returns the ceiling Node of the passed element inside the range.
+         * @param e element to compare with
+         * @param inclusive whether a Node holding e may be returned
+         * @return  ceiling Node or null if there is none inside the range
+         */
+        Node<E> absCeiling(E e, boolean inclusive) {
+            if(tooLow(e))
+                return absLowest();
+            Node<E> p = ceilingNode(e, inclusive);
+            return p == null || tooHigh(p.data) ? null : p;
+        }
+
+        /**
+         * Returns the floor Node of the passed element inside the range.
+         * @param e element to compare with
+         * @param inclusive whether a Node holding e may be returned
+         * @return  floor Node or null if there is none inside the range
+         */
+        Node<E> absFloor(E e, boolean inclusive) {
+            if(tooHigh(e))
+                return absHighest();
+            Node<E> p = floorNode(e, inclusive);
+            return p == null || tooLow(p.data) ? null : p;
+        }
+
+        /**
+         * Creates a view of this view with the passed bounds in ascending order. Missing bounds are inherited from this view.
+         * @return  new view
+         * @throws IllegalArgumentException if a bound lies outside of this view
+         */
+        SubSet range(boolean fromStart, E lo, boolean loInclusive, boolean toEnd, E hi, boolean hiInclusive, boolean descending) {
+            if(fromStart) {
+                fromStart = this.fromStart;
+                lo = this.lo;
+                loInclusive = this.loInclusive;
+            } else if(!inRange(lo, loInclusive)) {
+                throw new IllegalArgumentException("fromElement out of range");
+            }
+            if(toEnd) {
+                toEnd = this.toEnd;
+                hi = this.hi;
+                hiInclusive = this.hiInclusive;
+            } else if(!inRange(hi, hiInclusive)) {
+                throw new IllegalArgumentException("toElement out of range");
+            }
+            return new SubSet(fromStart, lo, loInclusive, toEnd, hi, hiInclusive, descending);
+        }
+
+        /**
+         * Returns the number of elements inside the range. Uses the subtree sizes if the tree maintains order statistics
+         * and iterates over the range otherwise.
+         * @return  number of elements in the view
+         */
+        @Override
+        public int size() {
+            if(orderStatistics) {
+                int high = toEnd ? size : headCount(hi, hiInclusive);
+                int low = fromStart ? 0 : headCount(lo, !loInclusive);
+                return Math.max(high - low, 0);
+            }
+            int count = 0;
+            for(Node<E> p = absLowest(); p != null && !tooHigh(p.data); p = successor(p))
+                count++;
+            return count;
+        }
+
+        /**
+         * Returns whether the view contains no elements.
+         * @return  true if the view is empty
+         */
+        @Override
+        public boolean isEmpty() {
+            return absLowest() == null;
+        }
+
+        /**
+         * Returns whether the passed element is inside the range and stored in the tree.
+         * @param o element to look for
+         * @return  true if o is part of the view
+         */
+        @Override
+        public boolean contains(Object o) {
+            E e = castElement(o);
+            return inRange(e) && getNode(e) != nil;
+        }
+
+        /**
+         * Adds the passed element to the tree.
+         * @param e element to add
+         * @return  true if the element was added
+         * @throws IllegalArgumentException if e lies outside of the view
+         */
+        @Override
+        public boolean add(E e) {
+            if(!inRange(e))
+                throw new IllegalArgumentException("element out of range");
+            return RedBlackTree.this.add(e);
+        }
+
+        /**
+         * Removes the passed element from the tree if it is inside the range.
+         * @param o element to remove
+         * @return  true if the element was removed
+         */
+        @Override
+        public boolean remove(Object o) {
+            return inRange(castElement(o)) && RedBlackTree.this.remove(o);
+        }
+
+        /**
+         * Returns an iterator over the view in its order.
+         * @return  iterator over the view
+         */
+        @Override
+        public Iterator<E> iterator() {
+            return new TreeIterator(descending ? absHighest() : absLowest(), descending, this);
+        }
+
+        /**
+         * Returns an iterator over the view in reverse order.
+         * @return  reverse iterator over the view
+         */
+        @Override
+        public Iterator<E> descendingIterator() {
+            return new TreeIterator(descending ? absLowest() : absHighest(), !descending, this);
+        }
+
+        /**
+         * Returns the comparator of the view, which reverses the ordering of the tree for descending views.
+         * @return  comparator of the view or null for natural ordering
+         */
+        @Override
+        public Comparator<? super E> comparator() {
+            return descending ? Collections.reverseOrder(comparator) : comparator;
+        }
+
+        /**
+         * Returns the first element of the view in its order, the greatest one for descending views.
+         * @return  first element of the view
+         * @throws NoSuchElementException if the view is empty, even if the tree is not
+         */
+        @Override
+        public E first() {
+            return dataOf(descending ? absHighest() : absLowest());
+        }
+
+        /**
+         * Returns the last element of the view in its order, the smallest one for descending views.
+         * @return  last element of the view
+         * @throws NoSuchElementException if the view is empty, even if the tree is not
+         */
+        @Override
+        public E last() {
+            return dataOf(descending ? absLowest() : absHighest());
+        }
+
+        /**
+         * Removes the first element of the view in its order from the tree and returns it. Elements of the tree outside of
+         * the range are never removed.
+         * @return  removed element or null if the view is empty
+         */
+        @Override
+        public E pollFirst() {
+            return pollNode(descending ? absHighest() : absLowest());
+        }
+
+        /**
+         * Removes the last element of the view in its order from the tree and returns it. Elements of the tree outside of
+         * the range are never removed.
+         * @return  removed element or null if the view is empty
+         */
+        @Override
+        public E pollLast() {
+            return pollNode(descending ? absLowest() : absHighest());
+        }
+
+        /**
+         * Returns the element of the view that precedes the passed one in the order of the view. e may lie outside of the
+         * range, the result never does.
+         * @param e element to compare with
+         * @return  closest preceding element inside the range or null if there is none
+         */
+        @Override
+        public E lower(E e) {
+            return dataOrNull(descending ? absCeiling(e, false) : absFloor(e, false));
+        }
+
+        /**
+         * Returns the passed element or the element of the view that precedes it in the order of the view. e may lie
+         * outside of the range, the result never does.
+         * @param e element to compare with
+         * @return  e or closest preceding element inside the range, null if there is none
+         */
+        @Override
+        public E floor(E e) {
+            return dataOrNull(descending ? absCeiling(e, true) : absFloor(e, true));
+        }
+
+        /**
+         * Returns the passed element or the element of the view that follows it in the order of the view. e may lie
+         * outside of the range, the result never does.
+         * @param e element to compare with
+         * @return  e or closest following element inside the range, null if there is none
+         */
+        @Override
+        public E ceiling(E e) {
+            return dataOrNull(descending ? absFloor(e, true) : absCeiling(e, true));
+        }
+
+        /**
+         * Returns the element of the view that follows the passed one in the order of the view. e may lie outside of the
+         * range, the result never does.
+         * @param e element to compare with
+         * @return  closest following element inside the range or null if there is none
+         */
+        @Override
+        public E higher(E e) {
+            return dataOrNull(descending ? absFloor(e, false) : absCeiling(e, false));
+        }
+
+        /**
+         * Returns a view of the same range in reverse order, which is backed by the tree as well.
+         * @return  reversed view
+         */
+        @Override
+        public NavigableSet<E> descendingSet() {
+            return new SubSet(fromStart, lo, loInclusive, toEnd, hi, hiInclusive, !descending);
+        }
+
+        /**
+         * Returns a view of the elements of this view between fromElement and toElement, given in the order of this view.
+         * Unlike {@link RedBlackTree#subSet(Object, boolean, Object, boolean)}, the endpoints have to lie inside the range
+         * of this view.
+         * @param fromElement   first endpoint in the order of the view
+         * @param fromInclusive whether fromElement is part of the new view
+         * @param toElement second endpoint in the order of the view
+         * @param toInclusive   whether toElement is part of the new view
+         * @return  view of the elements in the passed range
+         * @throws IllegalArgumentException if an endpoint lies outside of this view or fromElement comes after toElement
+         * @throws NullPointerException if an endpoint is null
+         */
+        @Override
+        public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+            if(descending)
+                return range(false, toElement, toInclusive, false, fromElement, fromInclusive, true);
+            return range(false, fromElement, fromInclusive, false, toElement, toInclusive, false);
+        }
+
+        /**
+         * Returns a view of the elements of this view that come before toElement in the order of this view. Unlike
+         * {@link RedBlackTree#headSet(Object, boolean)}, toElement has to lie inside the range of this view.
+         * @param toElement endpoint of the new view
+         * @param inclusive whether toElement is part of the new view
+         * @return  view of the elements before toElement
+         * @throws IllegalArgumentException if toElement lies outside of this view
+         * @throws NullPointerException if toElement is null
+         */
+        @Override
+        public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+            if(descending)
+                return range(false, toElement, inclusive, true, null, true, true);
+            return range(true, null, true, false, toElement, inclusive, false);
+        }
+
+        /**
+         * Returns a view of the elements of this view that come after fromElement in the order of this view. Unlike
+         * {@link RedBlackTree#tailSet(Object, boolean)}, fromElement has to lie inside the range of this view.
+         * @param fromElement   endpoint of the new view
+         * @param inclusive whether fromElement is part of the new view
+         * @return  view of the elements after fromElement
+         * @throws IllegalArgumentException if fromElement lies outside of this view
+         * @throws NullPointerException if fromElement is null
+         */
+        @Override
+        public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+            if(descending)
+                return range(true, null, true, false, fromElement, inclusive, true);
+            return range(false, fromElement, inclusive, true, null, true, false);
+        }
+
+        /**
+         * Returns a view of the elements of this view from fromElement inclusive to toElement exclusive.
+         * @param fromElement   first endpoint in the order of the view, inclusive
+         * @param toElement second endpoint in the order of the view, exclusive
+         * @return  view of the elements in the passed range
+         * @throws IllegalArgumentException if an endpoint lies outside of this view or fromElement comes after toElement
+         * @throws NullPointerException if an endpoint is null
+         */
+        @Override
+        public SortedSet<E> subSet(E fromElement, E toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        /**
+         * Returns a view of the elements of this view before toElement, exclusive.
+         * @param toElement endpoint of the new view, exclusive
+         * @return  view of the elements before toElement
+         * @throws IllegalArgumentException if toElement lies outside of this view
+         * @throws NullPointerException if toElement is null
+         */
+        @Override
+        public SortedSet<E> headSet(E toElement) {
+            return headSet(toElement, false);
+        }
+
+        /**
+         * Returns a view of the elements of this view from fromElement on, inclusive.
+         * @param fromElement   endpoint of the new view, inclusive
+         * @return  view of the elements from fromElement on
+         * @throws IllegalArgumentException if fromElement lies outside of this view
+         * @throws NullPointerException if fromElement is null
+         */
+        @Override
+        public SortedSet<E> tailSet(E fromElement) {
+            return tailSet(fromElement, true);
+        }
     }
 }
@@ -0,0 +1,489 @@
+package app.exercise.adt;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread-safe sorted set that splits the key space into range partitions (shards). Every shard is a {@link RedBlackTree}
+ * with its own lock, so writers in different ranges proceed in parallel. Shard i holds the elements from its lower bound
+ * (inclusive) up to the lower bound of shard i + 1 (exclusive); the first shard is unbounded below.
+ * <p>
+ * An operation routes its element by binary search over the lower bounds, locks the shard and checks that the element
+ * still belongs to it, because a concurrent rebalancing may have moved a bound; otherwise it routes again. Once a shard
+ * grows beyond twice the average size of the other shards, the bounds are moved so that all shards hold the same number of elements,
+ * which are redistributed in linear time by loadSorted(). Bounds only change while all shards are write locked.
+ * <p>
+ * Iteration is in ascending key order and weakly consistent: since the shards partition the key space, the global
+ * order is the concatenation of the shards, which the iterator reads in chunks behind the last returned element.
+ * Null elements are not permitted.
+ * @param <E>   type of the stored elements
+ */
+public class ShardedRedBlackTree<E> extends AbstractSet<E> {
+    /**
+     * Number of elements an iterator fetches per lock acquisition.
+     */
+    private static final int CHUNK = 256;
+    /**
+     * Shards smaller than this are never rebalanced.
+     */
+    private static final int REBALANCE_MIN = 1024;
+
+    /**
+     * One range partition.
+     */
+    private static final class Shard<E> {
+        /**
+         * position of the shard in the shard array.
+         */
+        final int index;
+        /**
+         * elements of the shard.
+         */
+        final RedBlackTree<E> tree;
+        /**
+         * lock that guards tree and lo.
+         */
+        final StampedLock lock = new StampedLock();
+        /**
+         * inclusive lower bound of the shard, null for the first shard. Only changed while all shards are write locked.
+         */
+        volatile E lo;
+
+        /**
+         * Creates an empty shard.
+         * @param index position of the shard
+         * @param comparator    Comparator of the elements, null for their natural ordering
+         * @param lo    inclusive lower bound, null for the first shard
+         */
+        Shard(int index, Comparator<? super E> comparator, E lo) {
+            this.index = index;
+            this.tree = new RedBlackTree<>(comparator, false, DuplicatePolicy.REJECT);
+            this.lo = lo;
+        }
+    }
+
+    /**
+     * the shards in ascending order of their ranges.
+     */
+    private final Shard<E>[] shards;
+    /**
+     * Comparator of the elements, null for their natural ordering.
+     */
+    private final Comparator<? super E> comparator;
+    /**
+     * number of elements in all shards.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Constructor that initializes an empty set ordered by the natural ordering of its elements, with one shard more than
+     * the passed split points.
+     * @param splits    lower bounds of the shards after the first one, in strictly ascending order
+     * @throws IllegalArgumentException if splits are not strictly ascending
+     */
+    public ShardedRedBlackTree(List<? extends E> splits) {
+        this(null, splits);
+    }
+
+    /**
+     * Constructor that initializes an empty set ordered by the passed Comparator, with one shard more than the passed
+     * split points. The split points only determine the initial distribution, rebalancing moves them later.
+     * @param comparator    Comparator that orders the elements, null for their natural ordering
+     * @param splits    lower bounds of the shards after the first one, in strictly ascending order
+     * @throws IllegalArgumentException if splits are not strictly ascending
+     * @throws NullPointerException if a split point is null
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedRedBlackTree(Comparator<? super E> comparator, List<? extends E> splits) {
+        this.comparator = comparator;
+        this.shards = (Shard<E>[]) new Shard<?>[splits.size() + 1];
+        shards[0] = new Shard<>(0, comparator, null);
+        for(int i = 0; i < splits.size(); i++) {
+            E lo = splits.get(i);
+            if(lo == null)
+                throw new NullPointerException("Split points cannot be null.");
+            if(i > 0 && compare(splits.get(i - 1), lo) >= 0)
+                throw new IllegalArgumentException("Split points are not strictly ascending: " + lo);
+            shards[i + 1] = new Shard<>(i + 1, comparator, lo);
+        }
+    }
+
+    /**
+     * Returns the Comparator that orders the elements.
+     * @return  Comparator or null if the natural ordering is used
+     */
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Returns the number of elements.
+     * @return  number of stored elements
+     */
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Returns the current number of elements of every shard.
+     * @return  shard sizes in ascending order of the ranges
+     */
+    public int[] shardSizes() {
+        int[] sizes = new int[shards.length];
+        for(int i = 0; i < shards.length; i++) {
+            long stamp = shards[i].lock.readLock();
+            try {
+                sizes[i] = shards[i].tree.size();
+            } finally {
+                shards[i].lock.unlockRead(stamp);
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Returns whether the passed element is stored in the set.
+     * @param o element to look for
+     * @return  true if o is stored
+     * @throws NullPointerException if o is null
+     * @throws ClassCastException if o cannot be compared with the elements of the set
+     */
+    @Override
+    public boolean contains(Object o) {
+        E e = castElement(o);
+        while(true) {
+            Shard<E> s = shards[route(e)];
+            long stamp = s.lock.readLock();
+            try {
+                if(owns(s, e))
+                    return s.tree.contains(e);
+            } finally {
+                s.lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    /**
+     * Inserts the passed element into its shard and rebalances the shard if it has become too large.
+     * @param e element to insert
+     * @return  true if the element has been inserted, false if it was already stored
+     * @throws NullPointerException if e is null
+     */
+    @Override
+    public boolean add(E e) {
+        castElement(e);
+        while(true) {
+            Shard<E> s = shards[route(e)];
+            long stamp = s.lock.writeLock();
+            int shardSize;
+            try {
+                if(!owns(s, e))
+                    continue;
+                if(!s.tree.add(e))
+                    return false;
+                shardSize = s.tree.size();
+            } finally {
+                s.lock.unlockWrite(stamp);
+            }
+            if(skewed(shardSize, size.incrementAndGet()))
+                rebalance(false);
+            return true;
+        }
+    }
+
+    /**
+     * Removes the passed element from its shard.
+     * @param o element to remove
+     * @return  true if the element was stored and has been removed
+     * @throws NullPointerException if o is null
+     */
+    @Override
+    public boolean remove(Object o) {
+        E e = castElement(o);
+        while(true) {
+            Shard<E> s = shards[route(e)];
+            long stamp = s.lock.writeLock();
+            try {
+                if(!owns(s, e))
+                    continue;
+                if(!s.tree.remove(e))
+                    return false;
+            } finally {
+                s.lock.unlockWrite(stamp);
+            }
+            size.decrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     * Removes all elements. The shards are cleared one after another, the bounds are kept.
+     */
+    @Override
+    public void clear() {
+        for(Shard<E> s : shards) {
+            long stamp = s.lock.writeLock();
+            try {
+                size.addAndGet(-s.tree.size());
+                s.tree.clear();
+            } finally {
+                s.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Returns the smallest element.
+     * @return  smallest element
+     * @throws NoSuchElementException if the set is empty
+     */
+    public E first() {
+        Iterator<E> it = iterator();
+        if(!it.hasNext())
+            throw new NoSuchElementException("ShardedRedBlackTree is empty.");
+        return it.next();
+    }
+
+    /**
+     * Moves the bounds of all shards so that every shard holds the same number of elements. Does nothing if the set holds
+     * fewer elements than there are shards.
+     */
+    public void rebalance() {
+        rebalance(true);
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the elements in ascending order.
+     * @return  ascending iterator
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new ShardIterator();
+    }
+
+    /**
+     * Compares the two passed elements with the Comparator or by their natural ordering.
+     * @param a first element
+     * @param b second element
+     * @return  negative, zero or positive as a is less than, equal to or greater than b
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(E a, E b) {
+        return comparator == null ? ((Comparable<? super E>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    /**
+     * Casts the passed Object to the element type.
+     * @param o Object to cast
+     * @return  o as element
+     * @throws NullPointerException if o is null
+     */
+    @SuppressWarnings("unchecked")
+    private E castElement(Object o) {
+        if(o == null)
+            throw new NullPointerException("ShardedRedBlackTree does not permit null elements.");
+        return (E) o;
+    }
+
+    /**
+     * Returns the index of the shard whose range contains the passed element, according to the bounds read without
+     * locking. The caller has to confirm the result with {@link #owns(Shard, Object)} after locking the shard.
+     * @param e element to route
+     * @return  index of the shard
+     */
+    private int route(E e) {
+        int lo = 1;
+        int hi = shards.length - 1;
+        // find the last shard whose lower bound is not greater than e
+        while(lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if(compare(e, shards[mid].lo) >= 0)
+                lo = mid + 1;
+            else
+                hi = mid - 1;
+        }
+        return lo - 1;
+    }
+
+    /**
+     * Returns whether the passed element lies in the range of the passed shard. Must be called with the shard locked,
+     * which keeps both of its bounds stable.
+     * @param s shard to check
+     * @param e element to check
+     * @return  true if the shard is responsible for e
+     */
+    private boolean owns(Shard<E> s, E e) {
+        if(s.lo != null && compare(e, s.lo) < 0)
+            return false;
+        Shard<E> next = next(s);
+        return next == null || compare(e, next.lo) < 0;
+    }
+
+    /**
+     * Returns the shard after the passed one.
+     * @param s shard
+     * @return  next shard or null if s is the last one
+     */
+    private Shard<E> next(Shard<E> s) {
+        return s.index + 1 < shards.length ? shards[s.index + 1] : null;
+    }
+
+    /**
+     * Returns whether the passed shard size exceeds twice the average size of the other shards, given the passed total
+     * size. Comparing with the other shards instead of all of them makes the threshold reachable for any number of
+     * shards: with two shards, a shard is skewed once it holds more than two thirds of the elements.
+     * @param shardSize number of elements of a shard
+     * @param total number of elements of all shards
+     * @return  true if the shards should be rebalanced
+     */
+    private boolean skewed(int shardSize, int total) {
+        return shardSize > REBALANCE_MIN && (long) shardSize * (shards.length - 1) > 2L * (total - shardSize);
+    }
+
+    /**
+     * Moves the bounds of all shards so that every shard holds the same number of elements, unless another thread has
+     * already done so. Write locks all shards in ascending order, so concurrent rebalancings cannot deadlock. The
+     * elements are redistributed in O(n) by loadSorted(), so with a fixed number of shards the amortized cost per
+     * insertion is constant: a shard has to receive another n / N elements before it is rebalanced again.
+     * @param force whether to rebalance even if no shard is skewed
+     */
+    private void rebalance(boolean force) {
+        long[] stamps = new long[shards.length];
+        for(int i = 0; i < shards.length; i++)
+            stamps[i] = shards[i].lock.writeLock();
+        try {
+            int total = 0;
+            int max = 0;
+            for(Shard<E> s : shards) {
+                total += s.tree.size();
+                max = Math.max(max, s.tree.size());
+            }
+            if(total < shards.length || !(force || skewed(max, total)))
+                return;
+            List<E> all = new ArrayList<>(total);
+            for(Shard<E> s : shards)
+                all.addAll(s.tree);
+            for(int i = 0; i < shards.length; i++) {
+                int from = (int) ((long) total * i / shards.length);
+                int to = (int) ((long) total * (i + 1) / shards.length);
+                shards[i].tree.clear();
+                shards[i].tree.loadSorted(all.subList(from, to).iterator(), to - from);
+                if(i > 0)
+                    shards[i].lo = all.get(from);
+            }
+        } finally {
+            for(int i = shards.length - 1; i >= 0; i--)
+                shards[i].lock.unlockWrite(stamps[i]);
+        }
+    }
+
+    /**
+     * Collects up to {@link #CHUNK} elements of the shard responsible for the passed key that are greater than (or equal
+     * to, if inclusive) the key.
+     * @param key   key to continue from, null to start at the first shard
+     * @param inclusive whether the key itself may be returned
+     * @param chunk list to fill
+     * @return  lower bound of the next shard if the chunk ends with the shard, null if the chunk is full or the last shard was read
+     */
+    private E collect(E key, boolean inclusive, List<E> chunk) {
+        while(true) {
+            Shard<E> s = key == null ? shards[0] : shards[route(key)];
+            long stamp = s.lock.readLock();
+            try {
+                if(key != null && !owns(s, key))
+                    continue;
+                Iterator<E> it = key == null ? s.tree.iterator() : s.tree.tailSet(key, inclusive).iterator();
+                while(chunk.size() < CHUNK && it.hasNext())
+                    chunk.add(it.next());
+                if(chunk.size() == CHUNK)
+                    return null;
+                Shard<E> next = next(s);
+                return next == null ? null : next.lo;
+            } finally {
+                s.lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    /**
+     * Weakly consistent iterator that reads the shards in chunks behind the last returned element.
+     */
+    private class ShardIterator implements Iterator<E> {
+        /**
+         * elements of the current chunk.
+         */
+        List<E> chunk = new ArrayList<>(CHUNK);
+        /**
+         * index of the next element of the chunk.
+         */
+        int pos = 0;
+        /**
+         * Whether all shards have been read.
+         */
+        boolean exhausted = false;
+        /**
+         * Element returned by the last call to next(). null if remove() must not be called.
+         */
+        E lastReturned;
+        /**
+         * last element of the previous chunk.
+         */
+        E last;
+
+        /**
+         * Returns whether next() will return a new element, fetching the next chunk if needed.
+         * @return true if there are more elements
+         */
+        @Override
+        public boolean hasNext() {
+            while(pos == chunk.size() && !exhausted) {
+                if(!chunk.isEmpty())
+                    last = chunk.get(chunk.size() - 1);
+                chunk.clear();
+                pos = 0;
+                E key = last;
+                boolean inclusive = false;
+                while(chunk.size() < CHUNK) {
+                    E nextShard = collect(key, inclusive, chunk);
+                    if(nextShard == null) {
+                        exhausted = chunk.size() < CHUNK;
+                        break;
+                    }
+                    key = nextShard;
+                    inclusive = true;
+                }
+            }
+            return pos < chunk.size();
+        }
+
+        /**
+         * Returns the next element in ascending order.
+         * @return next element
+         */
+        @Override
+        public E next() {
+            if(!hasNext())
+                throw new NoSuchElementException("No more elements in ShardedRedBlackTree.");
+            lastReturned = chunk.get(pos++);
+            return lastReturned;
+        }
+
+        /**
+         * Removes the element last returned by next(). Can only be called ONCE after a call to next().
+         */
+        @Override
+        public void remove() {
+            if(lastReturned == null)
+                throw new IllegalStateException("Next method hasn't been called or remove has already been called after last next call.");
+            ShardedRedBlackTree.this.remove(lastReturned);
+            lastReturned = null;
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package app.exercise.adt;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instrumentation of a {@link RedBlackTree}, attached by {@link RedBlackTree#setMetrics(TreeMetrics)}. Counts rotations,
+ * the cases of repairInsert() and repairDelete() and comparisons, tracks the peak depth and the black height
+ * and records latency histograms of add(), contains() and remove(). A tree without metrics only pays a null check per
+ * hook. Counters are LongAdders, so threads that read the tree concurrently do not contend on them. Can be registered
+ * as MXBean with {@link #register(String)}.
+ */
+public class TreeMetrics implements TreeMetricsMXBean {
+    /**
+     * Cases of repairInsert() and repairDelete(), named after the FALL comments in the code.
+     */
+    public enum RepairCase {
+        /**
+         * repairInsert(): red father is the root, which is recoloured.
+         */
+        INSERT_2,
+        /**
+         * repairInsert(): red father and red uncle are recoloured.
+         */
+        INSERT_3,
+        /**
+         * repairInsert(): inner grandchild on the left, rotated outwards.
+         */
+        INSERT_4_1,
+        /**
+         * repairInsert(): inner grandchild on the right, rotated outwards.
+         */
+        INSERT_4_2,
+        /**
+         * repairInsert(): outer grandchild on the left, grandfather rotated right.
+         */
+        INSERT_4_3,
+        /**
+         * repairInsert(): outer grandchild on the right, grandfather rotated left.
+         */
+        INSERT_4_4,
+        /**
+         * repairDelete(): the problematic Node is red and is recoloured black.
+         */
+        DELETE_RED,
+        /**
+         * repairDelete(): left child with red brother.
+         */
+        DELETE_1_1,
+        /**
+         * repairDelete(): left child with black brother and black nephews.
+         */
+        DELETE_1_2,
+        /**
+         * repairDelete(): left child, only the inner nephew is red.
+         */
+        DELETE_1_3,
+        /**
+         * repairDelete(): left child, outer nephew is red.
+         */
+        DELETE_1_4,
+        /**
+         * repairDelete(): right child with red brother.
+         */
+        DELETE_2_1,
+        /**
+         * repairDelete(): right child with black brother and black nephews.
+         */
+        DELETE_2_2,
+        /**
+         * repairDelete(): right child, only the inner nephew is red.
+         */
+        DELETE_2_3,
+        /**
+         * repairDelete(): right child, outer nephew is red.
+         */
+        DELETE_2_4
+    }
+
+    /**
+     * Histogram with one bucket per power of two of nanoseconds.
+     */
+    static final class Histogram {
+        /**
+         * calls per bucket.
+         */
+        private final LongAdder[] buckets = new LongAdder[64];
+
+        /**
+         * Creates an empty histogram.
+         */
+        Histogram() {
+            for(int i = 0; i < buckets.length; i++)
+                buckets[i] = new LongAdder();
+        }
+
+        /**
+         * Counts a call that took the passed number of nanoseconds.
+         * @param nanos duration of the call
+         */
+        void record(long nanos) {
+            buckets[63 - Long.numberOfLeadingZeros(Math.max(nanos, 1))].increment();
+        }
+
+        /**
+         * Returns the calls per bucket.
+         * @return  copy of the buckets
+         */
+        long[] counts() {
+            long[] counts = new long[buckets.length];
+            for(int i = 0; i < counts.length; i++)
+                counts[i] = buckets[i].sum();
+            return counts;
+        }
+
+        /**
+         * Returns the number of recorded calls.
+         * @return  sum of all buckets
+         */
+        long total() {
+            long total = 0;
+            for(LongAdder bucket : buckets)
+                total += bucket.sum();
+            return total;
+        }
+
+        /**
+         * Returns the upper bound of the bucket that holds the passed percentile.
+         * @param percentile    percentile between 0 and 1
+         * @return  upper bound in nanoseconds, 0 if nothing has been recorded
+         */
+        long percentile(double percentile) {
+            long[] counts = counts();
+            long total = 0;
+            for(long count : counts)
+                total += count;
+            long seen = 0;
+            for(int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if(seen > 0 && seen >= percentile * total)
+                    return i == 63 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+            }
+            return 0;
+        }
+
+        /**
+         * Empties all buckets.
+         */
+        void reset() {
+            for(LongAdder bucket : buckets)
+                bucket.reset();
+        }
+    }
+
+    /**
+     * number of left rotations.
+     */
+    private final LongAdder leftRotations = new LongAdder();
+    /**
+     * number of right rotations.
+     */
+    private final LongAdder rightRotations = new LongAdder();
+    /**
+     * hits per repair case, indexed by ordinal.
+     */
+    private final LongAdder[] repairCases = new LongAdder[RepairCase.values().length];
+    /**
+     * number of comparisons.
+     */
+    private final LongAdder comparisons = new LongAdder();
+    /**
+     * greatest depth of a Node since the last rebuild, or height of the tree after it. Removals do not lower it.
+     */
+    private final LongAccumulator peakDepth = new LongAccumulator(Math::max, 0);
+    /**
+     * black height after the last timed modification.
+     */
+    private volatile int blackHeight;
+    /**
+     * latencies of add().
+     */
+    private final Histogram addLatency = new Histogram();
+    /**
+     * latencies of contains().
+     */
+    private final Histogram containsLatency = new Histogram();
+    /**
+     * latencies of remove().
+     */
+    private final Histogram removeLatency = new Histogram();
+    /**
+     * name the metrics are registered under, null if not registered.
+     */
+    private ObjectName objectName;
+
+    /**
+     * Creates metrics with all counters at zero.
+     */
+    public TreeMetrics() {
+        for(int i = 0; i < repairCases.length; i++)
+            repairCases[i] = new LongAdder();
+    }
+
+    /**
+     * Registers the metrics at the platform MBeanServer as app.exercise.adt:type=RedBlackTree,name=&lt;name&gt;.
+     * @param name  name that identifies the tree
+     * @return  name the MXBean has been registered under
+     * @throws JMException if the name is invalid or already registered
+     */
+    public synchronized ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("app.exercise.adt:type=RedBlackTree,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        this.objectName = objectName;
+        return objectName;
+    }
+
+    /**
+     * Removes the MXBean from the platform MBeanServer, if it has been registered.
+     * @throws JMException if the MXBean cannot be unregistered
+     */
+    public synchronized void unregister() throws JMException {
+        if(objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            objectName = null;
+        }
+    }
+
+    /**
+     * Counts a left rotation.
+     */
+    void leftRotation() {
+        leftRotations.increment();
+    }
+
+    /**
+     * Counts a right rotation.
+     */
+    void rightRotation() {
+        rightRotations.increment();
+    }
+
+    /**
+     * Counts a hit of the passed repair case.
+     * @param repairCase    case that has been hit
+     */
+    void repair(RepairCase repairCase) {
+        repairCases[repairCase.ordinal()].increment();
+    }
+
+    /**
+     * Counts a comparison.
+     */
+    void comparison() {
+        comparisons.increment();
+    }
+
+    /**
+     * Updates the peak depth.
+     * @param depth depth of an inserted Node after repairInsert()
+     */
+    void inserted(int depth) {
+        peakDepth.accumulate(depth);
+    }
+
+    /**
+     * Replaces the peak depth by the height of a tree that has been cleared or rebuilt, since the depths recorded so
+     * far no longer exist.
+     * @param height    height of the tree, 0 if it is empty
+     */
+    void rebuilt(int height) {
+        peakDepth.reset();
+        peakDepth.accumulate(height);
+    }
+
+    /**
+     * Records a timed add().
+     * @param nanos duration of the call
+     * @param blackHeight   black height afterwards
+     */
+    void add(long nanos, int blackHeight) {
+        addLatency.record(nanos);
+        this.blackHeight = blackHeight;
+    }
+
+    /**
+     * Records a timed contains().
+     * @param nanos duration of the call
+     */
+    void contains(long nanos) {
+        containsLatency.record(nanos);
+    }
+
+    /**
+     * Records a timed remove().
+     * @param nanos duration of the call
+     * @param blackHeight   black height afterwards
+     */
+    void remove(long nanos, int blackHeight) {
+        removeLatency.record(nanos);
+        this.blackHeight = blackHeight;
+    }
+
+    @Override
+    public long getLeftRotations() {
+        return leftRotations.sum();
+    }
+
+    @Override
+    public long getRightRotations() {
+        return rightRotations.sum();
+    }
+
+    @Override
+    public Map<String, Long> getRepairCases() {
+        Map<String, Long> cases = new LinkedHashMap<>();
+        for(RepairCase repairCase : RepairCase.values())
+            cases.put(repairCase.name(), repairCases[repairCase.ordinal()].sum());
+        return cases;
+    }
+
+    /**
+     * Returns how often the passed repair case has been hit.
+     * @param repairCase    case to look up
+     * @return  number of hits
+     */
+    public long getRepairCase(RepairCase repairCase) {
+        return repairCases[repairCase.ordinal()].sum();
+    }
+
+    @Override
+    public long getComparisons() {
+        return comparisons.sum();
+    }
+
+    @Override
+    public long getOperations() {
+        return addLatency.total() + containsLatency.total() + removeLatency.total();
+    }
+
+    @Override
+    public double getComparisonsPerOperation() {
+        long operations = getOperations();
+        return operations == 0 ? 0 : (double) getComparisons() / operations;
+    }
+
+    @Override
+    public int getPeakDepth() {
+        return (int) peakDepth.get();
+    }
+
+    @Override
+    public int getBlackHeight() {
+        return blackHeight;
+    }
+
+    @Override
+    public long[] getAddLatencyHistogram() {
+        return addLatency.counts();
+    }
+
+    @Override
+    public long[] getContainsLatencyHistogram() {
+        return containsLatency.counts();
+    }
+
+    @Override
+    public long[] getRemoveLatencyHistogram() {
+        return removeLatency.counts();
+    }
+
+    @Override
+    public long getAddLatencyP99Nanos() {
+        return addLatency.percentile(0.99);
+    }
+
+    @Override
+    public long getContainsLatencyP99Nanos() {
+        return containsLatency.percentile(0.99);
+    }
+
+    @Override
+    public long getRemoveLatencyP99Nanos() {
+        return removeLatency.percentile(0.99);
+    }
+
+    @Override
+    public void reset() {
+        leftRotations.reset();
+        rightRotations.reset();
+        for(LongAdder repairCase : repairCases)
+            repairCase.reset();
+        comparisons.reset();
+        peakDepth.reset();
+        blackHeight = 0;
+        addLatency.reset();
+        containsLatency.reset();
+        removeLatency.reset();
+    }
+}
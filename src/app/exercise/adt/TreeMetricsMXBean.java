@@ -0,0 +1,101 @@
+package app.exercise.adt;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link TreeMetrics}, exposed through JMX. Counters accumulate from the time the metrics have
+ * been attached to a tree or last been reset. Latency histograms have one bucket per power of two, bucket i counting the
+ * calls that took between 2^i and 2^(i+1) - 1 nanoseconds.
+ */
+public interface TreeMetricsMXBean {
+    /**
+     * Returns the number of left rotations.
+     * @return  number of left rotations
+     */
+    long getLeftRotations();
+
+    /**
+     * Returns the number of right rotations.
+     * @return  number of right rotations
+     */
+    long getRightRotations();
+
+    /**
+     * Returns how often each case of repairInsert() and repairDelete() has been hit, keyed by the name of the case.
+     * @return  hits per repair case
+     */
+    Map<String, Long> getRepairCases();
+
+    /**
+     * Returns the number of element comparisons.
+     * @return  number of comparisons
+     */
+    long getComparisons();
+
+    /**
+     * Returns the number of timed add(), contains() and remove() calls.
+     * @return  number of operations
+     */
+    long getOperations();
+
+    /**
+     * Returns the average number of comparisons per timed operation.
+     * @return  comparisons per operation, 0 if there has been no operation
+     */
+    double getComparisonsPerOperation();
+
+    /**
+     * Returns the greatest depth of a Node after its insertion has been repaired, the root having depth 1. Clearing or
+     * rebuilding the tree, by loadSorted(), a large batch or a set operation, resets it to the height of the new tree.
+     * Removals do not lower it, so it is a high-water mark and only an upper bound of the current height.
+     * @return  peak depth
+     */
+    int getPeakDepth();
+
+    /**
+     * Returns the black height of the tree after the last timed modification.
+     * @return  black height
+     */
+    int getBlackHeight();
+
+    /**
+     * Returns the latency histogram of add().
+     * @return  calls per bucket
+     */
+    long[] getAddLatencyHistogram();
+
+    /**
+     * Returns the latency histogram of contains().
+     * @return  calls per bucket
+     */
+    long[] getContainsLatencyHistogram();
+
+    /**
+     * Returns the latency histogram of remove().
+     * @return  calls per bucket
+     */
+    long[] getRemoveLatencyHistogram();
+
+    /**
+     * Returns the upper bound of the bucket that holds the 99th percentile of the add() latencies.
+     * @return  99th percentile in nanoseconds
+     */
+    long getAddLatencyP99Nanos();
+
+    /**
+     * Returns the upper bound of the bucket that holds the 99th percentile of the contains() latencies.
+     * @return  99th percentile in nanoseconds
+     */
+    long getContainsLatencyP99Nanos();
+
+    /**
+     * Returns the upper bound of the bucket that holds the 99th percentile of the remove() latencies.
+     * @return  99th percentile in nanoseconds
+     */
+    long getRemoveLatencyP99Nanos();
+
+    /**
+     * Resets all counters, gauges and histograms.
+     */
+    void reset();
+}
@@ -0,0 +1,431 @@
+package app.exercise.adt;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the modifications of a {@link RedBlackTree}. A tree that has a log attached by
+ * {@link RedBlackTree#setLog(WriteAheadLog)} appends a record for every add(), remove(), removal through an iterator,
+ * poll, batch operation, load and clear before it applies the modification, or undoes a load whose record can not be
+ * appended, so a modification that can not be logged is not applied. Records are written to the file when they are
+ * synced, how often that happens is determined by the {@link SyncPolicy}. Several records that are synced together
+ * share one fsync (group commit).
+ * <p>
+ * Every record is checksummed:
+ * <pre>
+ * int     length of type, count and keys in bytes
+ * int     CRC32 of type, count and keys
+ * byte    type: 1 add, 2 remove, 3 clear
+ * int     number of keys
+ * count * width    keys encoded by the {@link KeyCodec}
+ * </pre>
+ * When the log is opened, a torn or corrupt tail left by a crash is cut off, so only complete records are replayed.
+ * {@link #recover(RedBlackTree, Path)} restores a tree from the latest snapshot and the log, {@link #checkpoint(RedBlackTree, Path)}
+ * writes a new snapshot and empties the log.
+ * @param <E>   type of the logged elements
+ */
+public class WriteAheadLog<E> implements Closeable {
+    /**
+     * Determines when records are written to the file and forced to the storage device.
+     */
+    public enum SyncPolicy {
+        /**
+         * Every record is synced before the modification returns. Slowest, but no acknowledged modification can be lost.
+         */
+        PER_OPERATION,
+        /**
+         * Records are synced once groupSize of them are pending. At most groupSize - 1 modifications can be lost.
+         */
+        BATCHED,
+        /**
+         * Records are synced by a background thread every intervalMillis milliseconds. Modifications of the last interval can be lost.
+         */
+        TIMED
+    }
+
+    /**
+     * record type of added elements.
+     */
+    static final byte ADD = 1;
+    /**
+     * record type of removed elements.
+     */
+    static final byte REMOVE = 2;
+    /**
+     * record type of a cleared tree.
+     */
+    static final byte CLEAR = 3;
+    /**
+     * size of length and checksum in front of every record.
+     */
+    private static final int FRAME = 8;
+    /**
+     * size of type and count at the start of every record.
+     */
+    private static final int RECORD_HEADER = 5;
+
+    /**
+     * the log file.
+     */
+    private final Path file;
+    /**
+     * channel the records are appended to.
+     */
+    private final FileChannel channel;
+    /**
+     * codec that encodes the elements.
+     */
+    private final KeyCodec<E> codec;
+    /**
+     * when records are synced.
+     */
+    private final SyncPolicy policy;
+    /**
+     * number of pending records that triggers a sync with {@link SyncPolicy#BATCHED}.
+     */
+    private final int groupSize;
+    /**
+     * background thread that syncs with {@link SyncPolicy#TIMED}, null for the other policies.
+     */
+    private final Thread syncer;
+    /**
+     * records that have been appended but not synced yet.
+     */
+    private ByteBuffer pending = ByteBuffer.allocate(4096);
+    /**
+     * number of records in pending.
+     */
+    private int pendingRecords = 0;
+    /**
+     * number of fsync calls so far.
+     */
+    private long syncs = 0;
+    /**
+     * whether the log has been closed.
+     */
+    private boolean closed = false;
+
+    /**
+     * Opens the passed log file with {@link SyncPolicy#PER_OPERATION}, creating it if it does not exist.
+     * @param file  log file
+     * @param codec codec that encodes the elements
+     * @throws IOException if the file can not be opened
+     */
+    public WriteAheadLog(Path file, KeyCodec<E> codec) throws IOException {
+        this(file, codec, SyncPolicy.PER_OPERATION, 1, 0);
+    }
+
+    /**
+     * Opens the passed log file, creating it if it does not exist. A torn or corrupt tail is cut off.
+     * @param file  log file
+     * @param codec codec that encodes the elements
+     * @param policy    when records are synced
+     * @param groupSize number of records per sync with {@link SyncPolicy#BATCHED}, ignored otherwise
+     * @param intervalMillis    milliseconds between syncs with {@link SyncPolicy#TIMED}, ignored otherwise
+     * @throws IOException if the file can not be opened
+     * @throws IllegalArgumentException if groupSize or intervalMillis is not positive for the respective policy
+     */
+    public WriteAheadLog(Path file, KeyCodec<E> codec, SyncPolicy policy, int groupSize, long intervalMillis) throws IOException {
+        if(policy == SyncPolicy.BATCHED && groupSize < 1)
+            throw new IllegalArgumentException("Group size must be positive: " + groupSize);
+        if(policy == SyncPolicy.TIMED && intervalMillis < 1)
+            throw new IllegalArgumentException("Interval must be positive: " + intervalMillis);
+        this.file = file;
+        this.codec = codec;
+        this.policy = policy;
+        this.groupSize = policy == SyncPolicy.BATCHED ? groupSize : 1;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.truncate(validLength());
+        channel.position(channel.size());
+        if(policy == SyncPolicy.TIMED) {
+            syncer = new Thread(() -> syncPeriodically(intervalMillis), "WriteAheadLog-sync");
+            syncer.setDaemon(true);
+            syncer.start();
+        } else {
+            syncer = null;
+        }
+    }
+
+    /**
+     * Restores the passed tree from the passed snapshot, if it exists, and the records of this log, which are replayed
+     * with addBatch(), removeBatch() and clear(). Attaches the log to the tree afterwards.
+     * @param tree  empty tree to restore
+     * @param snapshot  latest snapshot written by {@link #checkpoint(RedBlackTree, Path)}
+     * @throws IOException if the snapshot or the log can not be read
+     * @throws IllegalStateException if the tree is not empty
+     */
+    public void recover(RedBlackTree<E> tree, Path snapshot) throws IOException {
+        if(!tree.isEmpty())
+            throw new IllegalStateException("Can only recover into an empty RedBlackTree.");
+        if(Files.exists(snapshot))
+            tree.mapSnapshot(snapshot, codec);
+        tree.setLog(null);
+        replay(tree);
+        tree.setLog(this);
+    }
+
+    /**
+     * Applies all records of the log to the passed tree. Replaying is idempotent for trees that do not count
+     * duplicates, so records that are already contained in the snapshot do no harm.
+     * @param tree  tree to apply the records to, must not have this log attached
+     * @throws IOException if the log can not be read
+     */
+    public synchronized void replay(RedBlackTree<E> tree) throws IOException {
+        sync();
+        long length = channel.size();
+        if(length == 0)
+            return;
+        if(length > Integer.MAX_VALUE)
+            throw new IOException(file + " exceeds 2 GB, write a checkpoint more often.");
+        MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        int offset = 0;
+        while(offset < length) {
+            int recordLength = in.getInt(offset);
+            int start = offset + FRAME;
+            byte type = in.get(start);
+            int count = in.getInt(start + 1);
+            List<E> keys = new ArrayList<>(count);
+            for(int i = 0; i < count; i++)
+                keys.add(codec.read(in, start + RECORD_HEADER + i * codec.width()));
+            if(type == ADD)
+                tree.addBatch(keys);
+            else if(type == REMOVE)
+                tree.removeBatch(keys);
+            else
+                tree.clear();
+            offset = start + recordLength;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the passed tree and empties the log afterwards. {@link RedBlackTree#writeSnapshot(Path, KeyCodec)}
+     * replaces the old snapshot atomically, so a crash leaves either the old snapshot with the full log or the new one.
+     * @param tree  tree this log is attached to
+     * @param snapshot  snapshot file
+     * @throws IOException if the snapshot can not be written
+     */
+    public synchronized void checkpoint(RedBlackTree<E> tree, Path snapshot) throws IOException {
+        sync();
+        tree.writeSnapshot(snapshot, codec);
+        channel.truncate(0);
+        channel.force(true);
+    }
+
+    /**
+     * Returns the number of fsync calls so far.
+     * @return  number of syncs
+     */
+    public synchronized long getSyncCount() {
+        return syncs;
+    }
+
+    /**
+     * Returns the policy the log has been opened with.
+     * @return  sync policy
+     */
+    public SyncPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Writes all pending records to the file and forces them to the storage device with a single fsync. If that fails,
+     * the records stay pending and the next sync writes them again at the same position.
+     * @throws IOException if the records can not be written
+     */
+    public synchronized void sync() throws IOException {
+        if(pendingRecords == 0)
+            return;
+        long position = channel.position();
+        ByteBuffer out = pending.duplicate();
+        out.flip();
+        try {
+            while(out.hasRemaining())
+                channel.write(out);
+            channel.force(false);
+        } catch (IOException e) {
+            channel.position(position);
+            throw e;
+        }
+        pending.clear();
+        pendingRecords = 0;
+        syncs++;
+    }
+
+    /**
+     * Syncs pending records, stops the background thread and closes the file.
+     * @throws IOException if the records can not be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized(this) {
+            if(closed)
+                return;
+            closed = true;
+        }
+        if(syncer != null) {
+            syncer.interrupt();
+            try {
+                syncer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized(this) {
+            try {
+                sync();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Appends a record for an added element.
+     * @param e added element
+     */
+    void added(E e) {
+        append(ADD, Collections.singletonList(e));
+    }
+
+    /**
+     * Appends a record for a removed element.
+     * @param e removed element
+     */
+    void removed(E e) {
+        append(REMOVE, Collections.singletonList(e));
+    }
+
+    /**
+     * Appends one record for a batch of added elements.
+     * @param c added elements
+     */
+    void addedAll(Collection<? extends E> c) {
+        append(ADD, c);
+    }
+
+    /**
+     * Appends one record for a batch of removed elements.
+     * @param c removed elements
+     */
+    void removedAll(Collection<? extends E> c) {
+        append(REMOVE, c);
+    }
+
+    /**
+     * Appends a record for a cleared tree.
+     */
+    void cleared() {
+        append(CLEAR, Collections.emptyList());
+    }
+
+    /**
+     * Encodes a record into the pending buffer and syncs according to the policy. The tree appends the record before it
+     * applies the modification, so a record that can not be synced is taken out of the pending buffer again and the
+     * tree stays unchanged.
+     * @param type  record type
+     * @param keys  keys of the record
+     * @throws UncheckedIOException if the log can not be written, the tree does not apply the modification then
+     * @throws IllegalStateException if the log has been closed
+     */
+    private synchronized void append(byte type, Collection<? extends E> keys) {
+        if(closed)
+            throw new IllegalStateException("WriteAheadLog has been closed.");
+        int recordLength = RECORD_HEADER + keys.size() * codec.width();
+        ensurePending(FRAME + recordLength);
+        int start = pending.position();
+        int body = start + FRAME;
+        pending.put(body, type);
+        pending.putInt(body + 1, keys.size());
+        int offset = body + RECORD_HEADER;
+        for(E key : keys) {
+            codec.write(pending, offset, key);
+            offset += codec.width();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(pending.array(), body, recordLength);
+        pending.putInt(start, recordLength);
+        pending.putInt(start + 4, (int) crc.getValue());
+        pending.position(body + recordLength);
+        pendingRecords++;
+        if(policy != SyncPolicy.TIMED && pendingRecords >= groupSize) {
+            try {
+                sync();
+            } catch (IOException e) {
+                pending.position(start);
+                pendingRecords--;
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Grows the pending buffer so that it can take the passed number of additional bytes.
+     * @param bytes number of bytes to append
+     */
+    private void ensurePending(int bytes) {
+        if(pending.remaining() >= bytes)
+            return;
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+        pending.flip();
+        grown.put(pending);
+        pending = grown;
+    }
+
+    /**
+     * Returns the length of the longest prefix of the file that consists of complete records with valid checksums.
+     * @return  length of the valid prefix in bytes
+     * @throws IOException if the file can not be read
+     */
+    private long validLength() throws IOException {
+        long length = channel.size();
+        if(length == 0)
+            return 0;
+        MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(length, Integer.MAX_VALUE));
+        int offset = 0;
+        CRC32 crc = new CRC32();
+        while(offset + FRAME + RECORD_HEADER <= in.limit()) {
+            int recordLength = in.getInt(offset);
+            int start = offset + FRAME;
+            if(recordLength < RECORD_HEADER || recordLength > in.limit() - start)
+                break;
+            int count = in.getInt(start + 1);
+            if(count < 0 || (long) count * codec.width() != recordLength - RECORD_HEADER)
+                break;
+            crc.reset();
+            crc.update(in.slice(start, recordLength));
+            if((int) crc.getValue() != in.getInt(offset + 4))
+                break;
+            offset = start + recordLength;
+        }
+        return offset;
+    }
+
+    /**
+     * Body of the background thread of {@link SyncPolicy#TIMED}.
+     * @param intervalMillis    milliseconds between syncs
+     */
+    private void syncPeriodically(long intervalMillis) {
+        while(!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(intervalMillis);
+                sync();
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                // the next append or close() reports the failure
+            }
+        }
+    }
+}
@@ -18,22 +18,25 @@ public class CompRational extends Rational implements Comparable<CompRational> {
 
     /**
      * Compares this object with the specified object for order.
-     * Returns -1 , 0, 1 as this object is less than, equal to, or greater than the specified object. This implementation of compareTo() is
-     * consistent with equals, so (x.compareTo(y)==0) == (x.equals(y)).
+     * Returns -1 , 0, 1 as this object is less than, equal to, or greater than the specified object. Since both
+     * denominators are positive, a/b &lt; c/d holds iff a*d &lt; c*b. The products of two ints always fit into a long,
+     * so the comparison is exact and needs no division. If the numerators have different signs, their signs decide
+     * without multiplying. Both objects are cancelled, so they have the same value iff numerators and denominators are
+     * equal, which makes compareTo() consistent with {@link Rational#equals(Object)} and {@link Rational#hashCode()}:
+     * (x.compareTo(y)==0) == (x.equals(y)).
      * @param obj the object to be compared.
      * @return -1 , 0, 1 as this object is less than, equal to, or greater than the specified object
      */
     @Override
     public int compareTo(CompRational obj) {
-        // compute the double representations of the Rational objects, since there is a natural order on them, that is
-        // consistent with equals()
-        double realThis = (double) this.getNum() / (double) this.getDenom();
-        double realObj = (double) obj.getNum() / (double) obj.getDenom();
-        if(realThis < realObj)
-            return -1;
-        else if(realThis > realObj)
-            return 1;
-        else
+        int num = this.getNum();
+        int objNum = obj.getNum();
+        int sign = Integer.signum(num);
+        int objSign = Integer.signum(objNum);
+        if(sign != objSign)
+            return sign < objSign ? -1 : 1;
+        if(sign == 0)
             return 0;
+        return Long.compare((long) num * obj.getDenom(), (long) objNum * this.getDenom());
     }
 }
@@ -0,0 +1,63 @@
+package app.exercise.algebra;
+
+import app.exercise.adt.KeyCodec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link KeyCodec} for {@link CompRational} keys. Stores numerator and denominator as two ints (8 bytes) and compares
+ * them exactly by cross-multiplying in long arithmetic, which cannot overflow and needs no decoding of the stored key.
+ */
+public class CompRationalCodec implements KeyCodec<CompRational> {
+    /**
+     * Shared instance, the codec has no state.
+     */
+    public static final CompRationalCodec INSTANCE = new CompRationalCodec();
+
+    /**
+     * Returns the width of an encoded CompRational, which is 8 bytes.
+     * @return  8
+     */
+    @Override
+    public int width() {
+        return 2 * Integer.BYTES;
+    }
+
+    /**
+     * Writes numerator and denominator of the passed key.
+     * @param buf   buffer to write to
+     * @param offset    absolute offset of the first byte
+     * @param key   key to encode
+     */
+    @Override
+    public void write(ByteBuffer buf, int offset, CompRational key) {
+        buf.putInt(offset, key.getNum());
+        buf.putInt(offset + Integer.BYTES, key.getDenom());
+    }
+
+    /**
+     * Reads numerator and denominator and returns them as new CompRational.
+     * @param buf   buffer to read from
+     * @param offset    absolute offset of the first byte
+     * @return  decoded CompRational
+     */
+    @Override
+    public CompRational read(ByteBuffer buf, int offset) {
+        return new CompRational(buf.getInt(offset), buf.getInt(offset + Integer.BYTES));
+    }
+
+    /**
+     * Compares the passed key with the stored one. Since both denominators are positive, a/b &lt; c/d holds iff
+     * a*d &lt; c*b.
+     * @param key   key to compare
+     * @param buf   buffer holding the encoded key
+     * @param offset    absolute offset of the encoded key
+     * @return  -1, 0, 1 as key is less than, equal to, or greater than the stored key
+     */
+    @Override
+    public int compare(CompRational key, ByteBuffer buf, int offset) {
+        long num = buf.getInt(offset);
+        long denom = buf.getInt(offset + Integer.BYTES);
+        return Long.compare(key.getNum() * denom, num * key.getDenom());
+    }
+}
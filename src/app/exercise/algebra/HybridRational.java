@@ -0,0 +1,394 @@
+package app.exercise.algebra;
+
+import java.math.BigInteger;
+
+/**
+ * Rational number that cannot overflow. As long as numerator and denominator fit into a long, they are stored in two
+ * long fields and the arithmetic runs on them with {@link Math#multiplyExact(long, long)} and friends, which allocates
+ * nothing. If an operation overflows, it is repeated on BigIntegers and the result is stored in two BigInteger fields;
+ * as soon as a cancelled result fits into longs again, it is demoted. So the representation only depends on the value:
+ * a HybridRational is compact iff numerator and denominator fit into a long. Like {@link Rational}, the number is always
+ * cancelled and the denominator is always positive. {@link Rational} operands are accepted as well.
+ */
+public class HybridRational implements Arithmetic {
+    /**
+     * numerator, only valid if {@link #bigNum} is null.
+     */
+    private long num;
+    /**
+     * denominator, only valid if {@link #bigNum} is null. Is guaranteed to be always positive.
+     */
+    private long denom;
+    /**
+     * numerator if it or the denominator does not fit into a long, otherwise null.
+     */
+    private BigInteger bigNum;
+    /**
+     * denominator if it or the numerator does not fit into a long, otherwise null.
+     */
+    private BigInteger bigDenom;
+
+    /**
+     * Initializes a new HybridRational with the passed numerator and denominator and cancels them.
+     * @param num   numerator
+     * @param denom denominator
+     * @throws IllegalArgumentException if denom is 0
+     */
+    public HybridRational(long num, long denom) {
+        if(denom == 0)
+            throw new IllegalArgumentException("Division by Zero.");
+        try {
+            setCompact(num, denom);
+        } catch(ArithmeticException e) {
+            // Long.MIN_VALUE cannot be negated
+            setBig(BigInteger.valueOf(num), BigInteger.valueOf(denom));
+        }
+    }
+
+    /**
+     * Initializes a new HybridRational with the passed numerator and denominator and cancels them.
+     * @param num   numerator
+     * @param denom denominator
+     * @throws IllegalArgumentException if denom is 0
+     */
+    public HybridRational(BigInteger num, BigInteger denom) {
+        if(denom.signum() == 0)
+            throw new IllegalArgumentException("Division by Zero.");
+        setBig(num, denom);
+    }
+
+    /**
+     * Initializes a new HybridRational with the value of the passed Rational.
+     * @param r Rational to convert
+     */
+    public HybridRational(Rational r) {
+        this(r.getNum(), r.getDenom());
+    }
+
+    /**
+     * Clone constructor. Returns a new HybridRational that is identical to the passed one.
+     * @param r HybridRational to clone
+     */
+    public HybridRational(HybridRational r) {
+        this.num = r.num;
+        this.denom = r.denom;
+        this.bigNum = r.bigNum;
+        this.bigDenom = r.bigDenom;
+    }
+
+    /**
+     * Returns the numerator.
+     * @return  numerator
+     */
+    public BigInteger getNum() {
+        return bigNum != null ? bigNum : BigInteger.valueOf(num);
+    }
+
+    /**
+     * Returns the denominator, which is always positive.
+     * @return  denominator
+     */
+    public BigInteger getDenom() {
+        return bigDenom != null ? bigDenom : BigInteger.valueOf(denom);
+    }
+
+    /**
+     * Returns whether numerator and denominator are stored as longs.
+     * @return  true if both fit into a long, false if they are stored as BigIntegers
+     */
+    public boolean isCompact() {
+        return bigNum == null;
+    }
+
+    /**
+     * Adds an operand of type {@link HybridRational} or {@link Rational} to this object.
+     * @param operand operand that is added.
+     * @throws IllegalArgumentException if operand is of neither type
+     */
+    @Override
+    public void add(Arithmetic operand) {
+        if(operand instanceof HybridRational) {
+            HybridRational r = (HybridRational) operand;
+            if(r.bigNum == null)
+                add(r.num, r.denom);
+            else
+                add(r.bigNum, r.bigDenom);
+        } else if(operand instanceof Rational) {
+            Rational r = (Rational) operand;
+            add(numOf(r), denomOf(r));
+        } else {
+            throw new IllegalArgumentException("Only rationals can be added to HybridRationals");
+        }
+    }
+
+    /**
+     * Subtracts an operand of type {@link HybridRational} or {@link Rational} from this object.
+     * @param operand operand that is subtracted.
+     * @throws IllegalArgumentException if operand is of neither type
+     */
+    @Override
+    public void sub(Arithmetic operand) {
+        if(operand instanceof HybridRational) {
+            HybridRational r = (HybridRational) operand;
+            if(r.bigNum == null && r.num != Long.MIN_VALUE)
+                add(-r.num, r.denom);
+            else
+                add(r.getNum().negate(), r.getDenom());
+        } else if(operand instanceof Rational) {
+            Rational r = (Rational) operand;
+            add(-numOf(r), denomOf(r));
+        } else {
+            throw new IllegalArgumentException("Only rationals can be subtracted from HybridRationals");
+        }
+    }
+
+    /**
+     * Multiplies this object with an operand of type {@link HybridRational} or {@link Rational}.
+     * @param operand operand that is multiplied with.
+     * @throws IllegalArgumentException if operand is of neither type
+     */
+    @Override
+    public void mul(Arithmetic operand) {
+        if(operand instanceof HybridRational) {
+            HybridRational r = (HybridRational) operand;
+            if(r.bigNum == null)
+                mul(r.num, r.denom);
+            else
+                mul(r.bigNum, r.bigDenom);
+        } else if(operand instanceof Rational) {
+            Rational r = (Rational) operand;
+            mul(numOf(r), denomOf(r));
+        } else {
+            throw new IllegalArgumentException("Only rationals can be multiplied with HybridRationals");
+        }
+    }
+
+    /**
+     * Divides this object by an operand of type {@link HybridRational} or {@link Rational}.
+     * @param operand operand that is divided by.
+     * @throws IllegalArgumentException if operand is of neither type or 0
+     */
+    @Override
+    public void div(Arithmetic operand) {
+        if(operand instanceof HybridRational) {
+            HybridRational r = (HybridRational) operand;
+            if(r.bigNum == null && r.num == 0)
+                throw new IllegalArgumentException("Division by Zero.");
+            if(r.bigNum == null && r.num != Long.MIN_VALUE)
+                mul(r.num < 0 ? -r.denom : r.denom, Math.abs(r.num));
+            else if(r.getNum().signum() < 0)
+                mul(r.getDenom().negate(), r.getNum().negate());
+            else
+                mul(r.getDenom(), r.getNum());
+        } else if(operand instanceof Rational) {
+            Rational r = (Rational) operand;
+            long n = numOf(r);
+            long d = denomOf(r);
+            if(n == 0)
+                throw new IllegalArgumentException("Division by Zero.");
+            mul(n < 0 ? -d : d, Math.abs(n));
+        } else {
+            throw new IllegalArgumentException("HybridRationals can only be divided by Rationals");
+        }
+    }
+
+    /**
+     * Returns the numerator of a Rational operand with the sign of its value. The int arithmetic of Rational can
+     * overflow to the denominator Integer.MIN_VALUE, which cancel() cannot negate; widened to a long it can.
+     * @param r Rational operand
+     * @return  numerator of the cancelled value with positive denominator {@link #denomOf(Rational)}
+     */
+    private static long numOf(Rational r) {
+        return r.getDenom() < 0 ? -(long) r.getNum() : r.getNum();
+    }
+
+    /**
+     * Returns the denominator of a Rational operand as positive long, see {@link #numOf(Rational)}.
+     * @param r Rational operand
+     * @return  positive denominator
+     * @throws IllegalArgumentException if the denominator overflowed to 0
+     */
+    private static long denomOf(Rational r) {
+        if(r.getDenom() == 0)
+            throw new IllegalArgumentException("Division by Zero.");
+        return Math.abs((long) r.getDenom());
+    }
+
+    /**
+     * Adds n / d, which must be cancelled and have a positive denominator. Cancels before multiplying, so the
+     * intermediate results stay as small as possible and the sum needs no further cancellation.
+     * @param n numerator of the operand
+     * @param d denominator of the operand
+     */
+    private void add(long n, long d) {
+        if(bigNum == null) {
+            try {
+                long g = gcd(denom, d);
+                if(g == 1) {
+                    long sumNum = Math.addExact(Math.multiplyExact(num, d), Math.multiplyExact(denom, n));
+                    denom = Math.multiplyExact(denom, d);
+                    num = sumNum;
+                } else {
+                    long t = Math.addExact(Math.multiplyExact(num, d / g), Math.multiplyExact(n, denom / g));
+                    long g2 = gcd(t, g);
+                    denom = Math.multiplyExact(denom / g, d / g2);
+                    num = t / g2;
+                }
+                if(num == 0)
+                    denom = 1;
+                return;
+            } catch(ArithmeticException e) {
+                // overflow, this object is unchanged, repeat with BigIntegers
+            }
+        }
+        add(BigInteger.valueOf(n), BigInteger.valueOf(d));
+    }
+
+    /**
+     * Adds n / d on BigIntegers.
+     * @param n numerator of the operand
+     * @param d positive denominator of the operand
+     */
+    private void add(BigInteger n, BigInteger d) {
+        BigInteger thisDenom = getDenom();
+        setBig(getNum().multiply(d).add(thisDenom.multiply(n)), thisDenom.multiply(d));
+    }
+
+    /**
+     * Multiplies with n / d, which must be cancelled and have a positive denominator. Cancels crosswise before
+     * multiplying, so the product needs no further cancellation.
+     * @param n numerator of the operand
+     * @param d denominator of the operand
+     */
+    private void mul(long n, long d) {
+        if(bigNum == null) {
+            try {
+                long g1 = gcd(num, d);
+                long g2 = gcd(n, denom);
+                long productNum = Math.multiplyExact(num / g1, n / g2);
+                denom = Math.multiplyExact(denom / g2, d / g1);
+                num = productNum;
+                if(num == 0)
+                    denom = 1;
+                return;
+            } catch(ArithmeticException e) {
+                // overflow, this object is unchanged, repeat with BigIntegers
+            }
+        }
+        mul(BigInteger.valueOf(n), BigInteger.valueOf(d));
+    }
+
+    /**
+     * Multiplies with n / d on BigIntegers.
+     * @param n numerator of the operand
+     * @param d positive denominator of the operand
+     */
+    private void mul(BigInteger n, BigInteger d) {
+        setBig(getNum().multiply(n), getDenom().multiply(d));
+    }
+
+    /**
+     * Cancels the passed values and stores them as longs.
+     * @param num   numerator
+     * @param denom denominator, not 0
+     * @throws ArithmeticException if a sign change overflows
+     */
+    private void setCompact(long num, long denom) {
+        long gcd = gcd(num, denom);
+        num /= gcd;
+        denom /= gcd;
+        if(denom < 0) {
+            denom = Math.negateExact(denom);
+            num = Math.negateExact(num);
+        }
+        this.num = num;
+        this.denom = num == 0 ? 1 : denom;
+        this.bigNum = null;
+        this.bigDenom = null;
+    }
+
+    /**
+     * Cancels the passed values and stores them as longs if both fit, otherwise as BigIntegers.
+     * @param num   numerator
+     * @param denom denominator, not 0
+     */
+    private void setBig(BigInteger num, BigInteger denom) {
+        BigInteger gcd = num.gcd(denom);
+        if(denom.signum() < 0)
+            gcd = gcd.negate();
+        num = num.divide(gcd);
+        denom = num.signum() == 0 ? BigInteger.ONE : denom.divide(gcd);
+        if(num.bitLength() < Long.SIZE && denom.bitLength() < Long.SIZE) {
+            this.num = num.longValue();
+            this.denom = denom.longValue();
+            this.bigNum = null;
+            this.bigDenom = null;
+        } else {
+            this.bigNum = num;
+            this.bigDenom = denom;
+        }
+    }
+
+    /**
+     * Clones the current object.
+     * @return a copy of the current object.
+     */
+    @Override
+    public HybridRational clone() {
+        return new HybridRational(this);
+    }
+
+    /**
+     * Returns a String representation of the current object.
+     * E.g. "5 / 3" or "-6 / 9"
+     * @return String representation of current object.
+     */
+    @Override
+    public String toString() {
+        return bigNum != null ? bigNum + " / " + bigDenom : num + " / " + denom;
+    }
+
+    /**
+     * Returns true if the passed Object is a HybridRational with the same value. Since both are cancelled and the
+     * representation only depends on the value, it suffices to compare the fields.
+     * @param obj Object to compare to.
+     * @return boolean - true if the Objects are equal, otherwise false
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if(obj instanceof HybridRational) {
+            HybridRational r = (HybridRational) obj;
+            if(bigNum == null)
+                return r.bigNum == null && num == r.num && denom == r.denom;
+            return bigNum.equals(r.bigNum) && bigDenom.equals(r.bigDenom);
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a hash value of numerator and denominator.
+     * @return hash value
+     */
+    @Override
+    public int hashCode() {
+        if(bigNum == null)
+            return 31 * Long.hashCode(num) + Long.hashCode(denom);
+        return 31 * bigNum.hashCode() + bigDenom.hashCode();
+    }
+
+    /**
+     * Function to calculate the greatest common divisor of two longs.
+     * @param a first value
+     * @param b second value, not 0
+     * @return long - positive gcd of a and b
+     */
+    private static long gcd(long a, long b) {
+        while(b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return Math.abs(a);
+    }
+}
@@ -0,0 +1,36 @@
+package app.exercise.algebra;
+
+/**
+ * Interface specifying basic operations addition, subtraction, multiplication and division on immutable objects. In
+ * contrast to {@link Arithmetic}, the operations leave both operands unchanged and return the result as new object.
+ * @param <T> type of the operands and results
+ */
+public interface ImmutableArithmetic<T extends ImmutableArithmetic<T>> {
+    /**
+     * add operand to object
+     * @param operand operand that is added
+     * @return sum
+     */
+    T add(T operand);
+
+    /**
+     * subtract operand from object
+     * @param operand operand that is subtracted
+     * @return difference
+     */
+    T sub(T operand);
+
+    /**
+     * multiply object by operand
+     * @param operand operand that is multiplied with
+     * @return product
+     */
+    T mul(T operand);
+
+    /**
+     * divide object by operand
+     * @param operand operand that is divided by
+     * @return quotient
+     */
+    T div(T operand);
+}
@@ -0,0 +1,240 @@
+package app.exercise.algebra;
+
+/**
+ * Immutable rational number. Numerator and denominator are final and are cancelled once when the object is created, so
+ * equals(), hashCode() and compareTo() need no further cancellation, and results that are known to be cancelled, like
+ * the sum of two integers, are created without computing a gcd. The operations compute in long arithmetic, in which the
+ * products of two ints cannot overflow, and throw an ArithmeticException if the cancelled result does not fit into an
+ * int. Since ImmutableRationals cannot change, they can be shared and stored in sorted collections without defensive
+ * copies. The class is small and final, its operations have no side effects and create their result at a single place
+ * after all computations, so the JIT can inline them and replace temporaries that do not escape by their fields. The
+ * denominator is always positive.
+ */
+public final class ImmutableRational implements ImmutableArithmetic<ImmutableRational>, Comparable<ImmutableRational> {
+    /**
+     * the number 0.
+     */
+    public static final ImmutableRational ZERO = new ImmutableRational(0, 1);
+    /**
+     * the number 1.
+     */
+    public static final ImmutableRational ONE = new ImmutableRational(1, 1);
+
+    /**
+     * cancelled numerator.
+     */
+    private final int num;
+    /**
+     * cancelled denominator, always positive.
+     */
+    private final int denom;
+
+    /**
+     * Creates an ImmutableRational from a numerator and denominator that are already cancelled.
+     * @param num   cancelled numerator
+     * @param denom cancelled, positive denominator
+     */
+    private ImmutableRational(int num, int denom) {
+        this.num = num;
+        this.denom = denom;
+    }
+
+    /**
+     * Returns an ImmutableRational with the value num / denom.
+     * @param num   numerator
+     * @param denom denominator
+     * @return  cancelled ImmutableRational
+     * @throws IllegalArgumentException if denom is 0
+     * @throws ArithmeticException if the cancelled value does not fit into ints, which only happens for
+     * Integer.MIN_VALUE
+     */
+    public static ImmutableRational of(int num, int denom) {
+        if(denom == 0)
+            throw new IllegalArgumentException("Division by Zero.");
+        return cancel(num, denom);
+    }
+
+    /**
+     * Returns an ImmutableRational with the value of the passed Rational. Cancels it again, because the int arithmetic
+     * of Rational can overflow to a negative or zero denominator.
+     * @param r Rational to convert
+     * @return  cancelled ImmutableRational with the same value
+     * @throws IllegalArgumentException if the denominator of r is 0
+     * @throws ArithmeticException if the cancelled value does not fit into ints, e.g. for the denominator
+     * Integer.MIN_VALUE
+     */
+    public static ImmutableRational of(Rational r) {
+        if(r.getDenom() == 0)
+            throw new IllegalArgumentException("Division by Zero.");
+        return cancel(r.getNum(), r.getDenom());
+    }
+
+    /**
+     * Cancels num / denom and returns it as ImmutableRational.
+     * @param num   numerator
+     * @param denom denominator, not 0
+     * @return  cancelled ImmutableRational
+     * @throws ArithmeticException if the cancelled value does not fit into ints
+     */
+    private static ImmutableRational cancel(long num, long denom) {
+        long divisor = divisor(num, denom);
+        return new ImmutableRational(Math.toIntExact(num / divisor), Math.toIntExact(denom / divisor));
+    }
+
+    /**
+     * Returns the number num and denom have to be divided by to cancel them and make the denominator positive.
+     * @param num   numerator
+     * @param denom denominator, not 0
+     * @return  gcd of num and denom, negative if denom is negative
+     */
+    private static long divisor(long num, long denom) {
+        long gcd = gcd(num, denom);
+        return denom < 0 ? -gcd : gcd;
+    }
+
+    /**
+     * Returns the numerator.
+     * @return numerator value of this object.
+     */
+    public int getNum() {
+        return num;
+    }
+
+    /**
+     * Returns the denominator.
+     * @return denominator value of this object, always positive.
+     */
+    public int getDenom() {
+        return denom;
+    }
+
+    /**
+     * Returns the sum of this object and the operand. If both are integers, the sum is not cancelled.
+     * @param operand operand that is added
+     * @return sum
+     * @throws ArithmeticException if the sum does not fit into ints
+     */
+    @Override
+    public ImmutableRational add(ImmutableRational operand) {
+        long n = (long) num * operand.denom + (long) operand.num * denom;
+        long d = (long) denom * operand.denom;
+        long divisor = d == 1 ? 1 : divisor(n, d);
+        return new ImmutableRational(Math.toIntExact(n / divisor), Math.toIntExact(d / divisor));
+    }
+
+    /**
+     * Returns the difference of this object and the operand. If both are integers, the difference is not cancelled.
+     * @param operand operand that is subtracted
+     * @return difference
+     * @throws ArithmeticException if the difference does not fit into ints
+     */
+    @Override
+    public ImmutableRational sub(ImmutableRational operand) {
+        long n = (long) num * operand.denom - (long) operand.num * denom;
+        long d = (long) denom * operand.denom;
+        long divisor = d == 1 ? 1 : divisor(n, d);
+        return new ImmutableRational(Math.toIntExact(n / divisor), Math.toIntExact(d / divisor));
+    }
+
+    /**
+     * Returns the product of this object and the operand. If both are integers, the product is not cancelled.
+     * @param operand operand that is multiplied with
+     * @return product
+     * @throws ArithmeticException if the product does not fit into ints
+     */
+    @Override
+    public ImmutableRational mul(ImmutableRational operand) {
+        long n = (long) num * operand.num;
+        long d = (long) denom * operand.denom;
+        long divisor = d == 1 ? 1 : divisor(n, d);
+        return new ImmutableRational(Math.toIntExact(n / divisor), Math.toIntExact(d / divisor));
+    }
+
+    /**
+     * Returns the quotient of this object and the operand.
+     * @param operand operand that is divided by
+     * @return quotient
+     * @throws IllegalArgumentException if operand is 0
+     * @throws ArithmeticException if the quotient does not fit into ints
+     */
+    @Override
+    public ImmutableRational div(ImmutableRational operand) {
+        if(operand.num == 0)
+            throw new IllegalArgumentException("Division by Zero.");
+        long n = (long) num * operand.denom;
+        long d = (long) denom * operand.num;
+        long divisor = divisor(n, d);
+        return new ImmutableRational(Math.toIntExact(n / divisor), Math.toIntExact(d / divisor));
+    }
+
+    /**
+     * Compares this object with the specified object for order, exactly by cross-multiplying in long arithmetic like
+     * {@link CompRational#compareTo(CompRational)}. Consistent with equals().
+     * @param obj the object to be compared.
+     * @return -1 , 0, 1 as this object is less than, equal to, or greater than the specified object
+     */
+    @Override
+    public int compareTo(ImmutableRational obj) {
+        if(denom == obj.denom)
+            return Integer.compare(num, obj.num);
+        return Long.compare((long) num * obj.denom, (long) obj.num * denom);
+    }
+
+    /**
+     * Returns a mutable {@link CompRational} with the value of this object.
+     * @return new CompRational
+     */
+    public CompRational toCompRational() {
+        return new CompRational(num, denom);
+    }
+
+    /**
+     * Returns a String representation of the current object.
+     * E.g. "5 / 3" or "-6 / 9"
+     * @return String representation of current object.
+     */
+    @Override
+    public String toString() {
+        return num + " / " + denom;
+    }
+
+    /**
+     * Returns true if the passed Object is an ImmutableRational with the same value. Since both are cancelled, it
+     * suffices to compare the fields.
+     * @param obj Object to compare to.
+     * @return boolean - true if the Objects are equal, otherwise false
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if(obj instanceof ImmutableRational) {
+            ImmutableRational r = (ImmutableRational) obj;
+            return num == r.num && denom == r.denom;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the same hash value as a {@link Rational} with the same value.
+     * @return hash value of the current object
+     */
+    @Override
+    public int hashCode() {
+        return Rational.hash(num, denom);
+    }
+
+    /**
+     * Function to calculate the greatest common divisor of two longs.
+     * @param a first value
+     * @param b second value, not 0
+     * @return long - positive gcd of a and b
+     */
+    private static long gcd(long a, long b) {
+        while(b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return Math.abs(a);
+    }
+}
@@ -212,13 +212,24 @@ public class Rational implements Arithmetic {
     }
 
     /**
-     * Uses very sophisticated methods to compute a hash value for the
-     * current Rational object. Curiously always returns 42.
-     * @return Answer to the Ultimate Question of Life, the Universe, and Everything.
+     * Computes a hash value from numerator and denominator. Since both are always cancelled and the denominator is
+     * positive, equal Rationals have equal fields and thus equal hash values.
+     * @return hash value of the current object
      */
     @Override
     public int hashCode() {
-        return 42;
+        return hash(num, denom);
+    }
+
+    /**
+     * Returns the hash value of a Rational with the passed cancelled numerator and denominator, as returned by
+     * {@link #hashCode()}.
+     * @param num cancelled numerator
+     * @param denom cancelled, positive denominator
+     * @return int - hash value
+     */
+    static int hash(int num, int denom) {
+        return 31 * num + denom;
     }
 
     /**
@@ -7,6 +7,8 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.Stack;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Executable class that reads in reversed polish notation from standard input and evaluates the expression.
@@ -14,6 +16,18 @@ import java.util.Stack;
  * @version 1.0
  */
 public class RPN {
+    /**
+     * Delimiter of operands and operators.
+     */
+    private static final Pattern WHITESPACE = Pattern.compile("\\s");
+    /**
+     * Format of an operand.
+     */
+    private static final Pattern OPERAND = Pattern.compile("\\d+");
+    /**
+     * Format of an operand or operator.
+     */
+    private static final Pattern TOKEN = Pattern.compile("(\\+||\\*||\\/||\\-)||\\d+");
     /**
      * Stack of {@link Arithmetic} objects to store the operands of the reversed polish notation.
      */
@@ -22,6 +36,14 @@ public class RPN {
      * Used to store the individual operands and operators of the RPN.
      */
     private String[] rpn;
+    /**
+     * Matcher of {@link #OPERAND}, reset for every token.
+     */
+    private final Matcher operand = OPERAND.matcher("");
+    /**
+     * Matcher of {@link #TOKEN}, reset for every token.
+     */
+    private final Matcher token = TOKEN.matcher("");
 
     /**
      * Constructor for the reverse polish notation object.
@@ -45,9 +67,9 @@ public class RPN {
             throw new IllegalArgumentException("Input had wrong format. Only positive integers " +
                     "and operators +, *, /, * are allowed.");
         else
-            rpn = input.split("\\s");
+            rpn = WHITESPACE.split(input);
         for(String s : rpn) {
-            if(s.matches("\\d+")) {
+            if(operand.reset(s).matches()) {
                 int d = Integer.parseInt(s);
                 stack.push(new CompRational(d, 1));
             } else {
@@ -100,10 +122,10 @@ public class RPN {
      * @param input String to check.
      * @return true if the content of the passed String matches the RPN specifications, otherwise false.
      */
-    private static boolean checkInput(String input) {
-        String[] s = input.split("\\s");
+    private boolean checkInput(String input) {
+        String[] s = WHITESPACE.split(input);
         for(String elem : s) {
-            if(!elem.matches("(\\+||\\*||\\/||\\-)||\\d+"))
+            if(!token.reset(elem).matches())
                 return false;
         }
         return true;
@@ -0,0 +1,77 @@
+package app.exercise.testing;
+
+import app.exercise.adt.BPlusTree;
+import app.exercise.adt.DuplicatePolicy;
+import app.exercise.adt.RedBlackTree;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Executable class that compares a RedBlackTree with {@link BPlusTree}s of different orders. Inserts a number of distinct
+ * Integers in random order (first command line argument, defaults to 1_000_000), looks up as many random keys of which
+ * half are stored and scans all elements in ascending order. Prints the time of each phase in milliseconds, the best out
+ * of three runs.
+ */
+public class TestBPlusTree {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Integer[] keys = new Integer[n];
+        Integer[] probes = new Integer[n];
+        Random rnd = new Random(42);
+        for(int i = 0; i < n; i++) {
+            keys[i] = 2 * i;
+            probes[i] = rnd.nextInt(2 * n);
+        }
+        for(int i = n - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            Integer tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+
+        System.out.printf("%-20s %12s %12s %12s%n", "Tree", "insert ms", "lookup ms", "scan ms");
+        run("RedBlackTree", () -> new RedBlackTree<>(DuplicatePolicy.REJECT), keys, probes);
+        for(int order : new int[] {16, 64, 256})
+            run("BPlusTree(" + order + ")", () -> new BPlusTree<>(order), keys, probes);
+    }
+
+    /**
+     * Measures the three phases on fresh sets created by the passed factory and prints the best times.
+     * @param name  name to print
+     * @param factory   creates an empty set
+     * @param keys  keys to insert
+     * @param probes    keys to look up
+     */
+    private static void run(String name, Supplier<Collection<Integer>> factory, Integer[] keys,
+                            Integer[] probes) {
+        double insert = Double.MAX_VALUE;
+        double lookup = Double.MAX_VALUE;
+        double scan = Double.MAX_VALUE;
+        long found = 0;
+        for(int run = 0; run < 3; run++) {
+            Collection<Integer> set = factory.get();
+            long start = System.nanoTime();
+            for(Integer key : keys)
+                set.add(key);
+            insert = Math.min(insert, (System.nanoTime() - start) / 1e6);
+
+            start = System.nanoTime();
+            for(Integer probe : probes) {
+                if(set.contains(probe))
+                    found++;
+            }
+            lookup = Math.min(lookup, (System.nanoTime() - start) / 1e6);
+
+            start = System.nanoTime();
+            int scanned = 0;
+            for(Integer ignored : set)
+                scanned++;
+            scan = Math.min(scan, (System.nanoTime() - start) / 1e6);
+            if(scanned != keys.length)
+                throw new IllegalStateException(name + " returned " + scanned + " elements instead of " + keys.length + ".");
+        }
+        System.out.printf("%-20s %12.1f %12.1f %12.1f   (%d hits)%n", name, insert, lookup, scan, found / 3);
+    }
+}
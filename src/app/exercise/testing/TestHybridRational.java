@@ -0,0 +1,105 @@
+package app.exercise.testing;
+
+import app.exercise.algebra.Arithmetic;
+import app.exercise.algebra.HybridRational;
+import app.exercise.algebra.Rational;
+
+import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Executable class that compares {@link Rational} with {@link HybridRational}. First sums up 1/1 + 1/2 + ... + 1/60
+ * with both, which overflows the ints of Rational and the longs of HybridRational, then subtracts the sum again to show
+ * that the HybridRational is demoted to longs. Then applies all four operations to a Rational whose denominator
+ * overflowed to Integer.MIN_VALUE and checks that the results are canonical. Afterwards measures add() and mul() on a
+ * number of random operand pairs that fit into an int (first command line argument, defaults to 1_000_000) and prints
+ * the best time out of five runs in milliseconds.
+ */
+public class TestHybridRational {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        Rational rational = new Rational(0, 1);
+        HybridRational hybrid = new HybridRational(0, 1);
+        for(int k = 1; k <= 60; k++) {
+            rational.add(new Rational(1, k));
+            hybrid.add(new HybridRational(1, k));
+        }
+        System.out.println("H(60) as Rational:       " + rational);
+        System.out.println("H(60) as HybridRational: " + hybrid + " (compact: " + hybrid.isCompact() + ")");
+        HybridRational sum = hybrid.clone();
+        hybrid.sub(sum);
+        hybrid.add(new Rational(1, 2));
+        System.out.println("H(60) - H(60) + 1/2:     " + hybrid + " (compact: " + hybrid.isCompact() + ")");
+
+        // Rational cannot negate the denominator Integer.MIN_VALUE, so this operand is stored as 1 / -2147483648
+        Rational overflowed = new Rational(1, Integer.MIN_VALUE);
+        HybridRational[] results = {new HybridRational(0, 1), new HybridRational(0, 1), new HybridRational(1, 1),
+                new HybridRational(1, 1)};
+        HybridRational[] expected = {new HybridRational(-1, 1L << 31), new HybridRational(1, 1L << 31),
+                new HybridRational(-1, 1L << 31), new HybridRational(-(1L << 31), 1)};
+        results[0].add(overflowed);
+        results[1].sub(overflowed);
+        results[2].mul(overflowed);
+        results[3].div(overflowed);
+        String[] names = {"0 + ", "0 - ", "1 * ", "1 / "};
+        for(int i = 0; i < results.length; i++) {
+            System.out.println(names[i] + "(" + overflowed + ") = " + results[i] + " (canonical: "
+                    + results[i].equals(expected[i]) + ")");
+        }
+
+        Random rnd = new Random(42);
+        Rational[] left = new Rational[n];
+        Rational[] right = new Rational[n];
+        HybridRational[] hybridLeft = new HybridRational[n];
+        HybridRational[] hybridRight = new HybridRational[n];
+        for(int i = 0; i < n; i++) {
+            left[i] = new Rational(rnd.nextInt(20_000) - 10_000, rnd.nextInt(10_000) + 1);
+            right[i] = new Rational(rnd.nextInt(10_000) + 1, rnd.nextInt(10_000) + 1);
+            hybridLeft[i] = new HybridRational(left[i]);
+            hybridRight[i] = new HybridRational(right[i]);
+        }
+        System.out.printf("%-10s %12s %16s%n", "operation", "Rational", "HybridRational");
+        print("add", left, right, Rational::new, Rational::add, hybridLeft, hybridRight, HybridRational::new,
+                HybridRational::add);
+        print("mul", left, right, Rational::new, Rational::mul, hybridLeft, hybridRight, HybridRational::new,
+                HybridRational::mul);
+    }
+
+    /**
+     * Measures an operation on both types and prints the best times.
+     * @param name  name of the operation
+     * @param left  left Rational operands
+     * @param right right Rational operands
+     * @param copy  copies a Rational
+     * @param op    operation on Rationals
+     * @param hybridLeft    left HybridRational operands
+     * @param hybridRight   right HybridRational operands
+     * @param hybridCopy    copies a HybridRational
+     * @param hybridOp  operation on HybridRationals
+     */
+    private static void print(String name, Rational[] left, Rational[] right, Function<Rational, Rational> copy,
+                              BiConsumer<Rational, Arithmetic> op, HybridRational[] hybridLeft,
+                              HybridRational[] hybridRight, Function<HybridRational, HybridRational> hybridCopy,
+                              BiConsumer<HybridRational, Arithmetic> hybridOp) {
+        double rationalMillis = Double.MAX_VALUE;
+        double hybridMillis = Double.MAX_VALUE;
+        for(int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            for(int i = 0; i < left.length; i++) {
+                Rational r = copy.apply(left[i]);
+                op.accept(r, right[i]);
+            }
+            rationalMillis = Math.min(rationalMillis, (System.nanoTime() - start) / 1e6);
+
+            start = System.nanoTime();
+            for(int i = 0; i < hybridLeft.length; i++) {
+                HybridRational r = hybridCopy.apply(hybridLeft[i]);
+                hybridOp.accept(r, hybridRight[i]);
+            }
+            hybridMillis = Math.min(hybridMillis, (System.nanoTime() - start) / 1e6);
+        }
+        System.out.printf("%-10s %12.1f %16.1f%n", name, rationalMillis, hybridMillis);
+    }
+}
@@ -0,0 +1,93 @@
+package app.exercise.testing;
+
+import app.exercise.adt.DuplicatePolicy;
+import app.exercise.adt.RedBlackTree;
+import app.exercise.algebra.CompRational;
+import app.exercise.algebra.ImmutableRational;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+/**
+ * Executable class that compares {@link CompRational} with {@link ImmutableRational}. Evaluates x * y + z for a number
+ * of random triples (first command line argument, defaults to 1_000_000) and counts the results greater than 1/2. With
+ * CompRationals x has to be copied first, since mul() and add() change it; ImmutableRationals create two temporaries per
+ * triple that do not escape. Prints time and allocated bytes per triple of the last out of ten runs, when the JIT has
+ * replaced the temporaries by their fields. Afterwards shows that a CompRational that is changed while stored in a
+ * RedBlackTree can no longer be found.
+ */
+public class TestImmutableRational {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random rnd = new Random(42);
+        CompRational[] x = new CompRational[n];
+        CompRational[] y = new CompRational[n];
+        CompRational[] z = new CompRational[n];
+        ImmutableRational[] ix = new ImmutableRational[n];
+        ImmutableRational[] iy = new ImmutableRational[n];
+        ImmutableRational[] iz = new ImmutableRational[n];
+        for(int i = 0; i < n; i++) {
+            x[i] = new CompRational(rnd.nextInt(2000) - 1000, rnd.nextInt(1000) + 1);
+            y[i] = new CompRational(rnd.nextInt(2000) - 1000, rnd.nextInt(1000) + 1);
+            z[i] = new CompRational(rnd.nextInt(2000) - 1000, rnd.nextInt(1000) + 1);
+            ix[i] = ImmutableRational.of(x[i]);
+            iy[i] = ImmutableRational.of(y[i]);
+            iz[i] = ImmutableRational.of(z[i]);
+        }
+        CompRational threshold = new CompRational(1, 2);
+        ImmutableRational immutableThreshold = ImmutableRational.of(1, 2);
+
+        IntSupplier mutable = () -> {
+            int count = 0;
+            for(int i = 0; i < n; i++) {
+                CompRational r = new CompRational(x[i].getNum(), x[i].getDenom());
+                r.mul(y[i]);
+                r.add(z[i]);
+                if(r.compareTo(threshold) > 0)
+                    count++;
+            }
+            return count;
+        };
+        IntSupplier immutable = () -> {
+            int count = 0;
+            for(int i = 0; i < n; i++) {
+                if(ix[i].mul(iy[i]).add(iz[i]).compareTo(immutableThreshold) > 0)
+                    count++;
+            }
+            return count;
+        };
+        System.out.printf("%-14s %12s %16s %10s%n", "type", "ns / triple", "bytes / triple", "> 1/2");
+        print("CompRational", mutable, n);
+        print("Immutable", immutable, n);
+
+        RedBlackTree<CompRational> rbt = new RedBlackTree<>(DuplicatePolicy.REJECT);
+        for(int i = 0; i < 100; i++)
+            rbt.add(new CompRational(i, 1));
+        CompRational key = new CompRational(50, 1);
+        rbt.iterator().next().add(new CompRational(1000, 1));
+        System.out.println("Changed the smallest stored CompRational to 1000 / 1, contains(1000 / 1): "
+                + rbt.contains(new CompRational(1000, 1)) + ", contains(50 / 1): " + rbt.contains(key));
+    }
+
+    /**
+     * Runs the passed loop ten times and prints time and allocated bytes per triple of the last run.
+     * @param name  name to print
+     * @param loop  loop over all triples, returns the number of results greater than 1/2
+     * @param n number of triples
+     */
+    private static void print(String name, IntSupplier loop, int n) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long nanos = 0;
+        long bytes = 0;
+        int count = 0;
+        for(int run = 0; run < 10; run++) {
+            bytes = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            count = loop.getAsInt();
+            nanos = System.nanoTime() - start;
+            bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+        }
+        System.out.printf("%-14s %12.1f %16.1f %10d%n", name, (double) nanos / n, (double) bytes / n, count);
+    }
+}
@@ -0,0 +1,102 @@
+package app.exercise.testing;
+
+import app.exercise.adt.IntRedBlackTree;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Executable class that checks {@link IntRedBlackTree} against TreeSet. Performs a number of random add(), remove() and
+ * contains() calls on keys of a small range (first command line argument, defaults to 1_000_000), so that all three
+ * often hit stored keys. Every 1_000 operations compares size, first(), last(), both iteration orders, select(), rank()
+ * and count() and removes every third key through the iterator. Prints the number of mismatches, which should be 0.
+ */
+public class TestIntRedBlackTree {
+    /**
+     * number of mismatches found so far.
+     */
+    private static int mismatches = 0;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random rnd = new Random(42);
+        IntRedBlackTree rbt = new IntRedBlackTree();
+        TreeSet<Integer> oracle = new TreeSet<>();
+
+        for(int i = 1; i <= n; i++) {
+            int k = rnd.nextInt(2_000) - 1_000;
+            switch(rnd.nextInt(3)) {
+                case 0:
+                    check("add(" + k + ")", rbt.add(k), oracle.add(k));
+                    break;
+                case 1:
+                    check("remove(" + k + ")", rbt.remove(k), oracle.remove(k));
+                    break;
+                default:
+                    check("contains(" + k + ")", rbt.contains(k), oracle.contains(k));
+            }
+            if(i % 1_000 == 0)
+                compare(rbt, oracle, rnd);
+        }
+        rbt.clear();
+        oracle.clear();
+        compare(rbt, oracle, rnd);
+        System.out.println("Mismatches: " + mismatches);
+    }
+
+    /**
+     * Compares the whole content of both sets and removes every third key through the iterator of both.
+     * @param rbt   tree to check
+     * @param oracle    set with the expected content
+     * @param rnd   source of the keys for rank() and count()
+     */
+    private static void compare(IntRedBlackTree rbt, TreeSet<Integer> oracle, Random rnd) {
+        check("size()", rbt.size(), oracle.size());
+        int[] expected = oracle.stream().mapToInt(Integer::intValue).toArray();
+        check("iterator()", Arrays.toString(rbt.toArray()), Arrays.toString(expected));
+        int[] descending = oracle.descendingSet().stream().mapToInt(Integer::intValue).toArray();
+        int[] actual = new int[rbt.size()];
+        int i = 0;
+        for(PrimitiveIterator.OfInt it = rbt.rIterator(); it.hasNext() && i < actual.length; )
+            actual[i++] = it.nextInt();
+        check("rIterator()", Arrays.toString(actual), Arrays.toString(descending));
+        if(!oracle.isEmpty()) {
+            check("first()", rbt.first(), oracle.first());
+            check("last()", rbt.last(), oracle.last());
+            int k = rnd.nextInt(expected.length);
+            check("select(" + k + ")", rbt.select(k), expected[k]);
+        }
+        int from = rnd.nextInt(2_000) - 1_000;
+        int to = from + rnd.nextInt(500);
+        check("rank(" + from + ")", rbt.rank(from), oracle.headSet(from).size());
+        check("count(" + from + ", " + to + ")", rbt.count(from, to), oracle.subSet(from, to).size());
+
+        PrimitiveIterator.OfInt it = rbt.iterator();
+        Iterator<Integer> oracleIt = oracle.iterator();
+        for(i = 0; it.hasNext(); i++) {
+            int k = it.nextInt();
+            check("iterator().next()", k, (int) oracleIt.next());
+            if(i % 3 == 0) {
+                it.remove();
+                oracleIt.remove();
+            }
+        }
+        check("size() after iterator().remove()", rbt.size(), oracle.size());
+    }
+
+    /**
+     * Counts and prints a mismatch if the passed values differ.
+     * @param what  description of the checked operation
+     * @param actual    value returned by the IntRedBlackTree
+     * @param expected  value returned by the TreeSet
+     */
+    private static void check(String what, Object actual, Object expected) {
+        if(!actual.equals(expected)) {
+            mismatches++;
+            System.out.println(what + " returned " + actual + ", expected " + expected);
+        }
+    }
+}
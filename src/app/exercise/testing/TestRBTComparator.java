@@ -0,0 +1,59 @@
+package app.exercise.testing;
+
+import app.exercise.adt.DuplicatePolicy;
+import app.exercise.adt.RedBlackTree;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Executable class that checks containsAll() of RedBlackTrees with natural and reversed order against TreeSet. Builds
+ * a number of random pairs of trees (first command line argument, defaults to 1_000), where the second tree is a subset
+ * of the first in half of the cases, and compares the results of all four combinations of orders with TreeSet. Prints
+ * the number of mismatches, which should be 0.
+ */
+public class TestRBTComparator {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        Random rnd = new Random(42);
+        int mismatches = 0;
+        for(int i = 0; i < n; i++) {
+            TreeSet<Integer> a = new TreeSet<>();
+            TreeSet<Integer> b = new TreeSet<>();
+            int size = rnd.nextInt(200);
+            while(a.size() < size)
+                a.add(rnd.nextInt(1_000));
+            for(Integer e : a) {
+                if(rnd.nextInt(4) == 0)
+                    b.add(e);
+            }
+            if(rnd.nextBoolean())
+                b.add(rnd.nextInt(1_000));
+            boolean expected = a.containsAll(b);
+
+            for(Comparator<Integer> aOrder : orders()) {
+                for(Comparator<Integer> bOrder : orders()) {
+                    RedBlackTree<Integer> rbtA = new RedBlackTree<>(aOrder, false, DuplicatePolicy.REJECT);
+                    RedBlackTree<Integer> rbtB = new RedBlackTree<>(bOrder, false, DuplicatePolicy.REJECT);
+                    rbtA.addAll(a);
+                    rbtB.addAll(b);
+                    if(rbtA.containsAll(rbtB) != expected) {
+                        mismatches++;
+                        System.out.println("containsAll() returned " + !expected + " for " + rbtA + " and " + rbtB);
+                    }
+                }
+            }
+        }
+        System.out.println("Mismatches: " + mismatches);
+    }
+
+    /**
+     * Returns the orders to combine: natural order (null) and reversed order.
+     * @return  array of comparators
+     */
+    @SuppressWarnings("unchecked")
+    private static Comparator<Integer>[] orders() {
+        return (Comparator<Integer>[]) new Comparator<?>[] {null, Comparator.reverseOrder()};
+    }
+}
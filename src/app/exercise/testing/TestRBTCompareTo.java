@@ -0,0 +1,100 @@
+package app.exercise.testing;
+
+import app.exercise.adt.DuplicatePolicy;
+import app.exercise.adt.RedBlackTree;
+import app.exercise.adt.TreeMetrics;
+import app.exercise.algebra.CompRational;
+
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Executable class that compares the exact {@link CompRational#compareTo(CompRational)} with the former comparison,
+ * which divided numerator by denominator in double arithmetic. First inserts two different CompRationals that round to
+ * the same double into a tree ordered each way. Then fills both trees with a number of random CompRationals (first
+ * command line argument, defaults to 1_000_000), looks up as many random ones and prints the best lookup time out of
+ * ten runs without metrics, the number of comparisons counted by {@link TreeMetrics} in an extra run and the lookup time
+ * per comparison. Both orders need the same number of comparisons, so the times differ only by the cost of compare().
+ */
+public class TestRBTCompareTo {
+    /**
+     * Former comparison of CompRationals by their double values.
+     */
+    private static final Comparator<CompRational> DOUBLE_ORDER = (a, b) ->
+            Double.compare((double) a.getNum() / a.getDenom(), (double) b.getNum() / b.getDenom());
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        CompRational a = new CompRational(Integer.MAX_VALUE - 1, Integer.MAX_VALUE);
+        CompRational b = new CompRational(Integer.MAX_VALUE - 2, Integer.MAX_VALUE - 1);
+        RedBlackTree<CompRational> doubleTree = new RedBlackTree<>(DOUBLE_ORDER, false, DuplicatePolicy.REJECT);
+        RedBlackTree<CompRational> exactTree = new RedBlackTree<>(DuplicatePolicy.REJECT);
+        doubleTree.add(a);
+        doubleTree.add(b);
+        exactTree.add(a);
+        exactTree.add(b);
+        System.out.println(a + " and " + b + ": double order keeps " + doubleTree.size() + ", exact order keeps "
+                + exactTree.size() + " elements");
+
+        Random rnd = new Random(42);
+        CompRational[] keys = new CompRational[n];
+        CompRational[] probes = new CompRational[n];
+        for(int i = 0; i < n; i++) {
+            keys[i] = new CompRational(rnd.nextInt(2_000_000) - 1_000_000, rnd.nextInt(1_000_000) + 1);
+            probes[i] = new CompRational(rnd.nextInt(2_000_000) - 1_000_000, rnd.nextInt(1_000_000) + 1);
+        }
+        doubleTree = new RedBlackTree<>(DOUBLE_ORDER, false, DuplicatePolicy.REJECT);
+        exactTree = new RedBlackTree<>(DuplicatePolicy.REJECT);
+        for(CompRational key : keys) {
+            doubleTree.add(key);
+            exactTree.add(key);
+        }
+
+        double doubleMillis = Double.MAX_VALUE;
+        double exactMillis = Double.MAX_VALUE;
+        for(int run = 0; run < 10; run++) {
+            // alternate which order is measured first, so neither profits from the other warming up caches
+            if(run % 2 == 0) {
+                doubleMillis = Math.min(doubleMillis, lookup(doubleTree, probes));
+                exactMillis = Math.min(exactMillis, lookup(exactTree, probes));
+            } else {
+                exactMillis = Math.min(exactMillis, lookup(exactTree, probes));
+                doubleMillis = Math.min(doubleMillis, lookup(doubleTree, probes));
+            }
+        }
+        System.out.printf("%-8s %12s %14s %16s%n", "order", "lookup ms", "comparisons", "ns / comparison");
+        print("double", doubleMillis, doubleTree, probes);
+        print("exact", exactMillis, exactTree, probes);
+    }
+
+    /**
+     * Looks up all probes.
+     * @param rbt   tree to search
+     * @param probes    keys to look up
+     * @return  duration in milliseconds
+     */
+    private static double lookup(RedBlackTree<CompRational> rbt, CompRational[] probes) {
+        long start = System.nanoTime();
+        for(CompRational probe : probes)
+            rbt.contains(probe);
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    /**
+     * Counts the comparisons of one more lookup of all probes with {@link TreeMetrics} and prints them with the passed
+     * time.
+     * @param name  name to print
+     * @param millis    best lookup time
+     * @param rbt   searched tree
+     * @param probes    keys to look up
+     */
+    private static void print(String name, double millis, RedBlackTree<CompRational> rbt, CompRational[] probes) {
+        TreeMetrics metrics = new TreeMetrics();
+        rbt.setMetrics(metrics);
+        lookup(rbt, probes);
+        rbt.setMetrics(null);
+        long comparisons = metrics.getComparisons();
+        System.out.printf("%-8s %12.1f %14d %16.2f%n", name, millis, comparisons, millis * 1e6 / comparisons);
+    }
+}
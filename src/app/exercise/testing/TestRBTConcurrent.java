@@ -0,0 +1,60 @@
+package app.exercise.testing;
+
+import app.exercise.adt.ConcurrentRedBlackTree;
+import app.exercise.adt.DuplicatePolicy;
+import app.exercise.adt.RedBlackTree;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Executable class that compares the throughput of a RedBlackTree wrapped by Collections.synchronizedCollection() with
+ * a {@link ConcurrentRedBlackTree} on a read-heavy mix (95% contains(), 5% add()/remove()). Runs for 1 up to the number
+ * of available processors threads (doubling) and prints million operations per second. The first command line argument
+ * sets the duration per run in milliseconds (defaults to 1000).
+ */
+public class TestRBTConcurrent {
+    /**
+     * Number of distinct keys the operations are drawn from.
+     */
+    private static final int KEYS = 1 << 20;
+
+    public static void main(String[] args) throws InterruptedException {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%-8s %15s %15s%n", "Threads", "synchronized", "StampedLock");
+        for(int threads = 1; threads <= Math.max(cores, 2); threads *= 2) {
+            Collection<Integer> sync = Collections.synchronizedCollection(new RedBlackTree<>(DuplicatePolicy.REJECT));
+            ConcurrentRedBlackTree<Integer> concurrent = new ConcurrentRedBlackTree<>();
+            for(int i = 0; i < KEYS; i += 2) {
+                sync.add(i);
+                concurrent.add(i);
+            }
+            double syncOps = run(sync, threads, millis);
+            double concurrentOps = run(concurrent, threads, millis);
+            System.out.printf("%-8d %15.2f %15.2f%n", threads, syncOps / 1e6, concurrentOps / 1e6);
+        }
+    }
+
+    /**
+     * Runs the read-heavy mix on the passed Collection with the passed number of threads.
+     * @param set   Collection to run on
+     * @param threads   number of threads
+     * @param millis    duration in milliseconds
+     * @return  operations per second
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    private static double run(Collection<Integer> set, int threads, long millis) throws InterruptedException {
+        return Throughput.measure(threads, millis, rnd -> {
+            int key = rnd.nextInt(KEYS);
+            int op = rnd.nextInt(100);
+            if(op < 95)
+                set.contains(key);
+            else if(op < 97)
+                set.add(key);
+            else
+                set.remove(key);
+        });
+    }
+}
@@ -0,0 +1,92 @@
+package app.exercise.testing;
+
+import app.exercise.adt.IntRedBlackTree;
+import app.exercise.adt.KeyCodec;
+import app.exercise.adt.OffHeapRedBlackTree;
+import app.exercise.adt.RedBlackTree;
+
+import java.util.Random;
+
+/**
+ * Executable class that reports the heap footprint of a RedBlackTree. Inserts a number of distinct Integers (first
+ * command line argument, defaults to 1_000_000) into a RedBlackTree and prints the number of bytes the tree occupies
+ * per stored element. The Integer keys are allocated before the first measurement, so only the tree structure is counted.
+ * Afterwards the same keys are inserted into an {@link OffHeapRedBlackTree}, for which the remaining heap usage and the
+ * reserved native memory are printed, and into an {@link IntRedBlackTree}, which stores the keys as primitive ints and
+ * is compared with the RedBlackTree including its boxed keys.
+ */
+public class TestRBTFootprint {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long before = usedMemory();
+        Integer[] keys = new Integer[n];
+        Random rnd = new Random(42);
+        for(int i = 0; i < n; i++)
+            keys[i] = i;
+        // shuffle keys so the tree is built from random insertion order
+        for(int i = n - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            Integer tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+        // the array of references is not part of a tree, but the Integer objects are
+        long boxedBytes = usedMemory() - before - 16 - 4L * n;
+
+        before = usedMemory();
+        RedBlackTree<Integer> rbt = new RedBlackTree<>();
+        for(Integer key : keys)
+            rbt.add(key);
+        long after = usedMemory();
+
+        System.out.println("Elements:          " + rbt.size());
+        System.out.println("Black height:      " + rbt.getBlackHeight());
+        System.out.println("Tree bytes:        " + (after - before));
+        System.out.printf("Bytes per element: %.2f%n", (double) (after - before) / n);
+        double rbtBytes = (double) (after - before + boxedBytes) / n;
+
+        rbt = null;
+        before = usedMemory();
+        try(OffHeapRedBlackTree<Integer> off = new OffHeapRedBlackTree<>(KeyCodec.INTEGER)) {
+            for(Integer key : keys)
+                off.add(key);
+            after = usedMemory();
+
+            System.out.println();
+            System.out.println("Off-heap elements: " + off.size());
+            System.out.println("Off-heap black height: " + off.getBlackHeight());
+            System.out.printf("Heap bytes per element:   %.2f%n", (double) (after - before) / n);
+            System.out.printf("Native bytes per element: %.2f%n", (double) off.reservedBytes() / n);
+        }
+
+        before = usedMemory();
+        IntRedBlackTree ints = new IntRedBlackTree();
+        for(Integer key : keys)
+            ints.add(key);
+        after = usedMemory();
+
+        System.out.println();
+        System.out.println("IntRedBlackTree elements: " + ints.size());
+        System.out.println("IntRedBlackTree black height: " + ints.getBlackHeight());
+        System.out.printf("RedBlackTree<Integer> bytes per element incl. keys: %.2f%n", rbtBytes);
+        System.out.printf("IntRedBlackTree bytes per element:                  %.2f%n", (double) (after - before) / n);
+    }
+
+    /**
+     * Runs the garbage collector a few times and returns the amount of heap memory currently in use.
+     * @return used heap memory in bytes
+     */
+    private static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        for(int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,75 @@
+package app.exercise.testing;
+
+import app.exercise.adt.DuplicatePolicy;
+import app.exercise.adt.RedBlackTree;
+import app.exercise.adt.TreeMetrics;
+
+import javax.management.JMException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Executable class that runs a random mix of add(), contains() and remove() calls (first command line argument, defaults
+ * to 1_000_000) on a RedBlackTree without and with {@link TreeMetrics}, prints the time of both runs and the collected
+ * metrics. The metrics are registered as MXBean; if a second argument is passed, the program waits that many seconds
+ * before it exits, so they can be inspected with jconsole.
+ */
+public class TestRBTMetrics {
+    public static void main(String[] args) throws JMException, InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        // warm up both paths before measuring
+        run(new RedBlackTree<>(DuplicatePolicy.REJECT), n);
+        RedBlackTree<Integer> warm = new RedBlackTree<>(DuplicatePolicy.REJECT);
+        warm.setMetrics(new TreeMetrics());
+        run(warm, n);
+
+        double plain = run(new RedBlackTree<>(DuplicatePolicy.REJECT), n);
+        RedBlackTree<Integer> rbt = new RedBlackTree<>(DuplicatePolicy.REJECT);
+        TreeMetrics metrics = new TreeMetrics();
+        rbt.setMetrics(metrics);
+        double instrumented = run(rbt, n);
+
+        System.out.printf("without metrics: %8.1f ms%n", plain);
+        System.out.printf("with metrics:    %8.1f ms%n", instrumented);
+        System.out.println("Registered as " + metrics.register("TestRBTMetrics"));
+        System.out.println("Left rotations:  " + metrics.getLeftRotations());
+        System.out.println("Right rotations: " + metrics.getRightRotations());
+        System.out.println("Repair cases:    " + metrics.getRepairCases());
+        System.out.printf("Comparisons per operation: %.2f%n", metrics.getComparisonsPerOperation());
+        System.out.println("Peak depth:      " + metrics.getPeakDepth());
+        System.out.println("Black height:    " + metrics.getBlackHeight());
+        System.out.println("add() p99:       " + metrics.getAddLatencyP99Nanos() + " ns");
+        System.out.println("contains() p99:  " + metrics.getContainsLatencyP99Nanos() + " ns");
+        System.out.println("remove() p99:    " + metrics.getRemoveLatencyP99Nanos() + " ns");
+        System.out.println("add() histogram: " + Arrays.toString(metrics.getAddLatencyHistogram()));
+        rbt.clear();
+        System.out.println("Peak depth after clear(): " + metrics.getPeakDepth());
+
+        if(args.length > 1)
+            Thread.sleep(Long.parseLong(args[1]) * 1000);
+        metrics.unregister();
+    }
+
+    /**
+     * Runs n random operations on keys below n / 2 on the passed tree.
+     * @param rbt   tree to run on
+     * @param n number of operations
+     * @return  duration in milliseconds
+     */
+    private static double run(RedBlackTree<Integer> rbt, int n) {
+        Random rnd = new Random(42);
+        long start = System.nanoTime();
+        for(int i = 0; i < n; i++) {
+            int key = rnd.nextInt(n / 2);
+            int op = rnd.nextInt(3);
+            if(op == 0)
+                rbt.add(key);
+            else if(op == 1)
+                rbt.contains(key);
+            else
+                rbt.remove(key);
+        }
+        return (System.nanoTime() - start) / 1e6;
+    }
+}
@@ -0,0 +1,38 @@
+package app.exercise.testing;
+
+import app.exercise.adt.DuplicatePolicy;
+import app.exercise.adt.RedBlackTree;
+import app.exercise.algebra.CompRational;
+
+import java.util.Random;
+
+/**
+ * Executable class that aggregates a RedBlackTree of random CompRationals with a sequential and a parallel stream, with
+ * and without order statistics (which give the Spliterator exact sizes for every split). Prints the best time out of
+ * five runs per variant. The first command line argument sets the number of elements (defaults to 1_000_000).
+ */
+public class TestRBTParallelStream {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-20s %15s %15s%n", "Tree", "sequential ms", "parallel ms");
+        for(boolean orderStatistics : new boolean[] {false, true}) {
+            RedBlackTree<CompRational> rbt = new RedBlackTree<>(orderStatistics, DuplicatePolicy.REJECT);
+            Random rnd = new Random(42);
+            while(rbt.size() < n)
+                rbt.add(new CompRational(rnd.nextInt(), rnd.nextInt(Integer.MAX_VALUE - 1) + 1));
+
+            double sequential = Double.MAX_VALUE;
+            double parallel = Double.MAX_VALUE;
+            for(int run = 0; run < 5; run++) {
+                long start = System.nanoTime();
+                rbt.stream().mapToDouble(r -> (double) r.getNum() / r.getDenom()).sum();
+                sequential = Math.min(sequential, (System.nanoTime() - start) / 1e6);
+                start = System.nanoTime();
+                rbt.parallelStream().mapToDouble(r -> (double) r.getNum() / r.getDenom()).sum();
+                parallel = Math.min(parallel, (System.nanoTime() - start) / 1e6);
+            }
+            System.out.printf("%-20s %15.1f %15.1f%n", orderStatistics ? "order statistics" : "plain", sequential, parallel);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package app.exercise.testing;
+
+import app.exercise.adt.DuplicatePolicy;
+import app.exercise.adt.PersistentRedBlackTree;
+import app.exercise.adt.RedBlackTree;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executable class that compares the cost of a point-in-time view of a RedBlackTree (a full copy) with
+ * {@link PersistentRedBlackTree#snapshot()}. Afterwards a writer keeps changing the persistent tree while reader threads
+ * take snapshots and iterate them without locks; prints the number of completed iterations and writes. The first command
+ * line argument sets the number of elements (defaults to 1_000_000).
+ */
+public class TestRBTPersistent {
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        RedBlackTree<Integer> rbt = new RedBlackTree<>(DuplicatePolicy.REJECT);
+        PersistentRedBlackTree<Integer> persistent = new PersistentRedBlackTree<>();
+        for(int i = 0; i < n; i++) {
+            rbt.add(i);
+            persistent.add(i);
+        }
+
+        long start = System.nanoTime();
+        RedBlackTree<Integer> copy = new RedBlackTree<>(DuplicatePolicy.REJECT);
+        copy.addAll(rbt);
+        long copyNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        PersistentRedBlackTree<Integer> snapshot = persistent.snapshot();
+        long snapshotNanos = System.nanoTime() - start;
+        System.out.printf("copy of RedBlackTree:    %12d ns (%d elements)%n", copyNanos, copy.size());
+        System.out.printf("persistent snapshot():   %12d ns (%d elements)%n", snapshotNanos, snapshot.size());
+
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder writes = new LongAdder();
+        LongAdder iterations = new LongAdder();
+        Thread writer = new Thread(() -> {
+            Random rnd = new Random(42);
+            while(!stop.get()) {
+                int key = rnd.nextInt(2 * n);
+                if(rnd.nextBoolean())
+                    persistent.add(key);
+                else
+                    persistent.remove(key);
+                writes.increment();
+            }
+        });
+        Thread[] readers = new Thread[Math.max(Runtime.getRuntime().availableProcessors() - 1, 1)];
+        for(int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                while(!stop.get()) {
+                    long count = 0;
+                    PersistentRedBlackTree<Integer> version = persistent.snapshot();
+                    for(Integer ignored : version)
+                        count++;
+                    if(count != version.size())
+                        throw new IllegalStateException("Snapshot changed during iteration.");
+                    iterations.increment();
+                }
+            });
+        }
+        writer.start();
+        for(Thread reader : readers)
+            reader.start();
+        Thread.sleep(2000);
+        stop.set(true);
+        writer.join();
+        for(Thread reader : readers)
+            reader.join();
+        System.out.printf("%d readers completed %d full iterations while %d writes were applied%n",
+                readers.length, iterations.sum(), writes.sum());
+    }
+}
@@ -1,6 +1,6 @@
 package app.exercise.testing;
 
-import app.exercise.adt.DuplicateElementException;
+import app.exercise.adt.DuplicatePolicy;
 import app.exercise.adt.RedBlackTree;
 import app.exercise.visualtree.RedBlackTreeDrawer;
 
@@ -8,12 +8,13 @@ import java.util.Random;
 
 /**
  * Executable Class to test the RedBlackTree. Instantiates a RedBlackTree for Integers and a RedBlackTreeDrawer to visualize the RBT.
- * Then inserts 100_000 non-equivalent Integer objects into the RedBlackTree.
+ * Then inserts 100_000 non-equivalent Integer objects into the RedBlackTree. The tree rejects duplicates by returning false,
+ * so every random number needs only one descent.
  */
 public class TestRBTRandom {
     public static void main(String[] args) {
         RedBlackTreeDrawer<Integer> visual = new RedBlackTreeDrawer<>();
-        RedBlackTree<Integer> rbt = new RedBlackTree<>();
+        RedBlackTree<Integer> rbt = new RedBlackTree<>(DuplicatePolicy.REJECT);
 
         Random rnd = new Random(42);
         int count = 0;
@@ -22,15 +23,14 @@ public class TestRBTRandom {
         try {
             while(count < 100_000) {
                 nmbr = rnd.nextInt();
-                if(!rbt.contains(nmbr)) {
-                    rbt.add(nmbr);
+                if(rbt.add(nmbr)) {
                     count++;
                     visual.draw(rbt.getRoot());
                     // change sleep amount for better visualization
                     Thread.sleep(0);
                 }
             }
-        } catch (InterruptedException | DuplicateElementException e) {
+        } catch (InterruptedException e) {
             System.out.println("rbt contains " + nmbr + rbt.contains(nmbr));
             e.printStackTrace();
         }
@@ -0,0 +1,126 @@
+package app.exercise.testing;
+
+import app.exercise.adt.DuplicatePolicy;
+import app.exercise.adt.RedBlackTree;
+import app.exercise.algebra.CompRational;
+
+import java.util.Random;
+import java.util.function.BiPredicate;
+
+/**
+ * Executable class that compares {@link RedBlackTree#union(RedBlackTree)},
+ * {@link RedBlackTree#intersection(RedBlackTree)} and {@link RedBlackTree#difference(RedBlackTree)}, which merge trees
+ * of comparable sizes and split and join otherwise, with the element-wise addAll(), retainAll() and removeAll() on two
+ * trees of random CompRationals that overlap by about half. The second tree holds n, n / 10 and n / 1000 elements.
+ * Prints the best time out of three runs in milliseconds. Afterwards splits the first tree at random elements with
+ * {@link RedBlackTree#split(Object)} and joins the halves again with {@link RedBlackTree#join(RedBlackTree)}, also with
+ * a tree that does not share its nil sentinel, and prints the average time per call. The first command line argument
+ * sets n (defaults to 1_000_000).
+ */
+public class TestRBTSetOperations {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-10s %-14s %15s %15s%n", "m", "operation", "element-wise", "set operation");
+        for(int m : new int[] {n, n / 10, n / 1000}) {
+            Random rnd = new Random(42);
+            RedBlackTree<CompRational> a = randomTree(rnd, n, 2 * n);
+            RedBlackTree<CompRational> b = randomTree(rnd, m, 2 * m);
+            print(m, "union", a, b, RedBlackTree::addAll, RedBlackTree::union);
+            print(m, "intersection", a, b, RedBlackTree::retainAll, RedBlackTree::intersection);
+            print(m, "difference", a, b, RedBlackTree::removeAll, RedBlackTree::difference);
+        }
+        splitAndJoin(new Random(42), n);
+    }
+
+    /**
+     * Splits a tree of n elements at random elements and joins the halves again, checking sizes and order after every
+     * call. Then joins a separately built tree of greater elements and splits it off again. The trees maintain order
+     * statistics, so split() does not have to count the elements it moves.
+     * @param rnd   source of randomness
+     * @param n number of elements
+     */
+    private static void splitAndJoin(Random rnd, int n) {
+        RedBlackTree<CompRational> expected = randomTree(rnd, n, 2 * n);
+        RedBlackTree<CompRational> a = new RedBlackTree<>(true, DuplicatePolicy.REJECT);
+        a.addAll(expected);
+        int runs = 10_000;
+        long splitNanos = 0;
+        long joinNanos = 0;
+        for(int run = 0; run < runs; run++) {
+            CompRational key = new CompRational(rnd.nextInt(2 * n), 1);
+            long start = System.nanoTime();
+            RedBlackTree<CompRational> greater = a.split(key);
+            splitNanos += System.nanoTime() - start;
+            if(a.size() + greater.size() != n
+                    || (!a.isEmpty() && a.last().compareTo(key) >= 0)
+                    || (!greater.isEmpty() && greater.first().compareTo(key) < 0))
+                throw new IllegalStateException("split(" + key + ") returned " + a.size() + " and " + greater.size()
+                        + " elements.");
+            start = System.nanoTime();
+            a.join(greater);
+            joinNanos += System.nanoTime() - start;
+            if(a.size() != n || !greater.isEmpty())
+                throw new IllegalStateException("join() after split(" + key + ") returned " + a.size() + " elements.");
+        }
+        if(!a.equals(expected))
+            throw new IllegalStateException("split() and join() changed the elements.");
+
+        RedBlackTree<CompRational> separate = new RedBlackTree<>(true, DuplicatePolicy.REJECT);
+        for(int i = 0; i < 1_000; i++)
+            separate.add(new CompRational(2 * n + i, 1));
+        a.join(separate);
+        RedBlackTree<CompRational> greater = a.split(new CompRational(2 * n, 1));
+        if(!a.equals(expected) || greater.size() != 1_000 || !separate.isEmpty())
+            throw new IllegalStateException("join() of a separate tree returned " + a.size() + " elements.");
+        System.out.printf("%nsplit(): %.2f us, join(): %.2f us on %d elements%n", splitNanos / 1e3 / runs,
+                joinNanos / 1e3 / runs, n);
+    }
+
+    /**
+     * Returns a tree of size random CompRationals with denominator 1 and a numerator below bound.
+     * @param rnd   source of randomness
+     * @param size  number of elements
+     * @param bound upper bound of the numerators
+     * @return  new tree
+     */
+    private static RedBlackTree<CompRational> randomTree(Random rnd, int size, int bound) {
+        RedBlackTree<CompRational> rbt = new RedBlackTree<>(DuplicatePolicy.REJECT);
+        while(rbt.size() < size)
+            rbt.add(new CompRational(rnd.nextInt(bound), 1));
+        return rbt;
+    }
+
+    /**
+     * Runs both variants of an operation three times on fresh copies of a and prints the best times. Both results have
+     * to hold the same elements.
+     * @param m size of b
+     * @param name  name of the operation
+     * @param a first operand, copied for every run
+     * @param b second operand
+     * @param elementWise   element-wise variant
+     * @param setOperation    set operation variant
+     */
+    private static void print(int m, String name, RedBlackTree<CompRational> a, RedBlackTree<CompRational> b,
+                              BiPredicate<RedBlackTree<CompRational>, RedBlackTree<CompRational>> elementWise,
+                              BiPredicate<RedBlackTree<CompRational>, RedBlackTree<CompRational>> setOperation) {
+        double elementWiseMillis = Double.MAX_VALUE;
+        double setOperationMillis = Double.MAX_VALUE;
+        for(int run = 0; run < 3; run++) {
+            RedBlackTree<CompRational> copy = new RedBlackTree<>(a);
+            long start = System.nanoTime();
+            elementWise.test(copy, b);
+            elementWiseMillis = Math.min(elementWiseMillis, (System.nanoTime() - start) / 1e6);
+            RedBlackTree<CompRational> expected = copy;
+
+            copy = new RedBlackTree<>(a);
+            start = System.nanoTime();
+            setOperation.test(copy, b);
+            setOperationMillis = Math.min(setOperationMillis, (System.nanoTime() - start) / 1e6);
+            if(!copy.equals(expected))
+                throw new IllegalStateException(name + " returned " + copy.size() + " elements instead of "
+                        + expected.size() + ".");
+        }
+        System.out.printf("%-10d %-14s %15.1f %15.1f%n", m, name, elementWiseMillis, setOperationMillis);
+    }
+}
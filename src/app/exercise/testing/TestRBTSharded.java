@@ -0,0 +1,79 @@
+package app.exercise.testing;
+
+import app.exercise.adt.ConcurrentRedBlackTree;
+import app.exercise.adt.ShardedRedBlackTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executable class that measures the write throughput of a {@link ShardedRedBlackTree} with 16 shards against a
+ * {@link ConcurrentRedBlackTree}, which has a single write lock. Every thread adds and removes random keys; the number of
+ * writer threads doubles from 1 up to twice the number of available processors. Prints million operations per second.
+ * Afterwards the writers add monotonically increasing keys to sharded sets with 2 and 16 shards, which all fall into
+ * the last shard, and the shard sizes are printed and checked to be even. The first command line argument sets the duration per run in
+ * milliseconds (defaults to 1000).
+ */
+public class TestRBTSharded {
+    /**
+     * Number of distinct keys the operations are drawn from.
+     */
+    private static final int KEYS = 1 << 20;
+    /**
+     * Number of shards of the sharded set.
+     */
+    private static final int SHARDS = 16;
+
+    public static void main(String[] args) throws InterruptedException {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int maxThreads = 2 * Runtime.getRuntime().availableProcessors();
+
+        List<Integer> splits = new ArrayList<>();
+        for(int i = 1; i < SHARDS; i++)
+            splits.add(i * (KEYS / SHARDS));
+
+        System.out.printf("%-8s %15s %15s%n", "Writers", "single lock", "sharded");
+        for(int threads = 1; threads <= Math.max(maxThreads, 4); threads *= 2) {
+            ConcurrentRedBlackTree<Integer> single = new ConcurrentRedBlackTree<>();
+            ShardedRedBlackTree<Integer> sharded = new ShardedRedBlackTree<>(splits);
+            double singleOps = run(single, threads, millis);
+            double shardedOps = run(sharded, threads, millis);
+            System.out.printf("%-8d %15.2f %15.2f%n", threads, singleOps / 1e6, shardedOps / 1e6);
+        }
+
+        // every key is greater than all previous ones, so without rebalancing the last shard would receive all of them
+        System.out.println();
+        for(int shards : new int[] {2, SHARDS}) {
+            ShardedRedBlackTree<Integer> sharded = new ShardedRedBlackTree<>(splits.subList(0, shards - 1));
+            AtomicInteger next = new AtomicInteger();
+            double ops = Throughput.measure(maxThreads, millis, rnd -> sharded.add(next.getAndIncrement()));
+            int[] sizes = sharded.shardSizes();
+            int max = Arrays.stream(sizes).max().getAsInt();
+            System.out.printf("Increasing keys, %2d shards: %.2f million adds/s, shard sizes %s%n", shards, ops / 1e6,
+                    Arrays.toString(sizes));
+            if(max > 1024 && (long) max * (shards - 1) > 2L * (sharded.size() - max))
+                throw new IllegalStateException("Shards have not been rebalanced: " + Arrays.toString(sizes));
+        }
+    }
+
+    /**
+     * Lets the passed number of threads add and remove random keys for the passed duration.
+     * @param set   set to write to
+     * @param threads   number of writer threads
+     * @param millis    duration in milliseconds
+     * @return  operations per second
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    private static double run(Collection<Integer> set, int threads, long millis) throws InterruptedException {
+        return Throughput.measure(threads, millis, rnd -> {
+            int key = rnd.nextInt(KEYS);
+            if(rnd.nextBoolean())
+                set.add(key);
+            else
+                set.remove(key);
+        });
+    }
+}
@@ -0,0 +1,99 @@
+package app.exercise.testing;
+
+import app.exercise.adt.DuplicatePolicy;
+import app.exercise.adt.KeyCodec;
+import app.exercise.adt.RedBlackTree;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Executable class that compares rebuilding a RedBlackTree by replaying add() calls with reopening it from a memory
+ * mapped snapshot. Uses a number of random Integers (first command line argument, defaults to 1_000_000) and prints
+ * the time needed to open the tree, to look up every key, to iterate and to perform the first modification. Then writes
+ * a mapped tree onto the file it is mapped from and looks up keys in a mapped tree with reversed order.
+ */
+public class TestRBTSnapshot {
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random rnd = new Random(42);
+        int[] keys = new int[n];
+        for(int i = 0; i < n; i++)
+            keys[i] = rnd.nextInt();
+
+        long start = System.nanoTime();
+        RedBlackTree<Integer> rbt = new RedBlackTree<>(DuplicatePolicy.REJECT);
+        for(int key : keys)
+            rbt.add(key);
+        report("Replay of add()", start);
+
+        Path file = Files.createTempFile("rbt", ".snapshot");
+        try {
+            start = System.nanoTime();
+            rbt.writeSnapshot(file, KeyCodec.INTEGER);
+            report("Write snapshot (" + Files.size(file) + " bytes)", start);
+
+            start = System.nanoTime();
+            RedBlackTree<Integer> mapped = new RedBlackTree<>(DuplicatePolicy.REJECT);
+            mapped.mapSnapshot(file, KeyCodec.INTEGER);
+            report("Open snapshot", start);
+
+            start = System.nanoTime();
+            int found = 0;
+            for(int key : keys) {
+                if(mapped.contains(key))
+                    found++;
+            }
+            report("Lookups on mapped file (" + found + " found)", start);
+
+            start = System.nanoTime();
+            long sum = 0;
+            for(int key : mapped)
+                sum += key;
+            report("Iteration on mapped file (sum " + sum + ")", start);
+
+            start = System.nanoTime();
+            mapped.add(rnd.nextInt());
+            report("First add(), creates heap Nodes", start);
+
+            // overwrite the file a tree is still mapped from
+            RedBlackTree<Integer> remapped = new RedBlackTree<>(DuplicatePolicy.REJECT);
+            remapped.mapSnapshot(file, KeyCodec.INTEGER);
+            remapped.writeSnapshot(file, KeyCodec.INTEGER);
+            RedBlackTree<Integer> reopened = new RedBlackTree<>(DuplicatePolicy.REJECT);
+            reopened.mapSnapshot(file, KeyCodec.INTEGER);
+            System.out.println("Snapshot onto its own file: mapped tree intact " + remapped.equals(rbt)
+                    + ", reopened tree intact " + reopened.equals(rbt));
+
+            RedBlackTree<Integer> reversed = new RedBlackTree<>(Comparator.reverseOrder(), false,
+                    DuplicatePolicy.REJECT);
+            for(int i = 0; i < 100; i++)
+                reversed.add(i);
+            reversed.writeSnapshot(file, KeyCodec.INTEGER);
+            RedBlackTree<Integer> mappedReversed = new RedBlackTree<>(Comparator.reverseOrder(), false,
+                    DuplicatePolicy.REJECT);
+            mappedReversed.mapSnapshot(file, KeyCodec.INTEGER);
+            found = 0;
+            for(int i = -100; i < 200; i++) {
+                if(mappedReversed.contains(i))
+                    found++;
+            }
+            System.out.println("Reversed order: " + found + " of 100 keys found, first " + mappedReversed.first()
+                    + ", equal to source " + mappedReversed.equals(reversed));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Prints the passed label and the milliseconds elapsed since start.
+     * @param label description of the measured step
+     * @param start value of System.nanoTime() at the beginning of the step
+     */
+    private static void report(String label, long start) {
+        System.out.printf("%-45s %8.1f ms%n", label, (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -0,0 +1,100 @@
+package app.exercise.testing;
+
+import app.exercise.adt.DuplicatePolicy;
+import app.exercise.adt.KeyCodec;
+import app.exercise.adt.RedBlackTree;
+import app.exercise.adt.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Executable class that reports the throughput of a RedBlackTree with an attached {@link WriteAheadLog} for every
+ * {@link WriteAheadLog.SyncPolicy}. Performs a number of random add() and remove() calls (first command line argument,
+ * defaults to 20_000) per policy and prints operations per second and the number of fsync calls. Afterwards the tree is
+ * recovered from the log to check that nothing has been lost. Finally every kind of modification is tried on a tree
+ * whose log has been closed: since records are appended before the tree changes, each one has to fail and leave the
+ * tree unchanged.
+ */
+public class TestRBTWal {
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        Path dir = Files.createTempDirectory("rbt-wal");
+        Path logFile = dir.resolve("tree.log");
+        Path snapshot = dir.resolve("tree.snapshot");
+
+        System.out.printf("%-15s %12s %10s %10s%n", "Policy", "ops/s", "fsyncs", "recovered");
+        for(WriteAheadLog.SyncPolicy policy : WriteAheadLog.SyncPolicy.values()) {
+            Files.deleteIfExists(logFile);
+            RedBlackTree<Integer> rbt = new RedBlackTree<>(DuplicatePolicy.REJECT);
+            Random rnd = new Random(42);
+            long syncs;
+
+            long start = System.nanoTime();
+            try(WriteAheadLog<Integer> log = new WriteAheadLog<>(logFile, KeyCodec.INTEGER, policy, 256, 10)) {
+                rbt.setLog(log);
+                for(int i = 0; i < n; i++) {
+                    int key = rnd.nextInt(n);
+                    if(rnd.nextInt(4) == 0)
+                        rbt.remove(key);
+                    else
+                        rbt.add(key);
+                }
+                log.sync();
+                syncs = log.getSyncCount();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            RedBlackTree<Integer> recovered = new RedBlackTree<>(DuplicatePolicy.REJECT);
+            try(WriteAheadLog<Integer> log = new WriteAheadLog<>(logFile, KeyCodec.INTEGER)) {
+                log.recover(recovered, snapshot);
+            }
+            System.out.printf("%-15s %12.0f %10d %10b%n", policy, n / seconds, syncs, recovered.equals(rbt));
+        }
+
+        RedBlackTree<Integer> rbt = new RedBlackTree<>(DuplicatePolicy.REJECT);
+        for(int i = 0; i < 1_000; i += 2)
+            rbt.add(i);
+        RedBlackTree<Integer> expected = new RedBlackTree<>(rbt);
+        // the second operands are large enough for the merge paths and small enough for the others
+        RedBlackTree<Integer> large = new RedBlackTree<>(DuplicatePolicy.REJECT);
+        for(int i = 0; i < 1_000; i += 3)
+            large.add(i);
+        RedBlackTree<Integer> small = new RedBlackTree<>(DuplicatePolicy.REJECT);
+        small.addAll(Arrays.asList(1, 2, 3));
+        RedBlackTree<Integer> greater = new RedBlackTree<>(DuplicatePolicy.REJECT);
+        greater.addAll(Arrays.asList(1_000, 1_001, 1_002));
+        try(WriteAheadLog<Integer> log = new WriteAheadLog<>(logFile, KeyCodec.INTEGER)) {
+            rbt.setLog(log);
+        }
+        List<Consumer<RedBlackTree<Integer>>> modifications = Arrays.asList(t -> t.add(1), t -> t.remove(2),
+                RedBlackTree::pollFirst, RedBlackTree::pollLast, t -> {
+                    Iterator<Integer> it = t.iterator();
+                    it.next();
+                    it.remove();
+                }, t -> t.addAll(small), t -> t.addAll(large), t -> t.removeAll(small), t -> t.removeAll(large),
+                t -> t.union(small), t -> t.union(large), t -> t.intersection(small), t -> t.intersection(large),
+                t -> t.difference(small), t -> t.difference(large), t -> t.split(500), t -> t.join(greater),
+                RedBlackTree::clear);
+        int unchanged = 0;
+        for(Consumer<RedBlackTree<Integer>> modification : modifications) {
+            try {
+                modification.accept(rbt);
+            } catch (IllegalStateException e) {
+                // the closed log rejects the record
+            }
+            if(rbt.equals(expected) && greater.size() == 3)
+                unchanged++;
+        }
+        System.out.printf("%nModifications with a closed log that left the tree unchanged: %d of %d%n", unchanged,
+                modifications.size());
+        Files.deleteIfExists(logFile);
+        Files.deleteIfExists(dir);
+    }
+}
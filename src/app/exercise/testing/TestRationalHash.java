@@ -0,0 +1,109 @@
+package app.exercise.testing;
+
+import app.exercise.algebra.Rational;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Executable class that shows the effect of {@link Rational#hashCode()} and of the precompiled patterns of {@link RPN}.
+ * First fills a HashSet with a number of distinct Rationals (first command line argument, defaults to 20_000) and looks
+ * all of them up, once with the hash function and once with the former constant hash value. Then evaluates a random RPN
+ * expression of single digit operands repeatedly and prints time and allocated bytes per evaluation, next to the cost
+ * of the former tokenizing with String.split() and String.matches() alone.
+ */
+public class TestRationalHash {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+
+        Rational[] hashed = new Rational[n];
+        Rational[] constant = new Rational[n];
+        for(int i = 0; i < n; i++) {
+            hashed[i] = new Rational(i, 7);
+            constant[i] = new Rational(i, 7) {
+                @Override
+                public int hashCode() {
+                    return 42;
+                }
+            };
+        }
+        System.out.printf("HashSet of %d Rationals, hashCode():  %10.1f ms%n", n, fill(hashed));
+        System.out.printf("HashSet of %d Rationals, constant 42: %10.1f ms%n", n, fill(constant));
+
+        Random rnd = new Random(42);
+        StringBuilder sb = new StringBuilder().append(rnd.nextInt(9) + 1);
+        String[] operators = {"+", "*", "/"};
+        for(int i = 1; i < 64; i++)
+            sb.append(' ').append(rnd.nextInt(9) + 1).append(' ').append(operators[rnd.nextInt(3)]);
+        String expression = sb.toString();
+        RPN rpn = new RPN();
+        measure(() -> rpn.evaluate(expression), 100_000);
+        measure(() -> tokenize(expression), 100_000);
+        System.out.printf("%-20s %12s %16s%n", "", "ns / eval", "bytes / eval");
+        print("RPN.evaluate()", measure(() -> rpn.evaluate(expression), 100_000));
+        print("former tokenizing", measure(() -> tokenize(expression), 100_000));
+    }
+
+    /**
+     * Adds all passed Rationals to a HashSet and looks them up.
+     * @param rationals distinct Rationals
+     * @return  duration in milliseconds
+     */
+    private static double fill(Rational[] rationals) {
+        long start = System.nanoTime();
+        Set<Rational> set = new HashSet<>();
+        for(Rational r : rationals)
+            set.add(r);
+        for(Rational r : rationals) {
+            if(!set.contains(r))
+                throw new IllegalStateException(r + " not found.");
+        }
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    /**
+     * Checks and classifies the tokens of the passed expression like RPN did before its patterns were precompiled, which
+     * compiles a regular expression for every split() and matches() call.
+     * @param expression    expression to tokenize
+     * @return  number of operands
+     */
+    private static int tokenize(String expression) {
+        for(String elem : expression.split("\\s")) {
+            if(!elem.matches("(\\+||\\*||\\/||\\-)||\\d+"))
+                throw new IllegalArgumentException(elem);
+        }
+        int operands = 0;
+        for(String s : expression.split("\\s")) {
+            if(s.matches("\\d+"))
+                operands++;
+        }
+        return operands;
+    }
+
+    /**
+     * Runs the passed task repeatedly.
+     * @param task  task to run
+     * @param times number of runs
+     * @return  nanoseconds and allocated bytes per run
+     */
+    private static double[] measure(Runnable task, int times) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytes = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for(int i = 0; i < times; i++)
+            task.run();
+        return new double[] {(double) (System.nanoTime() - start) / times,
+                (double) (threads.getCurrentThreadAllocatedBytes() - bytes) / times};
+    }
+
+    /**
+     * Prints the result of {@link #measure(Runnable, int)}.
+     * @param name  name to print
+     * @param result    nanoseconds and bytes per evaluation
+     */
+    private static void print(String name, double[] result) {
+        System.out.printf("%-20s %12.0f %16.0f%n", name, result[0], result[1]);
+    }
+}
@@ -0,0 +1,56 @@
+package app.exercise.testing;
+
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Harness for the throughput tests of the concurrent trees. Lets a number of threads repeat an operation for a fixed
+ * time and counts how often it completed.
+ */
+final class Throughput {
+    /**
+     * One operation of a worker thread.
+     */
+    interface Operation {
+        /**
+         * Performs the operation once.
+         * @param rnd   random source of the calling thread
+         */
+        void run(Random rnd);
+    }
+
+    private Throughput() {
+    }
+
+    /**
+     * Lets the passed number of threads repeat the passed operation for the passed duration. Thread t draws from a
+     * Random seeded with t, so runs are repeatable.
+     * @param threads   number of threads
+     * @param millis    duration in milliseconds
+     * @param op    operation to repeat
+     * @return  operations per second
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    static double measure(int threads, long millis, Operation op) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        long end = System.currentTimeMillis() + millis;
+        Thread[] workers = new Thread[threads];
+        for(int t = 0; t < threads; t++) {
+            int seed = t;
+            workers[t] = new Thread(() -> {
+                Random rnd = new Random(seed);
+                long done = 0;
+                // only look at the clock every 1024 operations
+                while((done & 1023) != 0 || System.currentTimeMillis() < end) {
+                    op.run(rnd);
+                    done++;
+                }
+                ops.add(done);
+            });
+            workers[t].start();
+        }
+        for(Thread worker : workers)
+            worker.join();
+        return ops.sum() / (millis / 1000.0);
+    }
+}